@@ -0,0 +1,120 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/** Loads realistic benchmark inputs. */
+final class Corpus {
+    /** Maximum number of classes loaded from the JDK. */
+    private static final int MAX_JDK_CLASSES = 2000;
+
+    private Corpus() {}
+
+    static List<byte[]> loadClassFiles(String name) throws IOException {
+        switch (name) {
+            case "jdk":
+                return loadJdkClasses();
+            case "asm":
+                return loadArchive(getCodeSource(ClassReader.class));
+            default:
+                throw new IllegalArgumentException("Unknown corpus " + name);
+        }
+    }
+
+    private static Path getCodeSource(Class<?> clazz) {
+        try {
+            return Paths.get(clazz.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static List<byte[]> loadArchive(Path path) throws IOException {
+        List<byte[]> classFiles = new ArrayList<>();
+        for (ArchiveEntry entry : MappedArchive.open(path).getClassEntries()) {
+            classFiles.add(entry.getBytes());
+        }
+        return classFiles;
+    }
+
+    private static List<byte[]> loadJdkClasses() throws IOException {
+        String javaHome = System.getProperty("java.home");
+        Path rtJar = Paths.get(javaHome, "lib", "rt.jar");
+        if (Files.exists(rtJar)) {
+            // Java 8
+            List<byte[]> classFiles = loadArchive(rtJar);
+            return classFiles.subList(0, Math.min(classFiles.size(), MAX_JDK_CLASSES));
+        }
+        FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+        List<Path> paths;
+        try (Stream<Path> stream = Files.walk(jrt.getPath("/modules/java.base/java"))) {
+            paths =
+                    stream.filter(path -> path.toString().endsWith(".class"))
+                            .sorted()
+                            .limit(MAX_JDK_CLASSES)
+                            .collect(Collectors.toList());
+        }
+        List<byte[]> classFiles = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            try (InputStream in = Files.newInputStream(path)) {
+                classFiles.add(readFully(in));
+            }
+        }
+        return classFiles;
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int c;
+        while ((c = in.read(buffer)) != -1) {
+            out.write(buffer, 0, c);
+        }
+        return out.toByteArray();
+    }
+
+    static List<MethodNode> loadMethods(String name) throws IOException {
+        List<MethodNode> methods = new ArrayList<>();
+        for (byte[] classFile : loadClassFiles(name)) {
+            ClassNode classNode = new ClassNode();
+            new ClassReader(classFile).accept(classNode, ClassReader.EXPAND_FRAMES);
+            methods.addAll(classNode.methods);
+        }
+        return methods;
+    }
+}
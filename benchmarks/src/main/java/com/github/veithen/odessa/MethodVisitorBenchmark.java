@@ -0,0 +1,97 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Measures the throughput of {@link MethodVisitorImpl} over the methods of a realistic corpus. Only
+ * methods that can be decompiled are used, so that the cost of exceptions for unsupported patterns
+ * doesn't distort the results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MethodVisitorBenchmark {
+    @Param({"jdk", "asm"})
+    public String corpus;
+
+    private List<MethodNode> methods;
+
+    @Setup
+    public void setUp() throws IOException {
+        methods = new ArrayList<>();
+        for (MethodNode method : Corpus.loadMethods(corpus)) {
+            try {
+                method.accept(new MethodVisitorImpl());
+                methods.add(method);
+            } catch (RuntimeException ex) {
+                // Not supported yet; skip.
+            }
+        }
+        if (methods.isEmpty()) {
+            throw new IllegalStateException("No supported methods in corpus " + corpus);
+        }
+    }
+
+    @Benchmark
+    public void decompile(Blackhole blackhole) {
+        for (MethodNode method : methods) {
+            MethodVisitorImpl visitor = new MethodVisitorImpl();
+            method.accept(visitor);
+            blackhole.consume(visitor.getInstructions());
+        }
+    }
+
+    /** Same as {@link #decompile(Blackhole)}, but reusing the visitor between methods. */
+    @Benchmark
+    public void decompileReusingVisitor(Blackhole blackhole) {
+        MethodVisitorImpl visitor = MethodVisitorImpl.acquire();
+        try {
+            for (MethodNode method : methods) {
+                visitor.reset();
+                method.accept(visitor);
+                blackhole.consume(visitor.getInstructions());
+            }
+        } finally {
+            visitor.release();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.MethodNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link MethodVisitorImpl} on synthetic methods that each stress a single family of
+ * opcodes, so that regressions in a specific code path show up as a change in a single result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpcodeFamilyBenchmark {
+    public enum Family {
+        /** Long chains of binary operators; stresses {@code popExpression}. */
+        ARITHMETIC,
+        /**
+         * {@code new}/{@code dup}/{@code invokespecial} sequences assigned to locals; stresses
+         * {@code consumeTopOfStackExpression}.
+         */
+        NEW_DUP,
+        /** Virtual method invocations; stresses {@code visitMethodInsn}. */
+        INVOKE,
+        /** Field reads and writes; stresses {@code visitFieldInsn}. */
+        FIELD,
+    }
+
+    @Param public Family family;
+
+    @Param("1000")
+    public int size;
+
+    private MethodNode method;
+
+    @Setup
+    public void setUp() {
+        method = new MethodNode(Opcodes.ACC_PUBLIC, "test", "(I)I", null, null);
+        method.visitCode();
+        method.visitLabel(new Label());
+        switch (family) {
+            case ARITHMETIC:
+                method.visitVarInsn(Opcodes.ILOAD, 1);
+                for (int i = 0; i < size; i++) {
+                    method.visitVarInsn(Opcodes.ILOAD, 1);
+                    method.visitInsn(i % 2 == 0 ? Opcodes.IADD : Opcodes.IMUL);
+                }
+                method.visitInsn(Opcodes.IRETURN);
+                break;
+            case NEW_DUP:
+                for (int i = 0; i < size; i++) {
+                    method.visitTypeInsn(Opcodes.NEW, "java/lang/String");
+                    method.visitInsn(Opcodes.DUP);
+                    method.visitLdcInsn("foobar");
+                    method.visitMethodInsn(
+                            Opcodes.INVOKESPECIAL,
+                            "java/lang/String",
+                            "<init>",
+                            "(Ljava/lang/String;)V",
+                            false);
+                    method.visitVarInsn(Opcodes.ASTORE, 2);
+                }
+                method.visitInsn(Opcodes.ICONST_0);
+                method.visitInsn(Opcodes.IRETURN);
+                break;
+            case INVOKE:
+                for (int i = 0; i < size; i++) {
+                    method.visitVarInsn(Opcodes.ALOAD, 0);
+                    method.visitVarInsn(Opcodes.ILOAD, 1);
+                    method.visitMethodInsn(
+                            Opcodes.INVOKEVIRTUAL, "test/Test", "foo", "(I)I", false);
+                    method.visitVarInsn(Opcodes.ISTORE, 1);
+                }
+                method.visitVarInsn(Opcodes.ILOAD, 1);
+                method.visitInsn(Opcodes.IRETURN);
+                break;
+            case FIELD:
+                for (int i = 0; i < size; i++) {
+                    method.visitVarInsn(Opcodes.ALOAD, 0);
+                    method.visitVarInsn(Opcodes.ALOAD, 0);
+                    method.visitFieldInsn(Opcodes.GETFIELD, "test/Test", "a", "I");
+                    method.visitFieldInsn(Opcodes.GETSTATIC, "test/Test", "b", "I");
+                    method.visitInsn(Opcodes.IADD);
+                    method.visitFieldInsn(Opcodes.PUTFIELD, "test/Test", "a", "I");
+                }
+                method.visitInsn(Opcodes.ICONST_0);
+                method.visitInsn(Opcodes.IRETURN);
+                break;
+            default:
+                throw new IllegalStateException();
+        }
+        method.visitEnd();
+    }
+
+    @Benchmark
+    public Object decompile() {
+        MethodVisitorImpl visitor = new MethodVisitorImpl();
+        method.accept(visitor);
+        return visitor.getInstructions();
+    }
+}
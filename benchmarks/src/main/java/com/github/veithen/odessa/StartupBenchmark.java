@@ -0,0 +1,112 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures the time a fresh JVM takes to decompile a single class with the command line decompiler,
+ * i.e. the latency of a short one-shot run, with and without a class data sharing archive. Unlike
+ * the other benchmarks, this doesn't use JMH because the measured time includes JVM startup. Run
+ * with: {@code java -cp target/benchmarks.jar com.github.veithen.odessa.StartupBenchmark <directory
+ * created by the dist profile> [runs]}
+ */
+public final class StartupBenchmark {
+    private static final String PROBE_CLASS = "com/github/veithen/odessa/Decompiler.class";
+
+    private StartupBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        Path dist = Paths.get(args[0]);
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        Path work = Files.createTempDirectory("startup");
+        Path jar = dist.resolve("odessa.jar");
+        Path probe = work.resolve("Probe.class");
+        for (ArchiveEntry entry : MappedArchive.open(jar).getClassEntries()) {
+            if (entry.getName().equals(PROBE_CLASS)) {
+                Files.write(probe, entry.getBytes());
+            }
+        }
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String jsa = work.resolve("odessa.jsa").toString();
+        List<String> command =
+                Arrays.asList(
+                        "-jar",
+                        jar.toString(),
+                        "-o",
+                        work.resolve("out").toString(),
+                        probe.toString());
+        File log = work.resolve("log").toFile();
+
+        // Create the archive the same way the launcher does, i.e. with a training run.
+        run(log, java, "-XX:ArchiveClassesAtExit=" + jsa, command);
+
+        String[] names = {"default", "cds"};
+        String[] options = {"-Xshare:auto", "-XX:SharedArchiveFile=" + jsa};
+        long[][] times = new long[names.length][runs];
+        for (int i = -1; i < runs; i++) {
+            for (int j = 0; j < names.length; j++) {
+                long time = run(log, java, options[j], command);
+                // The first round only warms up the file system cache.
+                if (i >= 0) {
+                    times[j][i] = time;
+                }
+            }
+        }
+        for (int j = 0; j < names.length; j++) {
+            long[] sorted = times[j].clone();
+            Arrays.sort(sorted);
+            System.out.println(
+                    String.format(
+                            Locale.ROOT,
+                            "%-8s min %6.1f ms   median %6.1f ms   p90 %6.1f ms",
+                            names[j],
+                            sorted[0] / 1e6,
+                            sorted[runs / 2] / 1e6,
+                            sorted[runs * 9 / 10] / 1e6));
+        }
+    }
+
+    private static long run(File log, String java, String option, List<String> command)
+            throws IOException, InterruptedException {
+        List<String> commandLine = new ArrayList<>();
+        commandLine.add(java);
+        commandLine.add(option);
+        commandLine.addAll(command);
+        long start = System.nanoTime();
+        Process process =
+                new ProcessBuilder(commandLine)
+                        .redirectErrorStream(true)
+                        .redirectOutput(ProcessBuilder.Redirect.appendTo(log))
+                        .start();
+        if (process.waitFor() != 0) {
+            throw new IOException("Decompiler failed; see " + log);
+        }
+        return System.nanoTime() - start;
+    }
+}
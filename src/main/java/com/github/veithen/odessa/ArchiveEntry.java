@@ -0,0 +1,155 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+public final class ArchiveEntry {
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    /**
+     * Per thread inflater and input buffer. Java 8 has no API to inflate directly from a {@link
+     * ByteBuffer}, so compressed data from the mapping is copied into a reusable buffer first.
+     */
+    private static final ThreadLocal<InflaterState> inflaterState =
+            ThreadLocal.withInitial(InflaterState::new);
+
+    private static final class InflaterState {
+        final Inflater inflater = new Inflater(true);
+        byte[] input = new byte[8192];
+    }
+
+    private final MappedArchive archive;
+    private final String name;
+    private final int method;
+    private final int compressedSize;
+    private final int size;
+    private final int localHeaderOffset;
+
+    ArchiveEntry(
+            MappedArchive archive,
+            String name,
+            int method,
+            int compressedSize,
+            int size,
+            int localHeaderOffset) {
+        this.archive = archive;
+        this.name = name;
+        this.method = method;
+        this.compressedSize = compressedSize;
+        this.size = size;
+        this.localHeaderOffset = localHeaderOffset;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isDirectory() {
+        return name.endsWith("/");
+    }
+
+    public boolean isClass() {
+        return name.endsWith(".class");
+    }
+
+    public boolean isNestedArchive() {
+        return name.endsWith(".jar");
+    }
+
+    /**
+     * Returns the uncompressed content of the entry. For stored entries, this is a single copy out
+     * of the mapping; deflated entries are inflated directly into an array of the exact size.
+     */
+    public byte[] getBytes() throws IOException {
+        ByteBuffer data = archive.getData(localHeaderOffset, compressedSize);
+        byte[] bytes = new byte[size];
+        switch (method) {
+            case STORED:
+                data.get(bytes);
+                break;
+            case DEFLATED:
+                inflate(data, bytes);
+                break;
+            default:
+                throw new ZipException("Unsupported compression method " + method + ": " + name);
+        }
+        return bytes;
+    }
+
+    private void inflate(ByteBuffer data, byte[] bytes) throws ZipException {
+        InflaterState state = inflaterState.get();
+        Inflater inflater = state.inflater;
+        if (data.hasArray()) {
+            inflater.setInput(data.array(), data.arrayOffset() + data.position(), compressedSize);
+        } else {
+            if (state.input.length < compressedSize) {
+                state.input = new byte[Math.max(compressedSize, state.input.length * 2)];
+            }
+            data.get(state.input, 0, compressedSize);
+            inflater.setInput(state.input, 0, compressedSize);
+        }
+        try {
+            int offset = 0;
+            while (offset < size) {
+                int count = inflater.inflate(bytes, offset, size - offset);
+                if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                offset += count;
+            }
+            if (offset != size) {
+                throw new ZipException("Unexpected end of compressed data: " + name);
+            }
+        } catch (DataFormatException ex) {
+            ZipException zipException = new ZipException("Invalid compressed data: " + name);
+            zipException.initCause(ex);
+            throw zipException;
+        } finally {
+            inflater.reset();
+        }
+    }
+
+    /**
+     * Opens this entry as a nested archive. Stored entries are read in place from the outer
+     * mapping; deflated ones are inflated into a heap buffer.
+     */
+    public MappedArchive openNested() throws IOException {
+        if (method == STORED) {
+            return MappedArchive.wrap(archive.getData(localHeaderOffset, compressedSize));
+        } else {
+            return MappedArchive.wrap(ByteBuffer.wrap(getBytes()));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
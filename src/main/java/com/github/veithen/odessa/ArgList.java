@@ -19,35 +19,70 @@
  */
 package com.github.veithen.odessa;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 
-@SuppressWarnings("EqualsHashCode")
 public final class ArgList {
     private final Expression[] args;
+    private int hashCode;
 
     public ArgList(Expression[] args) {
         this.args = args;
     }
 
-    @Override
-    public String toString() {
-        StringBuilder buffer = new StringBuilder("(");
+    public int size() {
+        return args.length;
+    }
+
+    public Expression get(int index) {
+        return args[index];
+    }
+
+    public void appendTo(Appendable out) throws IOException {
+        out.append('(');
         for (int i = 0; i < args.length; i++) {
             if (i > 0) {
-                buffer.append(", ");
+                out.append(", ");
             }
-            buffer.append(args[i]);
+            args[i].appendTo(out);
+        }
+        out.append(')');
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buffer = new StringBuilder();
+        try {
+            appendTo(buffer);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
         }
-        buffer.append(")");
         return buffer.toString();
     }
 
+    @Override
+    public int hashCode() {
+        int hashCode = this.hashCode;
+        if (hashCode == 0) {
+            hashCode = Arrays.hashCode(args);
+            if (hashCode == 0) {
+                hashCode = 1;
+            }
+            this.hashCode = hashCode;
+        }
+        return hashCode;
+    }
+
     @Override
     public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
         if (!(obj instanceof ArgList)) {
             return false;
         }
         ArgList other = (ArgList) obj;
-        return Arrays.deepEquals(args, other.args);
+        return hashCode() == other.hashCode() && Arrays.equals(args, other.args);
     }
 }
@@ -0,0 +1,78 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+
+/** Array element access, i.e. {@code array[index]}. */
+public final class ArrayElementExpression extends LvalueExpression {
+    private final Expression array;
+    private final Expression index;
+
+    public ArrayElementExpression(Expression array, Expression index) {
+        this.array = array;
+        this.index = index;
+    }
+
+    public Expression getArray() {
+        return array;
+    }
+
+    public Expression getIndex() {
+        return index;
+    }
+
+    @Override
+    public boolean isPure() {
+        return array.isPure() && index.isPure();
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        array.appendTo(out);
+        out.append('[');
+        index.appendTo(out);
+        out.append(']');
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return 31 * array.hashCode() + index.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof ArrayElementExpression)) {
+            return false;
+        }
+        ArrayElementExpression other = (ArrayElementExpression) obj;
+        return hashCode() == other.hashCode()
+                && array.equals(other.array)
+                && index.equals(other.index);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitArrayElement(this);
+    }
+}
@@ -0,0 +1,119 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.objectweb.asm.Type;
+
+/**
+ * Array creation with an initializer, i.e. {@code new T[] {a, b, c}}. Elements that are never
+ * assigned keep the default value.
+ */
+public final class ArrayInitializerExpression extends Expression {
+    private final Type type;
+    private final Expression[] elements;
+
+    ArrayInitializerExpression(Type type, Expression[] elements) {
+        this.type = type;
+        this.elements = elements;
+    }
+
+    public ArrayInitializerExpression(Type type, int length) {
+        this(type, new Expression[length]);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getLength() {
+        return elements.length;
+    }
+
+    /** Returns the element at the given index, or {@code null} if it has the default value. */
+    public Expression getElement(int index) {
+        return elements[index];
+    }
+
+    /** Returns a copy of this expression with the given element replaced. */
+    public ArrayInitializerExpression withElement(int index, Expression element) {
+        Expression[] newElements = elements.clone();
+        newElements[index] = element;
+        return new ArrayInitializerExpression(type, newElements);
+    }
+
+    @Override
+    public boolean isPure() {
+        return false;
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        out.append("new ").append(type.getClassName()).append(" {");
+        Type elementType = Type.getType(type.getDescriptor().substring(1));
+        for (int i = 0; i < elements.length; i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            if (elements[i] != null) {
+                elements[i].appendTo(out);
+            } else {
+                switch (elementType.getSort()) {
+                    case Type.OBJECT:
+                    case Type.ARRAY:
+                        out.append("null");
+                        break;
+                    case Type.BOOLEAN:
+                        out.append("false");
+                        break;
+                    default:
+                        out.append('0');
+                }
+            }
+        }
+        out.append('}');
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return 31 * type.hashCode() + Arrays.hashCode(elements);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof ArrayInitializerExpression)) {
+            return false;
+        }
+        ArrayInitializerExpression other = (ArrayInitializerExpression) obj;
+        return hashCode() == other.hashCode()
+                && type.equals(other.type)
+                && Arrays.equals(elements, other.elements);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitArrayInitializer(this);
+    }
+}
@@ -0,0 +1,67 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+
+public final class ArrayLengthExpression extends Expression {
+    private final Expression array;
+
+    public ArrayLengthExpression(Expression array) {
+        this.array = array;
+    }
+
+    public Expression getArray() {
+        return array;
+    }
+
+    @Override
+    public boolean isPure() {
+        return array.isPure();
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        array.appendTo(out);
+        out.append(".length");
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return 0x414C + array.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof ArrayLengthExpression)) {
+            return false;
+        }
+        ArrayLengthExpression other = (ArrayLengthExpression) obj;
+        return hashCode() == other.hashCode() && array.equals(other.array);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitArrayLength(this);
+    }
+}
@@ -19,9 +19,8 @@
  */
 package com.github.veithen.odessa;
 
-import java.util.Objects;
+import java.io.IOException;
 
-@SuppressWarnings("EqualsHashCode")
 public final class AssignmentExpression extends Expression {
     private final LvalueExpression target;
     private final Expression expression;
@@ -31,22 +30,47 @@ public final class AssignmentExpression extends Expression {
         this.expression = expression;
     }
 
+    public LvalueExpression getTarget() {
+        return target;
+    }
+
+    public Expression getExpression() {
+        return expression;
+    }
+
     @Override
     public boolean isPure() {
         return false;
     }
 
     @Override
-    public String toString() {
-        return target + " = " + expression;
+    public void appendTo(Appendable out) throws IOException {
+        target.appendTo(out);
+        out.append(" = ");
+        expression.appendTo(out);
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return 31 * target.hashCode() + expression.hashCode();
     }
 
     @Override
     public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
         if (!(obj instanceof AssignmentExpression)) {
             return false;
         }
         AssignmentExpression other = (AssignmentExpression) obj;
-        return Objects.equals(target, other.target) && Objects.equals(expression, other.expression);
+        return hashCode() == other.hashCode()
+                && target.equals(other.target)
+                && expression.equals(other.expression);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitAssignment(this);
     }
 }
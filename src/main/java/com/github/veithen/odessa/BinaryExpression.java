@@ -19,6 +19,7 @@
  */
 package com.github.veithen.odessa;
 
+import java.io.IOException;
 
 public final class BinaryExpression extends Expression {
     private final Expression operand1;
@@ -31,13 +32,66 @@ public final class BinaryExpression extends Expression {
         this.operator = operator;
     }
 
+    public Expression getOperand1() {
+        return operand1;
+    }
+
+    public Expression getOperand2() {
+        return operand2;
+    }
+
+    public BinaryOperator getOperator() {
+        return operator;
+    }
+
     @Override
     public boolean isPure() {
         return operand1.isPure() && operand2.isPure();
     }
 
     @Override
-    public String toString() {
-        return operand1 + " " + operator.getSymbol() + " " + operand2;
+    public void appendTo(Appendable out) throws IOException {
+        appendOperandTo(out, operand1);
+        out.append(' ').append(operator.getSymbol()).append(' ');
+        appendOperandTo(out, operand2);
+    }
+
+    private void appendOperandTo(Appendable out, Expression operand) throws IOException {
+        // && has a higher precedence than ||.
+        if (operator == BinaryOperator.CONDITIONAL_AND
+                && operand instanceof BinaryExpression
+                && ((BinaryExpression) operand).operator == BinaryOperator.CONDITIONAL_OR) {
+            out.append('(');
+            operand.appendTo(out);
+            out.append(')');
+        } else {
+            operand.appendTo(out);
+        }
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return (31 * operand1.hashCode() + operand2.hashCode()) * 31
+                + operator.getSymbol().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof BinaryExpression)) {
+            return false;
+        }
+        BinaryExpression other = (BinaryExpression) obj;
+        return hashCode() == other.hashCode()
+                && operator == other.operator
+                && operand1.equals(other.operand1)
+                && operand2.equals(other.operand2);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitBinary(this);
     }
 }
@@ -19,19 +19,122 @@
  */
 package com.github.veithen.odessa;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongBinaryOperator;
+
 public final class BinaryOperator {
-    public static final BinaryOperator ADDITION = new BinaryOperator("+");
-    public static final BinaryOperator MULTIPLICATION = new BinaryOperator("*");
+    private static final Map<String, BinaryOperator> operators = new HashMap<>();
+
+    public static final BinaryOperator ADDITION =
+            new BinaryOperator("+", (a, b) -> a + b, (a, b) -> a + b, (a, b) -> a + b);
+    public static final BinaryOperator SUBTRACTION =
+            new BinaryOperator("-", (a, b) -> a - b, (a, b) -> a - b, (a, b) -> a - b);
+    public static final BinaryOperator MULTIPLICATION =
+            new BinaryOperator("*", (a, b) -> a * b, (a, b) -> a * b, (a, b) -> a * b);
+    public static final BinaryOperator DIVISION =
+            new BinaryOperator("/", (a, b) -> a / b, (a, b) -> a / b, (a, b) -> a / b);
+    public static final BinaryOperator REMAINDER =
+            new BinaryOperator("%", (a, b) -> a % b, (a, b) -> a % b, (a, b) -> a % b);
+    public static final BinaryOperator SHIFT_LEFT =
+            new BinaryOperator("<<", (a, b) -> a << b, (a, b) -> a << b, null);
+    public static final BinaryOperator SHIFT_RIGHT =
+            new BinaryOperator(">>", (a, b) -> a >> b, (a, b) -> a >> b, null);
+    public static final BinaryOperator UNSIGNED_SHIFT_RIGHT =
+            new BinaryOperator(">>>", (a, b) -> a >>> b, (a, b) -> a >>> b, null);
+    public static final BinaryOperator AND =
+            new BinaryOperator("&", (a, b) -> a & b, (a, b) -> a & b, null);
+    public static final BinaryOperator OR =
+            new BinaryOperator("|", (a, b) -> a | b, (a, b) -> a | b, null);
+    public static final BinaryOperator XOR =
+            new BinaryOperator("^", (a, b) -> a ^ b, (a, b) -> a ^ b, null);
     public static final BinaryOperator EQUALS = new BinaryOperator("==");
     public static final BinaryOperator NOT_EQUALS = new BinaryOperator("!=");
+    public static final BinaryOperator LESS_THAN = new BinaryOperator("<");
+    public static final BinaryOperator LESS_THAN_OR_EQUAL = new BinaryOperator("<=");
+    public static final BinaryOperator GREATER_THAN = new BinaryOperator(">");
+    public static final BinaryOperator GREATER_THAN_OR_EQUAL = new BinaryOperator(">=");
+    public static final BinaryOperator CONDITIONAL_AND = new BinaryOperator("&&");
+    public static final BinaryOperator CONDITIONAL_OR = new BinaryOperator("||");
+
+    static {
+        setNegation(EQUALS, NOT_EQUALS);
+        setNegation(LESS_THAN, GREATER_THAN_OR_EQUAL);
+        setNegation(GREATER_THAN, LESS_THAN_OR_EQUAL);
+    }
 
     private final String symbol;
+    private final IntBinaryOperator intFunction;
+    private final LongBinaryOperator longFunction;
+    private final DoubleBinaryOperator doubleFunction;
+    private BinaryOperator negation;
 
-    private BinaryOperator(String symbol) {
+    private BinaryOperator(
+            String symbol,
+            IntBinaryOperator intFunction,
+            LongBinaryOperator longFunction,
+            DoubleBinaryOperator doubleFunction) {
         this.symbol = symbol;
+        this.intFunction = intFunction;
+        this.longFunction = longFunction;
+        this.doubleFunction = doubleFunction;
+        operators.put(symbol, this);
+    }
+
+    private BinaryOperator(String symbol) {
+        this(symbol, null, null, null);
+    }
+
+    private static void setNegation(BinaryOperator operator1, BinaryOperator operator2) {
+        operator1.negation = operator2;
+        operator2.negation = operator1;
+    }
+
+    public static BinaryOperator forSymbol(String symbol) {
+        BinaryOperator operator = operators.get(symbol);
+        if (operator == null) {
+            throw new IllegalArgumentException("Unknown operator " + symbol);
+        }
+        return operator;
     }
 
     public String getSymbol() {
         return symbol;
     }
+
+    /**
+     * Returns the operator that yields the logical negation of this operator, or {@code null} if
+     * this is not a comparison operator.
+     */
+    public BinaryOperator getNegation() {
+        return negation;
+    }
+
+    /**
+     * Returns the semantics of the operator for {@code int} operands, or {@code null} if this is a
+     * comparison operator.
+     */
+    IntBinaryOperator getIntFunction() {
+        return intFunction;
+    }
+
+    /**
+     * Returns the semantics of the operator for {@code long} operands. For shifts, the second
+     * operand is the (widened) {@code int} shift distance.
+     */
+    LongBinaryOperator getLongFunction() {
+        return longFunction;
+    }
+
+    /**
+     * Returns the semantics of the operator for {@code double} operands, or {@code null} if the
+     * operator doesn't apply to floating point values. The result is also correct for {@code float}
+     * operands once narrowed, because {@code double} has enough precision to round the exact result
+     * of these operations correctly.
+     */
+    DoubleBinaryOperator getDoubleFunction() {
+        return doubleFunction;
+    }
 }
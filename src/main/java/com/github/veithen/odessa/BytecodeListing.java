@@ -0,0 +1,209 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Records a textual listing of the bytecode of a method. This is used as fallback output for
+ * methods that can't be decompiled.
+ */
+final class BytecodeListing extends MethodVisitor {
+    private static final String[] OPCODE_NAMES =
+            ("NOP ACONST_NULL ICONST_M1 ICONST_0 ICONST_1 ICONST_2 ICONST_3 ICONST_4 ICONST_5"
+                 + " LCONST_0 LCONST_1 FCONST_0 FCONST_1 FCONST_2 DCONST_0 DCONST_1 BIPUSH SIPUSH"
+                 + " LDC LDC_W LDC2_W ILOAD LLOAD FLOAD DLOAD ALOAD ILOAD_0 ILOAD_1 ILOAD_2 ILOAD_3"
+                 + " LLOAD_0 LLOAD_1 LLOAD_2 LLOAD_3 FLOAD_0 FLOAD_1 FLOAD_2 FLOAD_3 DLOAD_0"
+                 + " DLOAD_1 DLOAD_2 DLOAD_3 ALOAD_0 ALOAD_1 ALOAD_2 ALOAD_3 IALOAD LALOAD FALOAD"
+                 + " DALOAD AALOAD BALOAD CALOAD SALOAD ISTORE LSTORE FSTORE DSTORE ASTORE ISTORE_0"
+                 + " ISTORE_1 ISTORE_2 ISTORE_3 LSTORE_0 LSTORE_1 LSTORE_2 LSTORE_3 FSTORE_0"
+                 + " FSTORE_1 FSTORE_2 FSTORE_3 DSTORE_0 DSTORE_1 DSTORE_2 DSTORE_3 ASTORE_0"
+                 + " ASTORE_1 ASTORE_2 ASTORE_3 IASTORE LASTORE FASTORE DASTORE AASTORE BASTORE"
+                 + " CASTORE SASTORE POP POP2 DUP DUP_X1 DUP_X2 DUP2 DUP2_X1 DUP2_X2 SWAP IADD LADD"
+                 + " FADD DADD ISUB LSUB FSUB DSUB IMUL LMUL FMUL DMUL IDIV LDIV FDIV DDIV IREM"
+                 + " LREM FREM DREM INEG LNEG FNEG DNEG ISHL LSHL ISHR LSHR IUSHR LUSHR IAND LAND"
+                 + " IOR LOR IXOR LXOR IINC I2L I2F I2D L2I L2F L2D F2I F2L F2D D2I D2L D2F I2B I2C"
+                 + " I2S LCMP FCMPL FCMPG DCMPL DCMPG IFEQ IFNE IFLT IFGE IFGT IFLE IF_ICMPEQ"
+                 + " IF_ICMPNE IF_ICMPLT IF_ICMPGE IF_ICMPGT IF_ICMPLE IF_ACMPEQ IF_ACMPNE GOTO JSR"
+                 + " RET TABLESWITCH LOOKUPSWITCH IRETURN LRETURN FRETURN DRETURN ARETURN RETURN"
+                 + " GETSTATIC PUTSTATIC GETFIELD PUTFIELD INVOKEVIRTUAL INVOKESPECIAL INVOKESTATIC"
+                 + " INVOKEINTERFACE INVOKEDYNAMIC NEW NEWARRAY ANEWARRAY ARRAYLENGTH ATHROW"
+                 + " CHECKCAST INSTANCEOF MONITORENTER MONITOREXIT WIDE MULTIANEWARRAY IFNULL"
+                 + " IFNONNULL GOTO_W JSR_W")
+                    .split(" ");
+
+    private final List<Instruction> instructions = new ArrayList<>();
+    private final IdentityHashMap<Label, String> labelNames = new IdentityHashMap<>();
+
+    BytecodeListing() {
+        super(Opcodes.ASM9);
+    }
+
+    List<Instruction> getInstructions() {
+        return instructions;
+    }
+
+    private String getLabelName(Label label) {
+        String name = labelNames.get(label);
+        if (name == null) {
+            name = "L" + labelNames.size();
+            labelNames.put(label, name);
+        }
+        return name;
+    }
+
+    private void add(int opcode, String operands) {
+        instructions.add(
+                new BytecodeInstruction(
+                        operands == null
+                                ? OPCODE_NAMES[opcode]
+                                : OPCODE_NAMES[opcode] + " " + operands));
+    }
+
+    @Override
+    public void visitInsn(int opcode) {
+        add(opcode, null);
+    }
+
+    @Override
+    public void visitIntInsn(int opcode, int operand) {
+        add(opcode, Integer.toString(operand));
+    }
+
+    @Override
+    public void visitVarInsn(int opcode, int varIndex) {
+        add(opcode, Integer.toString(varIndex));
+    }
+
+    @Override
+    public void visitTypeInsn(int opcode, String type) {
+        add(opcode, type);
+    }
+
+    @Override
+    public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+        add(opcode, owner + "." + name + " : " + descriptor);
+    }
+
+    @Override
+    public void visitMethodInsn(
+            int opcode, String owner, String name, String descriptor, boolean isInterface) {
+        add(opcode, owner + "." + name + descriptor);
+    }
+
+    @Override
+    public void visitInvokeDynamicInsn(
+            String name,
+            String descriptor,
+            Handle bootstrapMethodHandle,
+            Object... bootstrapMethodArguments) {
+        add(Opcodes.INVOKEDYNAMIC, name + descriptor);
+    }
+
+    @Override
+    public void visitJumpInsn(int opcode, Label label) {
+        add(opcode, getLabelName(label));
+    }
+
+    @Override
+    public void visitLabel(Label label) {
+        instructions.add(new BytecodeInstruction(getLabelName(label) + ":"));
+    }
+
+    @Override
+    public void visitLdcInsn(Object value) {
+        add(Opcodes.LDC, value instanceof String ? quote((String) value) : value.toString());
+    }
+
+    /** Quotes a string constant so that it fits on a single line. */
+    private static String quote(String value) {
+        StringBuilder buffer = new StringBuilder(value.length() + 2);
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                buffer.append('\\').append(c);
+            } else if (c == '\n') {
+                buffer.append("\\n");
+            } else if (c == '\r') {
+                buffer.append("\\r");
+            } else if (c < ' ') {
+                // Not a Unicode escape: these are processed inside comments as well.
+                buffer.append(String.format("\\%03o", (int) c));
+            } else {
+                buffer.append(c);
+            }
+        }
+        return buffer.append('"').toString();
+    }
+
+    @Override
+    public void visitIincInsn(int varIndex, int increment) {
+        add(Opcodes.IINC, varIndex + " " + increment);
+    }
+
+    @Override
+    public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+        StringBuilder operands = new StringBuilder();
+        for (int i = 0; i < labels.length; i++) {
+            operands.append(min + i).append(": ").append(getLabelName(labels[i])).append(", ");
+        }
+        add(
+                Opcodes.TABLESWITCH,
+                operands.append("default: ").append(getLabelName(dflt)).toString());
+    }
+
+    @Override
+    public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+        StringBuilder operands = new StringBuilder();
+        for (int i = 0; i < labels.length; i++) {
+            operands.append(keys[i]).append(": ").append(getLabelName(labels[i])).append(", ");
+        }
+        add(
+                Opcodes.LOOKUPSWITCH,
+                operands.append("default: ").append(getLabelName(dflt)).toString());
+    }
+
+    @Override
+    public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+        add(Opcodes.MULTIANEWARRAY, descriptor + " " + numDimensions);
+    }
+
+    @Override
+    public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+        instructions.add(
+                new BytecodeInstruction(
+                        "TRYCATCHBLOCK "
+                                + getLabelName(start)
+                                + " "
+                                + getLabelName(end)
+                                + " "
+                                + getLabelName(handler)
+                                + " "
+                                + (type == null ? "*" : type)));
+    }
+}
@@ -0,0 +1,78 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+
+import org.objectweb.asm.Type;
+
+/** Primitive conversion or reference cast. */
+public final class CastExpression extends Expression {
+    private final Type type;
+    private final Expression expression;
+
+    public CastExpression(Type type, Expression expression) {
+        this.type = type;
+        this.expression = expression;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Expression getExpression() {
+        return expression;
+    }
+
+    @Override
+    public boolean isPure() {
+        return expression.isPure();
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        out.append('(').append(type.getClassName()).append(") ");
+        expression.appendTo(out);
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return 31 * type.hashCode() + expression.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof CastExpression)) {
+            return false;
+        }
+        CastExpression other = (CastExpression) obj;
+        return hashCode() == other.hashCode()
+                && type.equals(other.type)
+                && expression.equals(other.expression);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitCast(this);
+    }
+}
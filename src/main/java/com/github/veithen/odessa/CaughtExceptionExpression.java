@@ -0,0 +1,76 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/** The exception caught by an exception handler, i.e. the value on the stack on entry. */
+public final class CaughtExceptionExpression extends Expression {
+    private final String type;
+
+    /**
+     * Constructor.
+     *
+     * @param type the internal name of the exception type, or {@code null} for handlers that catch
+     *     any exception (i.e. {@code finally} blocks)
+     */
+    public CaughtExceptionExpression(String type) {
+        this.type = SymbolTable.canonicalize(type);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public boolean isPure() {
+        return true;
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        out.append("caught(");
+        if (type == null) {
+            out.append("any");
+        } else {
+            appendClassName(out, type);
+        }
+        out.append(')');
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return 0x4345 + Objects.hashCode(type);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof CaughtExceptionExpression)) {
+            return false;
+        }
+        return Objects.equals(type, ((CaughtExceptionExpression) obj).type);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitCaughtException(this);
+    }
+}
@@ -0,0 +1,68 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import org.objectweb.asm.ClassReader;
+
+/** Reads structural information directly from the class file, without visiting it. */
+final class ClassFiles {
+    private ClassFiles() {}
+
+    private static int skipMembers(ClassReader reader, int offset) {
+        int count = reader.readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < count; i++) {
+            offset = skipAttributes(reader, offset + 6);
+        }
+        return offset;
+    }
+
+    private static int skipAttributes(ClassReader reader, int offset) {
+        int count = reader.readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < count; i++) {
+            offset += 6 + reader.readInt(offset + 2);
+        }
+        return offset;
+    }
+
+    /** Returns the offset of the {@code methods_count} item. */
+    private static int getMethodsOffset(ClassReader reader) {
+        int offset = reader.header + 6;
+        offset += 2 + 2 * reader.readUnsignedShort(offset);
+        return skipMembers(reader, offset);
+    }
+
+    static int getMethodCount(ClassReader reader) {
+        return reader.readUnsignedShort(getMethodsOffset(reader));
+    }
+
+    /** Returns the offsets of the {@code method_info} structures, in declaration order. */
+    static int[] getMethodOffsets(ClassReader reader) {
+        int offset = getMethodsOffset(reader);
+        int[] offsets = new int[reader.readUnsignedShort(offset)];
+        offset += 2;
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = offset;
+            offset = skipAttributes(reader, offset + 6);
+        }
+        return offsets;
+    }
+}
@@ -19,18 +19,175 @@
  */
 package com.github.veithen.odessa;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
 final class ClassVisitorImpl extends ClassVisitor {
+    private final int firstMethod;
+    private final int lastMethod;
+    private final MethodVisitorImpl methodVisitor;
+    private final RecoveringMethodVisitor recoveringVisitor;
+    private final PassManager passManager;
+    private final DecompilationFilter filter;
+    private final BitSet referencingMethods;
+    private final List<DecompiledMethod> methods = new ArrayList<>();
+    /** The indexes (in the class file) of the methods that couldn't be decompiled. */
+    private final List<Integer> failedMethodIndexes = new ArrayList<>();
+    /** The positions in {@link #methods} of the methods that couldn't be decompiled. */
+    private final List<Integer> failedMethodPositions = new ArrayList<>();
+
+    private int methodIndex;
+    private int access;
+    private String name;
+    private String descriptor;
+
     ClassVisitorImpl() {
+        this(
+                new MethodVisitorImpl(),
+                0,
+                Integer.MAX_VALUE,
+                FailureMode.THROW,
+                PassManager.createDefault(),
+                DecompilationFilter.ALL,
+                null);
+    }
+
+    /**
+     * Creates a visitor that only decompiles the methods with an index (in the order in which they
+     * appear in the class file) in the range {@code [firstMethod, lastMethod)} and that are
+     * accepted by the filter.
+     *
+     * @param referencingMethods the indexes of the methods that reference the symbols specified by
+     *     the filter, or {@code null} if the filter doesn't restrict symbols
+     */
+    ClassVisitorImpl(
+            MethodVisitorImpl methodVisitor,
+            int firstMethod,
+            int lastMethod,
+            FailureMode failureMode,
+            PassManager passManager,
+            DecompilationFilter filter,
+            BitSet referencingMethods) {
         super(Opcodes.ASM9);
+        this.methodVisitor = methodVisitor;
+        methodVisitor.setResultConsumer(this::addMethod);
+        recoveringVisitor =
+                failureMode == FailureMode.FALLBACK
+                        ? new RecoveringMethodVisitor(methodVisitor, this::addFailedMethod)
+                        : null;
+        this.firstMethod = firstMethod;
+        this.lastMethod = lastMethod;
+        this.passManager = passManager;
+        this.filter = filter;
+        this.referencingMethods = referencingMethods;
     }
 
     @Override
     public MethodVisitor visitMethod(
             int access, String name, String descriptor, String signature, String[] exceptions) {
-        return new MethodVisitorImpl();
+        int index = methodIndex++;
+        if (index < firstMethod
+                || index >= lastMethod
+                || !filter.matchesMethod(name, descriptor)
+                || (referencingMethods != null && !referencingMethods.get(index))) {
+            return null;
+        }
+        this.access = access;
+        this.name = name;
+        this.descriptor = descriptor;
+        methodVisitor.reset();
+        if (recoveringVisitor == null) {
+            return methodVisitor;
+        }
+        recoveringVisitor.reset();
+        return recoveringVisitor;
+    }
+
+    private void addMethod(MethodVisitorImpl visitor) {
+        List<Instruction> instructions = visitor.getInstructions();
+        passManager.run(instructions);
+        methods.add(
+                new DecompiledMethod(
+                        access,
+                        name,
+                        descriptor,
+                        instructions,
+                        visitor.getFrames(),
+                        visitor.getLabelPositions(),
+                        visitor.getTryCatchBlocks(),
+                        null));
+    }
+
+    private void addFailedMethod(DecompilationException ex) {
+        failedMethodIndexes.add(methodIndex - 1);
+        failedMethodPositions.add(methods.size());
+        // Placeholder; the instructions are added by addFallbacks.
+        methods.add(
+                new DecompiledMethod(
+                        access,
+                        name,
+                        descriptor,
+                        Collections.emptyList(),
+                        Collections.emptyList(),
+                        Collections.emptyMap(),
+                        ex.getMessage()));
+    }
+
+    int getFailedMethodCount() {
+        return failedMethodIndexes.size();
+    }
+
+    /**
+     * Replaces the instructions of the methods that couldn't be decompiled by a listing of their
+     * bytecode. This requires a second pass over the class, but only the failed methods are read.
+     */
+    void addFallbacks(ClassReader reader) {
+        if (failedMethodIndexes.isEmpty()) {
+            return;
+        }
+        reader.accept(
+                new ClassVisitor(Opcodes.ASM9) {
+                    private int index;
+                    private int failure;
+
+                    @Override
+                    public MethodVisitor visitMethod(
+                            int access,
+                            String name,
+                            String descriptor,
+                            String signature,
+                            String[] exceptions) {
+                        if (failure == failedMethodIndexes.size()
+                                || index++ != failedMethodIndexes.get(failure)) {
+                            return null;
+                        }
+                        int position = failedMethodPositions.get(failure++);
+                        DecompiledMethod method = methods.get(position);
+                        BytecodeListing listing = new BytecodeListing();
+                        methods.set(
+                                position,
+                                new DecompiledMethod(
+                                        access,
+                                        name,
+                                        descriptor,
+                                        listing.getInstructions(),
+                                        Collections.emptyList(),
+                                        Collections.emptyMap(),
+                                        method.getFailure()));
+                        return listing;
+                    }
+                },
+                ClassReader.SKIP_FRAMES);
+    }
+
+    List<DecompiledMethod> getMethods() {
+        return methods;
     }
 }
@@ -0,0 +1,101 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+
+/**
+ * Three-way comparison of two long, float or double values ({@code LCMP}, {@code FCMPL} etc.). A
+ * long comparison is normally folded into a relational operator by the conditional jump that uses
+ * it. This is not done for floating point comparisons because their result for NaN operands depends
+ * on the instruction and generally doesn't match any of the relational operators.
+ */
+public final class CompareExpression extends Expression {
+    private final Expression operand1;
+    private final Expression operand2;
+    private final int nanResult;
+
+    /**
+     * Constructor.
+     *
+     * @param nanResult the result if one of the operands is NaN: 1 for {@code FCMPG} and {@code
+     *     DCMPG}, -1 for {@code FCMPL} and {@code DCMPL}, 0 for {@code LCMP}
+     */
+    public CompareExpression(Expression operand1, Expression operand2, int nanResult) {
+        this.operand1 = operand1;
+        this.operand2 = operand2;
+        this.nanResult = nanResult;
+    }
+
+    public Expression getOperand1() {
+        return operand1;
+    }
+
+    public Expression getOperand2() {
+        return operand2;
+    }
+
+    /**
+     * Returns the result if one of the operands is NaN, or 0 if this is a comparison of long
+     * values.
+     */
+    public int getNanResult() {
+        return nanResult;
+    }
+
+    @Override
+    public boolean isPure() {
+        return operand1.isPure() && operand2.isPure();
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        out.append(nanResult > 0 ? "cmpg(" : nanResult < 0 ? "cmpl(" : "cmp(");
+        operand1.appendTo(out);
+        out.append(", ");
+        operand2.appendTo(out);
+        out.append(')');
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return (31 * operand1.hashCode() + operand2.hashCode()) * 31 + nanResult;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof CompareExpression)) {
+            return false;
+        }
+        CompareExpression other = (CompareExpression) obj;
+        return hashCode() == other.hashCode()
+                && nanResult == other.nanResult
+                && operand1.equals(other.operand1)
+                && operand2.equals(other.operand2);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitCompare(this);
+    }
+}
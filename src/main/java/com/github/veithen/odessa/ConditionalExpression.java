@@ -0,0 +1,87 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+
+/** Ternary operator. */
+public final class ConditionalExpression extends Expression {
+    private final Expression condition;
+    private final Expression expression1;
+    private final Expression expression2;
+
+    public ConditionalExpression(
+            Expression condition, Expression expression1, Expression expression2) {
+        this.condition = condition;
+        this.expression1 = expression1;
+        this.expression2 = expression2;
+    }
+
+    public Expression getCondition() {
+        return condition;
+    }
+
+    public Expression getExpression1() {
+        return expression1;
+    }
+
+    public Expression getExpression2() {
+        return expression2;
+    }
+
+    @Override
+    public boolean isPure() {
+        return condition.isPure() && expression1.isPure() && expression2.isPure();
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        condition.appendTo(out);
+        out.append(" ? ");
+        expression1.appendTo(out);
+        out.append(" : ");
+        expression2.appendTo(out);
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return (31 * condition.hashCode() + expression1.hashCode()) * 31 + expression2.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof ConditionalExpression)) {
+            return false;
+        }
+        ConditionalExpression other = (ConditionalExpression) obj;
+        return hashCode() == other.hashCode()
+                && condition.equals(other.condition)
+                && expression1.equals(other.expression1)
+                && expression2.equals(other.expression2);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitConditional(this);
+    }
+}
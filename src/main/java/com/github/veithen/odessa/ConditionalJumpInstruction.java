@@ -19,6 +19,10 @@
  */
 package com.github.veithen.odessa;
 
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
 import org.objectweb.asm.Label;
 
 public final class ConditionalJumpInstruction extends Instruction {
@@ -29,4 +33,29 @@ public final class ConditionalJumpInstruction extends Instruction {
         this.expression = expression;
         this.label = label;
     }
+
+    public Expression getExpression() {
+        return expression;
+    }
+
+    public Label getLabel() {
+        return label;
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        appendTo(out, Collections.emptyMap());
+    }
+
+    @Override
+    public void appendTo(Appendable out, Map<Label, String> labelNames) throws IOException {
+        out.append("if (");
+        expression.appendTo(out);
+        out.append(") goto ").append(getLabelName(labelNames, label)).append(';');
+    }
+
+    @Override
+    public <R> R accept(InstructionVisitor<R> visitor) {
+        return visitor.visitConditionalJump(this);
+    }
 }
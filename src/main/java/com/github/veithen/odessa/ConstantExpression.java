@@ -19,32 +19,32 @@
  */
 package com.github.veithen.odessa;
 
-import java.util.Objects;
-
-@SuppressWarnings("EqualsHashCode")
-public final class ConstantExpression extends Expression {
-    private final Object value;
-
-    public ConstantExpression(Object value) {
-        this.value = value;
-    }
+/**
+ * Base class for constants. Numeric constants have specialized subclasses that store the value
+ * unboxed; use {@link #of(Object)} to create an instance for an arbitrary value.
+ */
+public abstract class ConstantExpression extends Expression {
+    ConstantExpression() {}
 
-    @Override
-    public boolean isPure() {
-        return true;
+    public static ConstantExpression of(Object value) {
+        if (value instanceof Integer) {
+            return IntConstantExpression.valueOf((Integer) value);
+        } else if (value instanceof Long) {
+            return new LongConstantExpression((Long) value);
+        } else if (value instanceof Float) {
+            return new FloatConstantExpression((Float) value);
+        } else if (value instanceof Double) {
+            return new DoubleConstantExpression((Double) value);
+        } else {
+            return new ReferenceConstantExpression(value);
+        }
     }
 
-    @Override
-    public String toString() {
-        return value.toString();
-    }
+    /** Returns the value, boxed if necessary. */
+    public abstract Object getValue();
 
     @Override
-    public boolean equals(Object obj) {
-        if (!(obj instanceof ConstantExpression)) {
-            return false;
-        }
-        ConstantExpression other = (ConstantExpression) obj;
-        return Objects.equals(value, other.value);
+    public final boolean isPure() {
+        return true;
     }
 }
@@ -0,0 +1,206 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+/**
+ * Folds constant subexpressions and removes arithmetic identities. The methods are {@link
+ * RewriteRule}s: they only consider the top level node and expect the operands to have been folded
+ * already. If nothing can be simplified, the original expression is returned and no allocation
+ * takes place.
+ */
+final class ConstantFolder {
+    private ConstantFolder() {}
+
+    static Expression fold(BinaryExpression expression) {
+        Expression operand1 = expression.getOperand1();
+        Expression operand2 = expression.getOperand2();
+        BinaryOperator operator = expression.getOperator();
+        if (operand1 instanceof ConstantExpression && operand2 instanceof ConstantExpression) {
+            Expression result =
+                    evaluate(
+                            (ConstantExpression) operand1, (ConstantExpression) operand2, operator);
+            if (result != null) {
+                return result;
+            }
+        }
+        if (isIdentity(operand2, operator, false)) {
+            return operand1;
+        }
+        if (isIdentity(operand1, operator, true)) {
+            return operand2;
+        }
+        if ((operator == BinaryOperator.MULTIPLICATION || operator == BinaryOperator.AND)
+                && operand1.isPure()
+                && operand2.isPure()) {
+            // x * 0 and x & 0 are 0 for integral types.
+            if (isZero(operand2)) {
+                return operand2;
+            }
+            if (isZero(operand1)) {
+                return operand1;
+            }
+        }
+        return expression;
+    }
+
+    /** Evaluates {@code LCMP}, {@code FCMPL} etc. with constant operands. */
+    static Expression fold(CompareExpression expression) {
+        Expression operand1 = expression.getOperand1();
+        Expression operand2 = expression.getOperand2();
+        int result;
+        if (operand1 instanceof LongConstantExpression
+                && operand2 instanceof LongConstantExpression) {
+            result =
+                    Long.compare(
+                            ((LongConstantExpression) operand1).getLongValue(),
+                            ((LongConstantExpression) operand2).getLongValue());
+        } else if (operand1 instanceof FloatConstantExpression
+                && operand2 instanceof FloatConstantExpression) {
+            result =
+                    compare(
+                            ((FloatConstantExpression) operand1).getFloatValue(),
+                            ((FloatConstantExpression) operand2).getFloatValue(),
+                            expression.getNanResult());
+        } else if (operand1 instanceof DoubleConstantExpression
+                && operand2 instanceof DoubleConstantExpression) {
+            result =
+                    compare(
+                            ((DoubleConstantExpression) operand1).getDoubleValue(),
+                            ((DoubleConstantExpression) operand2).getDoubleValue(),
+                            expression.getNanResult());
+        } else {
+            return expression;
+        }
+        return IntConstantExpression.valueOf(result);
+    }
+
+    /** Compares two values with the semantics of {@code DCMPL} and {@code DCMPG}. */
+    private static int compare(double value1, double value2, int nanResult) {
+        if (value1 > value2) {
+            return 1;
+        } else if (value1 < value2) {
+            return -1;
+        } else if (value1 == value2) {
+            return 0;
+        } else {
+            return nanResult;
+        }
+    }
+
+    private static Expression evaluate(
+            ConstantExpression operand1, ConstantExpression operand2, BinaryOperator operator) {
+        if (operand1 instanceof IntConstantExpression
+                && operand2 instanceof IntConstantExpression) {
+            int value2 = ((IntConstantExpression) operand2).getIntValue();
+            if (operator.getIntFunction() == null || (value2 == 0 && isIntegerDivision(operator))) {
+                return null;
+            }
+            return IntConstantExpression.valueOf(
+                    operator.getIntFunction()
+                            .applyAsInt(((IntConstantExpression) operand1).getIntValue(), value2));
+        }
+        if (operand1 instanceof LongConstantExpression) {
+            long value2;
+            if (operand2 instanceof LongConstantExpression) {
+                value2 = ((LongConstantExpression) operand2).getLongValue();
+            } else if (operand2 instanceof IntConstantExpression) {
+                // Shift distance.
+                value2 = ((IntConstantExpression) operand2).getIntValue();
+            } else {
+                return null;
+            }
+            if (operator.getLongFunction() == null
+                    || (value2 == 0 && isIntegerDivision(operator))) {
+                return null;
+            }
+            return new LongConstantExpression(
+                    operator.getLongFunction()
+                            .applyAsLong(
+                                    ((LongConstantExpression) operand1).getLongValue(), value2));
+        }
+        if (operator.getDoubleFunction() == null) {
+            return null;
+        }
+        if (operand1 instanceof FloatConstantExpression
+                && operand2 instanceof FloatConstantExpression) {
+            return new FloatConstantExpression(
+                    (float)
+                            operator.getDoubleFunction()
+                                    .applyAsDouble(
+                                            ((FloatConstantExpression) operand1).getFloatValue(),
+                                            ((FloatConstantExpression) operand2).getFloatValue()));
+        }
+        if (operand1 instanceof DoubleConstantExpression
+                && operand2 instanceof DoubleConstantExpression) {
+            return new DoubleConstantExpression(
+                    operator.getDoubleFunction()
+                            .applyAsDouble(
+                                    ((DoubleConstantExpression) operand1).getDoubleValue(),
+                                    ((DoubleConstantExpression) operand2).getDoubleValue()));
+        }
+        return null;
+    }
+
+    private static boolean isIntegerDivision(BinaryOperator operator) {
+        return operator == BinaryOperator.DIVISION || operator == BinaryOperator.REMAINDER;
+    }
+
+    /**
+     * Determines if the given operand leaves the other operand unchanged. Only integral constants
+     * are considered because of the special cases of floating point arithmetic (e.g. {@code -0.0 +
+     * 0.0}).
+     *
+     * @param left {@code true} if the constant is the left operand
+     */
+    private static boolean isIdentity(Expression operand, BinaryOperator operator, boolean left) {
+        if (operator == BinaryOperator.ADDITION
+                || operator == BinaryOperator.OR
+                || operator == BinaryOperator.XOR) {
+            return isZero(operand);
+        } else if (operator == BinaryOperator.MULTIPLICATION) {
+            return isOne(operand);
+        } else if (left) {
+            return false;
+        } else if (operator == BinaryOperator.SUBTRACTION
+                || operator == BinaryOperator.SHIFT_LEFT
+                || operator == BinaryOperator.SHIFT_RIGHT
+                || operator == BinaryOperator.UNSIGNED_SHIFT_RIGHT) {
+            return isZero(operand);
+        } else if (operator == BinaryOperator.DIVISION) {
+            return isOne(operand);
+        } else {
+            return false;
+        }
+    }
+
+    private static boolean isZero(Expression expression) {
+        return (expression instanceof IntConstantExpression
+                        && ((IntConstantExpression) expression).getIntValue() == 0)
+                || (expression instanceof LongConstantExpression
+                        && ((LongConstantExpression) expression).getLongValue() == 0);
+    }
+
+    private static boolean isOne(Expression expression) {
+        return (expression instanceof IntConstantExpression
+                        && ((IntConstantExpression) expression).getIntValue() == 1)
+                || (expression instanceof LongConstantExpression
+                        && ((LongConstantExpression) expression).getLongValue() == 1);
+    }
+}
@@ -0,0 +1,709 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.objectweb.asm.Label;
+
+/**
+ * Control flow graph of a decompiled method. Basic blocks are numbered densely in the order of the
+ * instructions and edges are stored in compressed (offset/target) int arrays, so that no search is
+ * needed to resolve jump targets or to traverse the graph.
+ *
+ * <p>Every block covered by an exception handler has an edge to the handler. Since a block is
+ * either entirely inside or entirely outside of the range of a handler, the edge stands for all the
+ * instructions of the block that may throw.
+ *
+ * <p>In addition to the graph itself, this class computes dominators and post-dominators (using the
+ * algorithm of Cooper, Harvey and Kennedy over the reverse postorder) and the natural loops. The
+ * immediate post-dominator of a block ending with a conditional jump is the point where the two
+ * branches of an {@code if}/{@code else} merge.
+ *
+ * <p>Finally, {@code if}/{@code else} statements and loops are recovered from the layout of the
+ * blocks in a single pass (see {@link ControlStructure}). Conditional expressions are not part of
+ * the graph; they are recovered by {@link MethodVisitorImpl} already.
+ */
+public final class ControlFlowGraph {
+    private final int blockCount;
+    private final int[] blockStarts;
+    private final int[] blockIndexes;
+    private final int[] successorOffsets;
+    private final int[] successors;
+    private final int[] predecessorOffsets;
+    private final int[] predecessors;
+    private final int[] order;
+    private final int[] orderIndexes;
+    private final int[] immediateDominators;
+    private final int[] immediatePostDominators;
+    private final boolean[] loopHeaders;
+    private final int[] innermostLoopHeaders;
+    private final ControlStructure[] loops;
+    private final int[] loopLatches;
+    private final ControlStructure[] branches;
+    private final int[] elseBlocks;
+    private final int[] mergeBlocks;
+    private final boolean[] structuralJumps;
+
+    public ControlFlowGraph(DecompiledMethod method) {
+        this(method.getInstructions(), method.getLabelPositions(), method.getTryCatchBlocks());
+    }
+
+    public ControlFlowGraph(List<Instruction> instructions, Map<Label, Integer> labelPositions) {
+        this(instructions, labelPositions, Collections.emptyList());
+    }
+
+    /**
+     * Builds the control flow graph.
+     *
+     * @param instructions the instructions of the method
+     * @param labelPositions the positions of the targets of the jump instructions
+     * @param tryCatchBlocks the exception handlers
+     */
+    public ControlFlowGraph(
+            List<Instruction> instructions,
+            Map<Label, Integer> labelPositions,
+            List<TryCatchBlock> tryCatchBlocks) {
+        int instructionCount = instructions.size();
+        int[] targetOffsets = new int[instructionCount + 1];
+        int targetCount = 0;
+        for (int i = 0; i < instructionCount; i++) {
+            targetCount += getJumpTargetCount(instructions.get(i));
+        }
+        int[] targets = new int[targetCount];
+        boolean[] leaders = new boolean[instructionCount + 1];
+        leaders[0] = true;
+        targetCount = 0;
+        for (int i = 0; i < instructionCount; i++) {
+            Instruction instruction = instructions.get(i);
+            targetOffsets[i] = targetCount;
+            int count = getJumpTargetCount(instruction);
+            for (int j = 0; j < count; j++) {
+                Label label = getJumpTarget(instruction, j);
+                Integer position = labelPositions.get(label);
+                if (position == null) {
+                    throw new IllegalArgumentException("Unknown jump target " + label);
+                }
+                targets[targetCount++] = position;
+                leaders[position] = true;
+            }
+            if (count > 0 || !canFallThrough(instruction)) {
+                if (i + 1 < instructionCount) {
+                    leaders[i + 1] = true;
+                }
+            }
+        }
+        targetOffsets[instructionCount] = targetCount;
+        for (TryCatchBlock tryCatchBlock : tryCatchBlocks) {
+            leaders[tryCatchBlock.getStart()] = true;
+            if (tryCatchBlock.getEnd() < instructionCount) {
+                leaders[tryCatchBlock.getEnd()] = true;
+            }
+            leaders[tryCatchBlock.getHandler()] = true;
+        }
+
+        // A block at the end of the instruction list only exists if it is a jump target.
+        int count = 0;
+        for (boolean leader : leaders) {
+            if (leader) {
+                count++;
+            }
+        }
+        blockCount = count;
+        blockStarts = new int[blockCount + 1];
+        blockIndexes = new int[instructionCount + 1];
+        int block = -1;
+        for (int i = 0; i <= instructionCount; i++) {
+            if (leaders[i]) {
+                blockStarts[++block] = i;
+            }
+            blockIndexes[i] = block;
+        }
+        blockStarts[blockCount] = instructionCount;
+
+        int handlerEdgeCount = 0;
+        for (int b = 0; b < blockCount; b++) {
+            for (TryCatchBlock tryCatchBlock : tryCatchBlocks) {
+                if (covers(tryCatchBlock, b)) {
+                    handlerEdgeCount++;
+                }
+            }
+        }
+
+        successorOffsets = new int[blockCount + 1];
+        int[] edges = new int[blockCount + targetCount + handlerEdgeCount];
+        int edgeCount = 0;
+        for (int b = 0; b < blockCount; b++) {
+            successorOffsets[b] = edgeCount;
+            int end = getBlockEnd(b);
+            if (end == getBlockStart(b)) {
+                continue;
+            }
+            Instruction last = instructions.get(end - 1);
+            if (canFallThrough(last) && b + 1 < blockCount) {
+                edges[edgeCount++] = b + 1;
+            }
+            for (int i = targetOffsets[end - 1]; i < targetOffsets[end]; i++) {
+                int target = blockIndexes[targets[i]];
+                if (!contains(edges, successorOffsets[b], edgeCount, target)) {
+                    edges[edgeCount++] = target;
+                }
+            }
+            for (TryCatchBlock tryCatchBlock : tryCatchBlocks) {
+                int target = blockIndexes[tryCatchBlock.getHandler()];
+                if (covers(tryCatchBlock, b)
+                        && !contains(edges, successorOffsets[b], edgeCount, target)) {
+                    edges[edgeCount++] = target;
+                }
+            }
+        }
+        successorOffsets[blockCount] = edgeCount;
+        successors = Arrays.copyOf(edges, edgeCount);
+
+        predecessorOffsets = new int[blockCount + 1];
+        predecessors = new int[edgeCount];
+        invert(blockCount, successorOffsets, successors, predecessorOffsets, predecessors);
+
+        order = new int[blockCount];
+        orderIndexes = new int[blockCount];
+        int reachable =
+                computeReversePostorder(
+                        blockCount, 0, successorOffsets, successors, order, orderIndexes);
+        immediateDominators =
+                computeDominators(
+                        blockCount,
+                        reachable,
+                        order,
+                        orderIndexes,
+                        predecessorOffsets,
+                        predecessors);
+
+        immediatePostDominators = computePostDominators();
+
+        loopHeaders = new boolean[blockCount];
+        innermostLoopHeaders = new int[blockCount];
+        computeLoops(reachable);
+
+        loops = new ControlStructure[blockCount];
+        loopLatches = new int[blockCount];
+        branches = new ControlStructure[blockCount];
+        elseBlocks = new int[blockCount];
+        mergeBlocks = new int[blockCount];
+        structuralJumps = new boolean[instructionCount];
+        computeStructures(instructions, targets, targetOffsets);
+    }
+
+    /** Returns the number of labels the given instruction may jump to. */
+    static int getJumpTargetCount(Instruction instruction) {
+        if (instruction instanceof GotoInstruction
+                || instruction instanceof ConditionalJumpInstruction) {
+            return 1;
+        } else if (instruction instanceof SwitchInstruction) {
+            return ((SwitchInstruction) instruction).getCaseCount() + 1;
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Returns a jump target of the given instruction. For switches, the default label comes after
+     * the case labels.
+     */
+    static Label getJumpTarget(Instruction instruction, int index) {
+        if (instruction instanceof GotoInstruction) {
+            return ((GotoInstruction) instruction).getLabel();
+        } else if (instruction instanceof ConditionalJumpInstruction) {
+            return ((ConditionalJumpInstruction) instruction).getLabel();
+        } else {
+            SwitchInstruction switchInstruction = (SwitchInstruction) instruction;
+            return index == switchInstruction.getCaseCount()
+                    ? switchInstruction.getDefaultLabel()
+                    : switchInstruction.getLabel(index);
+        }
+    }
+
+    /** Determines if execution may continue with the next instruction. */
+    static boolean canFallThrough(Instruction instruction) {
+        return !(instruction instanceof GotoInstruction
+                || instruction instanceof SwitchInstruction
+                || instruction instanceof ReturnInstruction
+                || instruction instanceof ThrowInstruction);
+    }
+
+    private boolean covers(TryCatchBlock tryCatchBlock, int block) {
+        int start = getBlockStart(block);
+        return start < getBlockEnd(block)
+                && start >= tryCatchBlock.getStart()
+                && start < tryCatchBlock.getEnd();
+    }
+
+    private static boolean contains(int[] array, int from, int to, int value) {
+        for (int i = from; i < to; i++) {
+            if (array[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Builds the reverse edges of a graph given in compressed form. */
+    private static void invert(
+            int nodeCount,
+            int[] offsets,
+            int[] targets,
+            int[] reverseOffsets,
+            int[] reverseTargets) {
+        for (int target : targets) {
+            reverseOffsets[target + 1]++;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            reverseOffsets[i + 1] += reverseOffsets[i];
+        }
+        int[] next = Arrays.copyOf(reverseOffsets, nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                reverseTargets[next[targets[i]]++] = node;
+            }
+        }
+    }
+
+    /**
+     * Computes the reverse postorder of the nodes reachable from the given entry node.
+     *
+     * @param order receives the reachable nodes in reverse postorder
+     * @param orderIndexes receives the index of each node in {@code order}, or -1 for unreachable
+     *     nodes
+     * @return the number of reachable nodes
+     */
+    private static int computeReversePostorder(
+            int nodeCount,
+            int entry,
+            int[] offsets,
+            int[] targets,
+            int[] order,
+            int[] orderIndexes) {
+        Arrays.fill(orderIndexes, -1);
+        boolean[] visited = new boolean[nodeCount];
+        int[] stack = new int[nodeCount];
+        int[] cursors = new int[nodeCount];
+        int[] postorder = new int[nodeCount];
+        int postorderCount = 0;
+        int depth = 0;
+        stack[depth++] = entry;
+        visited[entry] = true;
+        cursors[entry] = offsets[entry];
+        while (depth > 0) {
+            int node = stack[depth - 1];
+            if (cursors[node] < offsets[node + 1]) {
+                int target = targets[cursors[node]++];
+                if (!visited[target]) {
+                    visited[target] = true;
+                    cursors[target] = offsets[target];
+                    stack[depth++] = target;
+                }
+            } else {
+                postorder[postorderCount++] = node;
+                depth--;
+            }
+        }
+        for (int i = 0; i < postorderCount; i++) {
+            int node = postorder[postorderCount - 1 - i];
+            order[i] = node;
+            orderIndexes[node] = i;
+        }
+        return postorderCount;
+    }
+
+    /**
+     * Computes immediate dominators using the iterative algorithm of Cooper, Harvey and Kennedy.
+     * The entry node is {@code order[0]}; its immediate dominator, as well as that of unreachable
+     * nodes, is -1.
+     */
+    private static int[] computeDominators(
+            int nodeCount,
+            int reachable,
+            int[] order,
+            int[] orderIndexes,
+            int[] predecessorOffsets,
+            int[] predecessors) {
+        int[] idoms = new int[nodeCount];
+        Arrays.fill(idoms, -1);
+        if (reachable == 0) {
+            return idoms;
+        }
+        int entry = order[0];
+        idoms[entry] = entry;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 1; i < reachable; i++) {
+                int node = order[i];
+                int newIdom = -1;
+                for (int j = predecessorOffsets[node]; j < predecessorOffsets[node + 1]; j++) {
+                    int predecessor = predecessors[j];
+                    if (idoms[predecessor] == -1) {
+                        continue;
+                    }
+                    if (newIdom == -1) {
+                        newIdom = predecessor;
+                    } else {
+                        int finger1 = predecessor;
+                        int finger2 = newIdom;
+                        while (finger1 != finger2) {
+                            while (orderIndexes[finger1] > orderIndexes[finger2]) {
+                                finger1 = idoms[finger1];
+                            }
+                            while (orderIndexes[finger2] > orderIndexes[finger1]) {
+                                finger2 = idoms[finger2];
+                            }
+                        }
+                        newIdom = finger1;
+                    }
+                }
+                if (idoms[node] != newIdom) {
+                    idoms[node] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+        idoms[entry] = -1;
+        return idoms;
+    }
+
+    /**
+     * Computes immediate post-dominators on the reverse graph, with a virtual exit node that is the
+     * successor of all blocks without successors.
+     */
+    private int[] computePostDominators() {
+        int exit = blockCount;
+        int nodeCount = blockCount + 1;
+        // Successors in the reverse graph are the predecessors in the original graph.
+        int[] offsets = new int[nodeCount + 1];
+        int exitCount = 0;
+        for (int b = 0; b < blockCount; b++) {
+            if (getSuccessorCount(b) == 0) {
+                exitCount++;
+            }
+        }
+        int[] targets = new int[predecessors.length + exitCount];
+        int edgeCount = 0;
+        for (int b = 0; b < blockCount; b++) {
+            offsets[b] = edgeCount;
+            for (int i = predecessorOffsets[b]; i < predecessorOffsets[b + 1]; i++) {
+                targets[edgeCount++] = predecessors[i];
+            }
+        }
+        offsets[exit] = edgeCount;
+        for (int b = 0; b < blockCount; b++) {
+            if (getSuccessorCount(b) == 0) {
+                targets[edgeCount++] = b;
+            }
+        }
+        offsets[nodeCount] = edgeCount;
+        int[] reverseOffsets = new int[nodeCount + 1];
+        int[] reverseTargets = new int[edgeCount];
+        invert(nodeCount, offsets, targets, reverseOffsets, reverseTargets);
+        int[] postOrder = new int[nodeCount];
+        int[] postOrderIndexes = new int[nodeCount];
+        int reachable =
+                computeReversePostorder(
+                        nodeCount, exit, offsets, targets, postOrder, postOrderIndexes);
+        int[] ipdoms =
+                computeDominators(
+                        nodeCount,
+                        reachable,
+                        postOrder,
+                        postOrderIndexes,
+                        reverseOffsets,
+                        reverseTargets);
+        int[] result = Arrays.copyOf(ipdoms, blockCount);
+        for (int b = 0; b < blockCount; b++) {
+            if (result[b] == exit) {
+                result[b] = -1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Identifies the natural loops. Loops are processed from the innermost to the outermost header
+     * (i.e. in decreasing reverse postorder), so that each block is assigned to its innermost loop.
+     */
+    private void computeLoops(int reachable) {
+        Arrays.fill(innermostLoopHeaders, -1);
+        int[] worklist = new int[2 * predecessors.length + 1];
+        int[] visitedBy = new int[blockCount];
+        Arrays.fill(visitedBy, -1);
+        for (int i = reachable - 1; i >= 0; i--) {
+            int header = order[i];
+            int worklistSize = 0;
+            for (int j = predecessorOffsets[header]; j < predecessorOffsets[header + 1]; j++) {
+                int latch = predecessors[j];
+                if (orderIndexes[latch] != -1 && dominates(header, latch)) {
+                    loopHeaders[header] = true;
+                    worklist[worklistSize++] = latch;
+                }
+            }
+            if (!loopHeaders[header]) {
+                continue;
+            }
+            if (innermostLoopHeaders[header] == -1) {
+                innermostLoopHeaders[header] = header;
+            }
+            visitedBy[header] = header;
+            while (worklistSize > 0) {
+                int block = worklist[--worklistSize];
+                if (visitedBy[block] == header) {
+                    continue;
+                }
+                visitedBy[block] = header;
+                if (innermostLoopHeaders[block] == -1) {
+                    innermostLoopHeaders[block] = header;
+                }
+                for (int j = predecessorOffsets[block]; j < predecessorOffsets[block + 1]; j++) {
+                    int predecessor = predecessors[j];
+                    if (visitedBy[predecessor] != header && orderIndexes[predecessor] != -1) {
+                        worklist[worklistSize++] = predecessor;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Recovers the structured statements. A structure is only accepted if it is properly nested in
+     * the enclosing ones and if falling off its end in the structured form leads to the same block
+     * as in the original code. E.g. at the end of a loop body, control goes back to the header, so
+     * a nested structure must end before the block with the back edge. The stack holds the block
+     * where each enclosing structure (or branch of an {@code if}/{@code else}) ends and the last
+     * block nested structures may end at.
+     */
+    private void computeStructures(
+            List<Instruction> instructions, int[] targets, int[] targetOffsets) {
+        int[] ends = new int[3 * blockCount];
+        int[] bounds = new int[3 * blockCount];
+        int depth = 0;
+        for (int block = 0; block < blockCount; block++) {
+            while (depth > 0 && ends[depth - 1] <= block) {
+                depth--;
+            }
+            int start = getBlockStart(block);
+            int end = getBlockEnd(block);
+            if (start == end) {
+                continue;
+            }
+            if (loopHeaders[block]) {
+                // The loop body extends to the last block that jumps back to the header.
+                int latch = -1;
+                for (int i = predecessorOffsets[block]; i < predecessorOffsets[block + 1]; i++) {
+                    int predecessor = predecessors[i];
+                    if (predecessor > latch
+                            && predecessor >= block
+                            && isJump(instructions.get(getBlockEnd(predecessor) - 1))
+                            && targets[targetOffsets[getBlockEnd(predecessor) - 1]] == start) {
+                        latch = predecessor;
+                    }
+                }
+                if (latch != -1 && latch + 1 <= (depth == 0 ? blockCount : bounds[depth - 1])) {
+                    int latchJump = getBlockEnd(latch) - 1;
+                    ControlStructure loop;
+                    if (instructions.get(latchJump) instanceof ConditionalJumpInstruction) {
+                        loop = ControlStructure.DO_WHILE;
+                    } else if (end - start == 1
+                            && instructions.get(start) instanceof ConditionalJumpInstruction
+                            && blockIndexes[targets[targetOffsets[start]]] == latch + 1) {
+                        loop = ControlStructure.WHILE;
+                        structuralJumps[start] = true;
+                    } else {
+                        loop = ControlStructure.INFINITE_LOOP;
+                    }
+                    structuralJumps[latchJump] = true;
+                    loops[block] = loop;
+                    loopLatches[block] = latch;
+                    ends[depth] = latch + 1;
+                    bounds[depth++] = latch;
+                }
+            }
+            if (!(instructions.get(end - 1) instanceof ConditionalJumpInstruction)
+                    || structuralJumps[end - 1]) {
+                continue;
+            }
+            int bound = depth == 0 ? blockCount : bounds[depth - 1];
+            int elseBlock = blockIndexes[targets[targetOffsets[end - 1]]];
+            if (elseBlock <= block + 1 || elseBlock > bound) {
+                continue;
+            }
+            structuralJumps[end - 1] = true;
+            elseBlocks[block] = elseBlock;
+            // The "then" branch ends with a jump over the "else" branch.
+            int gotoPosition = getBlockEnd(elseBlock - 1) - 1;
+            if (instructions.get(gotoPosition) instanceof GotoInstruction) {
+                int mergeBlock = blockIndexes[targets[targetOffsets[gotoPosition]]];
+                if (mergeBlock > elseBlock && mergeBlock <= bound) {
+                    structuralJumps[gotoPosition] = true;
+                    branches[block] = ControlStructure.IF_ELSE;
+                    mergeBlocks[block] = mergeBlock;
+                    ends[depth] = mergeBlock;
+                    bounds[depth++] = mergeBlock;
+                    ends[depth] = elseBlock;
+                    bounds[depth++] = elseBlock - 1;
+                    continue;
+                }
+            }
+            branches[block] = ControlStructure.IF;
+            mergeBlocks[block] = elseBlock;
+            ends[depth] = elseBlock;
+            bounds[depth++] = elseBlock;
+        }
+    }
+
+    private static boolean isJump(Instruction instruction) {
+        return instruction instanceof GotoInstruction
+                || instruction instanceof ConditionalJumpInstruction;
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /** Returns the index of the first instruction of the given block. */
+    public int getBlockStart(int block) {
+        return blockStarts[block];
+    }
+
+    /** Returns the index of the instruction following the given block. */
+    public int getBlockEnd(int block) {
+        return blockStarts[block + 1];
+    }
+
+    /** Returns the block containing the instruction at the given position. */
+    public int getBlock(int position) {
+        return blockIndexes[position];
+    }
+
+    public int getSuccessorCount(int block) {
+        return successorOffsets[block + 1] - successorOffsets[block];
+    }
+
+    public int getSuccessor(int block, int index) {
+        return successors[successorOffsets[block] + index];
+    }
+
+    public int getPredecessorCount(int block) {
+        return predecessorOffsets[block + 1] - predecessorOffsets[block];
+    }
+
+    public int getPredecessor(int block, int index) {
+        return predecessors[predecessorOffsets[block] + index];
+    }
+
+    public boolean isReachable(int block) {
+        return orderIndexes[block] != -1;
+    }
+
+    /**
+     * Returns the immediate dominator of the given block, or -1 for the entry block and unreachable
+     * blocks.
+     */
+    public int getImmediateDominator(int block) {
+        return immediateDominators[block];
+    }
+
+    public boolean dominates(int dominator, int block) {
+        if (orderIndexes[block] == -1) {
+            return false;
+        }
+        // Dominators always precede the blocks they dominate in reverse postorder.
+        while (block != -1 && orderIndexes[block] >= orderIndexes[dominator]) {
+            if (block == dominator) {
+                return true;
+            }
+            block = immediateDominators[block];
+        }
+        return false;
+    }
+
+    /**
+     * Returns the immediate post-dominator of the given block, or -1 if there is none (e.g. for
+     * blocks ending with a return or inside an infinite loop). For a block ending with a
+     * conditional jump, this is the block where the two branches merge.
+     */
+    public int getImmediatePostDominator(int block) {
+        return immediatePostDominators[block];
+    }
+
+    /** Determines if the given block is the header of a natural loop. */
+    public boolean isLoopHeader(int block) {
+        return loopHeaders[block];
+    }
+
+    /**
+     * Returns the header of the innermost loop containing the given block, or -1 if the block is
+     * not part of a loop.
+     */
+    public int getLoopHeader(int block) {
+        return innermostLoopHeaders[block];
+    }
+
+    /**
+     * Returns the loop starting at the given block, or {@code null} if the block is not the header
+     * of a loop that could be structured.
+     */
+    public ControlStructure getLoop(int block) {
+        return loops[block];
+    }
+
+    /** Returns the last block of the loop starting at the given block. */
+    public int getLoopLatch(int block) {
+        return loopLatches[block];
+    }
+
+    /**
+     * Returns the {@code if} statement formed by the conditional jump at the end of the given
+     * block, or {@code null} if there is none. The "then" branch starts with the next block.
+     */
+    public ControlStructure getBranch(int block) {
+        return branches[block];
+    }
+
+    /**
+     * Returns the first block of the "else" branch of the {@code if} statement at the end of the
+     * given block. For an {@code if} without {@code else}, this is the merge block.
+     */
+    public int getElseBlock(int block) {
+        return elseBlocks[block];
+    }
+
+    /** Returns the block following the {@code if} statement at the end of the given block. */
+    public int getMergeBlock(int block) {
+        return mergeBlocks[block];
+    }
+
+    /**
+     * Determines if the jump instruction at the given position is represented by a structured
+     * statement and no longer needs a label.
+     */
+    public boolean isStructuralJump(int position) {
+        return structuralJumps[position];
+    }
+}
@@ -0,0 +1,44 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+/**
+ * The structured statements recovered by {@link ControlFlowGraph}. The jumps represented by the
+ * statement are identified by {@link ControlFlowGraph#isStructuralJump(int)}.
+ */
+public enum ControlStructure {
+    /** {@code if (c) goto M; ...; M:}, rendered as {@code if (!c) { ... }}. */
+    IF,
+
+    /**
+     * {@code if (c) goto E; ...; goto M; E: ...; M:}, rendered as {@code if (!c) { ... } else { ...
+     * }}.
+     */
+    IF_ELSE,
+
+    /** {@code H: if (c) goto X; ...; goto H; X:}, rendered as {@code while (!c) { ... }}. */
+    WHILE,
+
+    /** {@code H: ...; if (c) goto H;}, rendered as {@code do { ... } while (c);}. */
+    DO_WHILE,
+
+    /** {@code H: ...; goto H;}, rendered as {@code while (true) { ... }}. */
+    INFINITE_LOOP;
+}
@@ -0,0 +1,302 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.objectweb.asm.Label;
+
+/**
+ * Persistent, content addressed cache of decompiled classes. Entries are keyed by a hash of the
+ * class file and the decompiler version. The total size of the cache is bounded; when the limit is
+ * exceeded, the least recently used entries are evicted. Instances are thread-safe.
+ */
+public final class DecompilationCache {
+    /**
+     * Must be incremented whenever the output of the decompiler or the storage format changes. The
+     * implementation version is part of the key as well, but it doesn't change between snapshot
+     * builds.
+     */
+    static final int FORMAT_VERSION = 9;
+
+    private static final int MAGIC = 0x4F444331;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Path directory;
+    private final long maxSize;
+    private final byte[] version;
+
+    /** Entry sizes, in access order. */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long size;
+
+    public DecompilationCache(Path directory, long maxSize) throws IOException {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        String implementationVersion = Decompiler.class.getPackage().getImplementationVersion();
+        version =
+                (FORMAT_VERSION + "/" + Objects.toString(implementationVersion, ""))
+                        .getBytes(StandardCharsets.UTF_8);
+        Files.createDirectories(directory);
+        loadIndex();
+    }
+
+    /** Rebuilds the in-memory LRU index from the modification times of the cache files. */
+    private void loadIndex() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.walk(directory, 2)) {
+            stream.filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().endsWith(".tmp"))
+                    .forEach(files::add);
+        }
+        Map<Path, FileTime> times = new LinkedHashMap<>();
+        for (Path file : files) {
+            times.put(file, Files.getLastModifiedTime(file));
+        }
+        files.sort(Comparator.comparing(times::get));
+        synchronized (this) {
+            for (Path file : files) {
+                long fileSize = Files.size(file);
+                entries.put(file.getFileName().toString(), fileSize);
+                size += fileSize;
+            }
+            evict();
+        }
+    }
+
+    String computeKey(byte[] classFile) {
+        return computeKey(classFile, 0, "");
+    }
+
+    /**
+     * Computes the key for a class file.
+     *
+     * @param options identifies the decompiler options that affect the result
+     * @param passes identifies the post-processing passes
+     */
+    String computeKey(byte[] classFile, int options, String passes) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        digest.update(version);
+        digest.update((byte) 0);
+        digest.update((byte) options);
+        digest.update(passes.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(classFile);
+        byte[] hash = digest.digest();
+        char[] chars = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            chars[2 * i] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+            chars[2 * i + 1] = HEX_DIGITS[hash[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    private Path getFile(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    /**
+     * Looks up an entry in the cache.
+     *
+     * @return the cached result, or {@code null} if there is no entry for the given key
+     */
+    DecompiledClass get(String key) {
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                return null;
+            }
+        }
+        Path file = getFile(key);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            DecompiledClass result = read(new DataInputStream(in));
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return result;
+        } catch (NoSuchFileException ex) {
+            // Evicted concurrently (or by another process).
+            remove(key);
+            return null;
+        } catch (IOException ex) {
+            // Corrupt entry.
+            remove(key);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ex2) {
+                ex.addSuppressed(ex2);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Stores the given result in the cache. This is done on a best effort basis: results that can't
+     * be serialized or written are silently skipped.
+     */
+    void put(String key, DecompiledClass decompiledClass) {
+        Path file = getFile(key);
+        Path tmpFile = null;
+        long fileSize;
+        try {
+            Files.createDirectories(file.getParent());
+            // The cache directory may be shared by several processes.
+            tmpFile = Files.createTempFile(file.getParent(), key, ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmpFile))) {
+                write(new DataOutputStream(out), decompiledClass);
+            }
+            fileSize = Files.size(tmpFile);
+            try {
+                Files.move(
+                        tmpFile,
+                        file,
+                        StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            if (tmpFile != null) {
+                try {
+                    Files.deleteIfExists(tmpFile);
+                } catch (IOException ex2) {
+                    // Ignore.
+                }
+            }
+            return;
+        }
+        synchronized (this) {
+            Long previousSize = entries.put(key, fileSize);
+            if (previousSize != null) {
+                size -= previousSize;
+            }
+            size += fileSize;
+            evict();
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Long entrySize = entries.remove(key);
+        if (entrySize != null) {
+            size -= entrySize;
+        }
+    }
+
+    private void evict() {
+        for (Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+                size > maxSize && it.hasNext(); ) {
+            Map.Entry<String, Long> entry = it.next();
+            try {
+                Files.deleteIfExists(getFile(entry.getKey()));
+            } catch (IOException ex) {
+                // Leave the entry; it will be retried on the next eviction.
+                continue;
+            }
+            size -= entry.getValue();
+            it.remove();
+        }
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    private static void write(DataOutputStream out, DecompiledClass decompiledClass)
+            throws IOException {
+        out.writeInt(MAGIC);
+        out.writeUTF(decompiledClass.getName());
+        List<DecompiledMethod> methods = decompiledClass.getMethods();
+        out.writeInt(methods.size());
+        InstructionCodec.Writer writer = new InstructionCodec.Writer(out);
+        for (DecompiledMethod method : methods) {
+            out.writeInt(method.getAccess());
+            out.writeUTF(method.getName());
+            out.writeUTF(method.getDescriptor());
+            writer.writeInstructions(method.getInstructions());
+            writer.writeFrames(method.getFrames());
+            writer.writeLabelPositions(method.getLabelPositions());
+            writer.writeTryCatchBlocks(method.getTryCatchBlocks());
+            String failure = method.getFailure();
+            out.writeBoolean(failure != null);
+            if (failure != null) {
+                out.writeUTF(failure);
+            }
+        }
+    }
+
+    private static DecompiledClass read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new StreamCorruptedException();
+        }
+        String name = in.readUTF();
+        int count = in.readInt();
+        List<DecompiledMethod> methods = new ArrayList<>(count);
+        InstructionCodec.Reader reader = new InstructionCodec.Reader(in);
+        for (int i = 0; i < count; i++) {
+            int access = in.readInt();
+            String methodName = in.readUTF();
+            String descriptor = in.readUTF();
+            List<Instruction> instructions = reader.readInstructions();
+            List<Frame> frames = reader.readFrames();
+            Map<Label, Integer> labelPositions = reader.readLabelPositions();
+            List<TryCatchBlock> tryCatchBlocks = reader.readTryCatchBlocks();
+            String failure = in.readBoolean() ? in.readUTF() : null;
+            methods.add(
+                    new DecompiledMethod(
+                            access,
+                            methodName,
+                            descriptor,
+                            instructions,
+                            frames,
+                            labelPositions,
+                            tryCatchBlocks,
+                            failure));
+        }
+        return new DecompiledClass(name, methods);
+    }
+}
@@ -0,0 +1,72 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Client for {@link DecompilationServer}. Instances keep the connection open between requests and
+ * are not thread-safe.
+ */
+public final class DecompilationClient implements AutoCloseable {
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    /** Connects to a server listening on the given port of the loopback interface. */
+    public DecompilationClient(int port) throws IOException {
+        socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setTcpNoDelay(true);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Decompiles a class and returns the rendered source code.
+     *
+     * @throws DecompilationException if the server failed to decompile the class
+     */
+    public String decompile(byte[] classFile) throws IOException {
+        out.write(DecompilationServer.DECOMPILE);
+        out.writeInt(classFile.length);
+        out.write(classFile);
+        out.flush();
+        int status = in.readUnsignedByte();
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        String result = new String(bytes, StandardCharsets.UTF_8);
+        if (status != DecompilationServer.OK) {
+            throw new DecompilationException(result);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
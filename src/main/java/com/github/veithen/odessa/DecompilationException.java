@@ -0,0 +1,33 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+/**
+ * Indicates that a method uses a bytecode pattern that can't be decompiled. This is an expected
+ * outcome when processing arbitrary class files; therefore the exception doesn't capture a stack
+ * trace, so that it is cheap to throw in batch runs.
+ */
+public class DecompilationException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public DecompilationException(String message) {
+        super(message, null, false, false);
+    }
+}
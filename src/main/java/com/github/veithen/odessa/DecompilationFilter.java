@@ -0,0 +1,244 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Selects the classes and methods to decompile. Classes are first checked against their constant
+ * pool, which is much cheaper than visiting them: if none of the requested symbols appear in it,
+ * the class is skipped entirely. Instances are immutable.
+ */
+public final class DecompilationFilter {
+    /** Accepts all classes and methods. */
+    public static final DecompilationFilter ALL =
+            new DecompilationFilter(null, null, Collections.emptySet());
+
+    private static final int CONSTANT_UTF8 = 1;
+
+    private final Predicate<String> classFilter;
+    private final BiPredicate<String, String> methodFilter;
+    private final Set<String> symbols;
+    /** The symbols in modified UTF-8, as they appear in the constant pool. */
+    private final byte[][] encodedSymbols;
+
+    /**
+     * Constructor.
+     *
+     * @param classFilter predicate on the internal name of the class, or {@code null} to accept all
+     *     classes
+     * @param methodFilter predicate on the name and descriptor of the method, or {@code null} to
+     *     accept all methods
+     * @param symbols class names (in internal form), field names and method names; if not empty,
+     *     only methods that reference at least one of them in an instruction are decompiled
+     */
+    public DecompilationFilter(
+            Predicate<String> classFilter,
+            BiPredicate<String, String> methodFilter,
+            Collection<String> symbols) {
+        this.classFilter = classFilter;
+        this.methodFilter = methodFilter;
+        this.symbols = new HashSet<>(symbols);
+        encodedSymbols = new byte[this.symbols.size()][];
+        int i = 0;
+        for (String symbol : this.symbols) {
+            encodedSymbols[i++] = encode(symbol);
+        }
+    }
+
+    private static byte[] encode(String symbol) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            new DataOutputStream(baos).writeUTF(symbol);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException(ex);
+        }
+        byte[] bytes = baos.toByteArray();
+        // Strip the length.
+        return Arrays.copyOfRange(bytes, 2, bytes.length);
+    }
+
+    boolean isAll() {
+        return classFilter == null && methodFilter == null && symbols.isEmpty();
+    }
+
+    /**
+     * Determines if the class may contain matching methods. This only looks at the class name and
+     * the constant pool.
+     */
+    boolean matchesClass(ClassReader reader) {
+        if (classFilter != null && !classFilter.test(reader.getClassName())) {
+            return false;
+        }
+        if (symbols.isEmpty()) {
+            return true;
+        }
+        for (int i = 1; i < reader.getItemCount(); i++) {
+            int offset = reader.getItem(i);
+            // The second slot of long and double constants has no offset.
+            if (offset != 0 && reader.readByte(offset - 1) == CONSTANT_UTF8) {
+                int length = reader.readUnsignedShort(offset);
+                for (byte[] symbol : encodedSymbols) {
+                    if (symbol.length == length && regionMatches(reader, offset + 2, symbol)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionMatches(ClassReader reader, int offset, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if ((byte) reader.readByte(offset + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean matchesMethod(String name, String descriptor) {
+        return methodFilter == null || methodFilter.test(name, descriptor);
+    }
+
+    /**
+     * Finds the methods that reference one of the symbols. Only the methods with an index in the
+     * range {@code [firstMethod, lastMethod)} are scanned.
+     *
+     * @return the indexes of the matching methods, or {@code null} if the filter doesn't restrict
+     *     the referenced symbols
+     */
+    BitSet findReferencingMethods(ClassReader reader, int firstMethod, int lastMethod) {
+        if (symbols.isEmpty()) {
+            return null;
+        }
+        BitSet result = new BitSet();
+        reader.accept(
+                new ClassVisitor(Opcodes.ASM9) {
+                    private int index;
+
+                    @Override
+                    public MethodVisitor visitMethod(
+                            int access,
+                            String name,
+                            String descriptor,
+                            String signature,
+                            String[] exceptions) {
+                        int methodIndex = index++;
+                        if (methodIndex < firstMethod
+                                || methodIndex >= lastMethod
+                                || !matchesMethod(name, descriptor)) {
+                            return null;
+                        }
+                        return new SymbolScanner(result, methodIndex);
+                    }
+                },
+                ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return result;
+    }
+
+    private final class SymbolScanner extends MethodVisitor {
+        private final BitSet result;
+        private final int methodIndex;
+
+        SymbolScanner(BitSet result, int methodIndex) {
+            super(Opcodes.ASM9);
+            this.result = result;
+            this.methodIndex = methodIndex;
+        }
+
+        private void check(String symbol) {
+            if (symbols.contains(symbol)) {
+                result.set(methodIndex);
+            }
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type) {
+            check(type);
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+            check(owner);
+            check(name);
+        }
+
+        @Override
+        public void visitMethodInsn(
+                int opcode, String owner, String name, String descriptor, boolean isInterface) {
+            check(owner);
+            check(name);
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(
+                String name,
+                String descriptor,
+                Handle bootstrapMethodHandle,
+                Object... bootstrapMethodArguments) {
+            check(name);
+            // Method references and lambdas (e.g. Foo::bar) refer to their target through a
+            // method handle in the bootstrap arguments.
+            for (Object argument : bootstrapMethodArguments) {
+                checkConstant(argument);
+            }
+        }
+
+        @Override
+        public void visitLdcInsn(Object value) {
+            checkConstant(value);
+        }
+
+        private void checkConstant(Object value) {
+            if (value instanceof Type && ((Type) value).getSort() == Type.OBJECT) {
+                check(((Type) value).getInternalName());
+            } else if (value instanceof Handle) {
+                check(((Handle) value).getOwner());
+                check(((Handle) value).getName());
+            }
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+            Type elementType = Type.getType(descriptor).getElementType();
+            if (elementType.getSort() == Type.OBJECT) {
+                check(elementType.getInternalName());
+            }
+        }
+    }
+}
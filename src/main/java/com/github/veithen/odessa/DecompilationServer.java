@@ -0,0 +1,203 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long running decompilation service listening on a loopback port. Keeping the decompiler resident
+ * avoids paying JVM startup and JIT warm-up for every request. Each connection is handled on a
+ * virtual thread if the runtime supports them, and on a platform thread otherwise.
+ *
+ * <p>The protocol is binary and uses the encoding of {@link DataOutputStream}. A request consists
+ * of an opcode byte followed by its arguments; a connection may carry any number of requests. The
+ * only opcode is {@link #DECOMPILE}, followed by the length of a class file and its content. The
+ * response is a status byte ({@link #OK} or {@link #ERROR}) followed by the length and the UTF-8
+ * encoding of the source code or the error message. {@link DecompilationClient} implements the
+ * client side.
+ */
+public final class DecompilationServer implements AutoCloseable {
+    static final int DECOMPILE = 1;
+    static final int OK = 0;
+    static final int ERROR = 1;
+
+    /** Upper bound for the size of a class file; larger requests are treated as garbage. */
+    static final int MAX_CLASS_FILE_SIZE = 64 * 1024 * 1024;
+
+    private static final Class<?>[] WARM_UP_CLASSES = {
+        ControlFlowGraph.class,
+        InstructionCodec.class,
+        MethodVisitorImpl.class,
+        Pass.class,
+        SourceRenderer.class,
+    };
+
+    private final Decompiler decompiler;
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor;
+    private final Thread acceptThread;
+
+    /**
+     * Creates a server listening on the given port of the loopback interface. Use port 0 to pick a
+     * free port.
+     */
+    public DecompilationServer(Decompiler decompiler, int port) throws IOException {
+        this.decompiler = decompiler;
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        executor = createExecutor();
+        acceptThread = new Thread(this::accept, "odessa-server");
+        acceptThread.setDaemon(true);
+    }
+
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService)
+                    Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            // Virtual threads require Java 21 (or preview features on Java 19 and 20).
+            return Executors.newCachedThreadPool(
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "odessa-connection");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Brings the decompiler up to speed by repeatedly decompiling some of its own classes. This
+     * uses a separate decompiler instance, so that the counters and the cache are not affected.
+     */
+    public void warmUp(int iterations) throws IOException {
+        Decompiler warmUpDecompiler = new Decompiler();
+        warmUpDecompiler.setFailureMode(FailureMode.FALLBACK);
+        byte[][] classFiles = new byte[WARM_UP_CLASSES.length][];
+        for (int i = 0; i < classFiles.length; i++) {
+            classFiles[i] = getClassFile(WARM_UP_CLASSES[i]);
+        }
+        for (int i = 0; i < iterations; i++) {
+            for (byte[] classFile : classFiles) {
+                new SourceRenderer(new StringBuilder())
+                        .render(warmUpDecompiler.decompile(classFile));
+            }
+        }
+    }
+
+    private static byte[] getClassFile(Class<?> clazz) throws IOException {
+        try (InputStream in = clazz.getResourceAsStream(clazz.getSimpleName() + ".class")) {
+            if (in == null) {
+                throw new IOException("Class file not found: " + clazz.getName());
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int c;
+            while ((c = in.read(buffer)) != -1) {
+                out.write(buffer, 0, c);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /** Starts accepting connections. */
+    public void start() {
+        acceptThread.start();
+    }
+
+    private void accept() {
+        while (true) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException ex) {
+                // The server socket has been closed.
+                return;
+            }
+            executor.execute(() -> handle(socket));
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            DataOutputStream out =
+                    new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            int opcode;
+            while ((opcode = in.read()) != -1) {
+                if (opcode != DECOMPILE) {
+                    throw new IOException("Unknown opcode " + opcode);
+                }
+                int length = in.readInt();
+                if (length < 0 || length > MAX_CLASS_FILE_SIZE) {
+                    throw new IOException("Invalid class file size " + length);
+                }
+                byte[] classFile = new byte[length];
+                in.readFully(classFile);
+                int status;
+                String result;
+                try {
+                    StringBuilder source = new StringBuilder();
+                    DecompiledClass decompiledClass = decompiler.decompile(classFile);
+                    if (decompiledClass != null) {
+                        new SourceRenderer(source).render(decompiledClass);
+                    }
+                    status = OK;
+                    result = source.toString();
+                } catch (RuntimeException ex) {
+                    status = ERROR;
+                    result = String.valueOf(ex.getMessage());
+                }
+                byte[] bytes = result.getBytes(StandardCharsets.UTF_8);
+                out.write(status);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                out.flush();
+            }
+        } catch (EOFException ex) {
+            // The client closed the connection in the middle of a request.
+        } catch (IOException ex) {
+            // Protocol error or broken connection; drop the connection.
+        }
+    }
+
+    /** Stops accepting connections. Requests that are in progress are interrupted. */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+}
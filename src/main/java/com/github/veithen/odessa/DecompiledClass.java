@@ -0,0 +1,41 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.util.List;
+
+public final class DecompiledClass {
+    private final String name;
+    private final List<DecompiledMethod> methods;
+
+    public DecompiledClass(String name, List<DecompiledMethod> methods) {
+        this.name = name;
+        this.methods = methods;
+    }
+
+    /** Returns the internal name of the class. */
+    public String getName() {
+        return name;
+    }
+
+    public List<DecompiledMethod> getMethods() {
+        return methods;
+    }
+}
@@ -0,0 +1,138 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.objectweb.asm.Label;
+
+public final class DecompiledMethod {
+    private final int access;
+    private final String name;
+    private final String descriptor;
+    private final List<Instruction> instructions;
+    private final List<Frame> frames;
+    private final Map<Label, Integer> labelPositions;
+    private final List<TryCatchBlock> tryCatchBlocks;
+    private final String failure;
+
+    public DecompiledMethod(
+            int access,
+            String name,
+            String descriptor,
+            List<Instruction> instructions,
+            List<Frame> frames,
+            Map<Label, Integer> labelPositions,
+            List<TryCatchBlock> tryCatchBlocks,
+            String failure) {
+        this.access = access;
+        this.name = SymbolTable.canonicalize(name);
+        this.descriptor = SymbolTable.canonicalize(descriptor);
+        this.instructions = instructions;
+        this.frames = frames;
+        this.labelPositions = labelPositions;
+        this.tryCatchBlocks = tryCatchBlocks;
+        this.failure = failure;
+    }
+
+    public DecompiledMethod(
+            int access,
+            String name,
+            String descriptor,
+            List<Instruction> instructions,
+            List<Frame> frames,
+            Map<Label, Integer> labelPositions,
+            String failure) {
+        this(
+                access,
+                name,
+                descriptor,
+                instructions,
+                frames,
+                labelPositions,
+                Collections.emptyList(),
+                failure);
+    }
+
+    public DecompiledMethod(
+            int access,
+            String name,
+            String descriptor,
+            List<Instruction> instructions,
+            List<Frame> frames,
+            Map<Label, Integer> labelPositions) {
+        this(access, name, descriptor, instructions, frames, labelPositions, null);
+    }
+
+    public DecompiledMethod(
+            int access, String name, String descriptor, List<Instruction> instructions) {
+        this(
+                access,
+                name,
+                descriptor,
+                instructions,
+                Collections.emptyList(),
+                Collections.emptyMap());
+    }
+
+    public int getAccess() {
+        return access;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescriptor() {
+        return descriptor;
+    }
+
+    public List<Instruction> getInstructions() {
+        return instructions;
+    }
+
+    /**
+     * Returns the positions of the targets of the jump instructions, as indexes into the list
+     * returned by {@link #getInstructions()}. The map uses identity comparison.
+     */
+    public Map<Label, Integer> getLabelPositions() {
+        return labelPositions;
+    }
+
+    /** Returns the exception handlers, in the order in which they appear in the method. */
+    public List<TryCatchBlock> getTryCatchBlocks() {
+        return tryCatchBlocks;
+    }
+
+    /** Returns the stack map frames, in the order in which they appear in the method. */
+    public List<Frame> getFrames() {
+        return frames;
+    }
+
+    /**
+     * Returns the reason why the method couldn't be decompiled, or {@code null} if decompilation
+     * succeeded. For failed methods, the instructions are {@link BytecodeInstruction}s.
+     */
+    public String getFailure() {
+        return failure;
+    }
+}
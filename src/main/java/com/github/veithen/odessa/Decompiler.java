@@ -0,0 +1,187 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Decompiles individual classes. Once configured, instances may be shared between threads; the only
+ * state they maintain are the method counters.
+ */
+public final class Decompiler {
+    private final LongAdder methodCount = new LongAdder();
+    private final LongAdder failedMethodCount = new LongAdder();
+    private final LongAdder cachedMethodCount = new LongAdder();
+    private final PassManager passManager = PassManager.createDefault();
+    private DecompilationCache cache;
+    private FrameMode frameMode = FrameMode.EXPAND;
+    private FailureMode failureMode = FailureMode.THROW;
+    private DecompilationFilter filter = DecompilationFilter.ALL;
+
+    public void setCache(DecompilationCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Specifies whether stack map frames should be recorded. Skipping them is faster if the caller
+     * doesn't need them. The default is {@link FrameMode#EXPAND}.
+     */
+    public void setFrameMode(FrameMode frameMode) {
+        this.frameMode = frameMode;
+    }
+
+    /**
+     * Specifies what happens if a method can't be decompiled. The default is {@link
+     * FailureMode#THROW}.
+     */
+    public void setFailureMode(FailureMode failureMode) {
+        this.failureMode = failureMode;
+    }
+
+    /**
+     * Restricts decompilation to the classes and methods accepted by the given filter. Results are
+     * not cached if a filter is set. The default is {@link DecompilationFilter#ALL}.
+     */
+    public void setFilter(DecompilationFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Returns the pass manager that post-processes the decompiled methods. Passes may be added
+     * before the decompiler is used. The pass names are part of the cache key.
+     */
+    public PassManager getPassManager() {
+        return passManager;
+    }
+
+    /** Returns the number of methods decompiled so far, including results served from the cache. */
+    public long getMethodCount() {
+        return methodCount.sum();
+    }
+
+    /**
+     * Returns the number of methods (included in {@link #getMethodCount()}) served from the cache.
+     */
+    public long getCachedMethodCount() {
+        return cachedMethodCount.sum();
+    }
+
+    /** Returns the number of methods (included in {@link #getMethodCount()}) that failed. */
+    public long getFailedMethodCount() {
+        return failedMethodCount.sum();
+    }
+
+    /**
+     * Decompiles a class.
+     *
+     * @return the decompiled class, or {@code null} if the class is rejected by the filter
+     */
+    public DecompiledClass decompile(byte[] classFile) {
+        return decompile(classFile, reader -> decompileMethods(reader, 0, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Prepares a class for on-demand decompilation. This only reads the method metadata; methods
+     * are decompiled individually when they are first accessed. The cache is not used in this mode.
+     */
+    public LazyDecompiledClass decompileLazily(byte[] classFile) {
+        return new LazyDecompiledClass(this, new ClassReader(classFile));
+    }
+
+    DecompiledClass decompile(
+            byte[] classFile, Function<ClassReader, List<DecompiledMethod>> methodDecompiler) {
+        String key = null;
+        if (cache != null && filter.isAll()) {
+            key =
+                    cache.computeKey(
+                            classFile,
+                            frameMode.ordinal() | failureMode.ordinal() << 1,
+                            passManager.getSignature());
+            DecompiledClass cached = cache.get(key);
+            if (cached != null) {
+                countCachedMethods(cached);
+                return cached;
+            }
+        }
+        ClassReader reader = new ClassReader(classFile);
+        if (!filter.matchesClass(reader)) {
+            return null;
+        }
+        DecompiledClass result =
+                new DecompiledClass(reader.getClassName(), methodDecompiler.apply(reader));
+        if (key != null) {
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    private void countCachedMethods(DecompiledClass cached) {
+        List<DecompiledMethod> methods = cached.getMethods();
+        int failed = 0;
+        for (DecompiledMethod method : methods) {
+            if (method.getFailure() != null) {
+                failed++;
+            }
+        }
+        methodCount.add(methods.size());
+        cachedMethodCount.add(methods.size());
+        failedMethodCount.add(failed);
+    }
+
+    List<DecompiledMethod> decompileMethods(ClassReader reader, int firstMethod, int lastMethod) {
+        return decompileMethods(reader, firstMethod, lastMethod, filter);
+    }
+
+    List<DecompiledMethod> decompileMethods(
+            ClassReader reader, int firstMethod, int lastMethod, DecompilationFilter filter) {
+        BitSet referencingMethods = filter.findReferencingMethods(reader, firstMethod, lastMethod);
+        MethodVisitorImpl methodVisitor = MethodVisitorImpl.acquire();
+        try {
+            ClassVisitorImpl visitor =
+                    new ClassVisitorImpl(
+                            methodVisitor,
+                            firstMethod,
+                            lastMethod,
+                            failureMode,
+                            passManager,
+                            filter,
+                            referencingMethods);
+            try {
+                reader.accept(visitor, frameMode.getReaderFlags());
+            } catch (DecompilationException ex) {
+                methodCount.add(visitor.getMethods().size() + 1);
+                failedMethodCount.increment();
+                throw ex;
+            }
+            visitor.addFallbacks(reader);
+            List<DecompiledMethod> methods = visitor.getMethods();
+            methodCount.add(methods.size());
+            failedMethodCount.add(visitor.getFailedMethodCount());
+            return methods;
+        } finally {
+            methodVisitor.release();
+        }
+    }
+}
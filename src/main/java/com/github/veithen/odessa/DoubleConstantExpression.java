@@ -0,0 +1,62 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+
+/** A {@code double} constant. */
+public final class DoubleConstantExpression extends ConstantExpression {
+    private final double value;
+
+    public DoubleConstantExpression(double value) {
+        this.value = value;
+    }
+
+    public double getDoubleValue() {
+        return value;
+    }
+
+    @Override
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        out.append(Double.toString(value));
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return 0x434F + Double.hashCode(value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof DoubleConstantExpression
+                && Double.doubleToLongBits(((DoubleConstantExpression) obj).value)
+                        == Double.doubleToLongBits(value);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitDoubleConstant(this);
+    }
+}
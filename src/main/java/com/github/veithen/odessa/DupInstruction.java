@@ -19,8 +19,20 @@
  */
 package com.github.veithen.odessa;
 
+import java.io.IOException;
+
 public final class DupInstruction extends Instruction {
     public static final DupInstruction INSTANCE = new DupInstruction();
 
     private DupInstruction() {}
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        out.append("DUP;");
+    }
+
+    @Override
+    public <R> R accept(InstructionVisitor<R> visitor) {
+        return visitor.visitDup(this);
+    }
 }
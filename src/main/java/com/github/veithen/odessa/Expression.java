@@ -19,6 +19,61 @@
  */
 package com.github.veithen.odessa;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Base class for expressions. Expressions are immutable and compare structurally. The hash code is
+ * computed once and then cached, so that it is cheap to use expressions as keys even for deep
+ * trees.
+ */
 public abstract class Expression {
+    private int hashCode;
+
     public abstract boolean isPure();
+
+    /** Computes the structural hash code of this expression. */
+    protected abstract int computeHashCode();
+
+    @Override
+    public final int hashCode() {
+        int hashCode = this.hashCode;
+        if (hashCode == 0) {
+            hashCode = computeHashCode();
+            if (hashCode == 0) {
+                hashCode = 1;
+            }
+            this.hashCode = hashCode;
+        }
+        return hashCode;
+    }
+
+    @Override
+    public abstract boolean equals(Object obj);
+
+    /** Writes the source representation of this expression to the given output. */
+    public abstract void appendTo(Appendable out) throws IOException;
+
+    /** Invokes the method of the visitor that corresponds to the type of this node. */
+    public abstract <R> R accept(ExpressionVisitor<R> visitor);
+
+    /** Appends a class name given in internal form, replacing slashes with dots. */
+    static void appendClassName(Appendable out, String internalName) throws IOException {
+        for (int i = 0; i < internalName.length(); i++) {
+            char c = internalName.charAt(i);
+            out.append(c == '/' ? '.' : c);
+        }
+    }
+
+    @Override
+    public final String toString() {
+        StringBuilder buffer = new StringBuilder();
+        try {
+            appendTo(buffer);
+        } catch (IOException ex) {
+            // Can't happen with a StringBuilder.
+            throw new UncheckedIOException(ex);
+        }
+        return buffer.toString();
+    }
 }
@@ -19,10 +19,10 @@
  */
 package com.github.veithen.odessa;
 
+import java.io.IOException;
 import java.util.Objects;
 
 /** Evaluates the given expression, but discards the result. */
-@SuppressWarnings("EqualsHashCode")
 public final class ExpressionInstruction extends Instruction {
     private final Expression expression;
 
@@ -35,8 +35,14 @@ public final class ExpressionInstruction extends Instruction {
     }
 
     @Override
-    public String toString() {
-        return expression + ";";
+    public void appendTo(Appendable out) throws IOException {
+        expression.appendTo(out);
+        out.append(';');
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(expression);
     }
 
     @Override
@@ -47,4 +53,9 @@ public final class ExpressionInstruction extends Instruction {
         ExpressionInstruction other = (ExpressionInstruction) obj;
         return Objects.equals(expression, other.expression);
     }
+
+    @Override
+    public <R> R accept(InstructionVisitor<R> visitor) {
+        return visitor.visitExpression(this);
+    }
 }
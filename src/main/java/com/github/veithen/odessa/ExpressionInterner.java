@@ -0,0 +1,90 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Returns canonical instances for structurally equal expressions, so that identical subtrees are
+ * shared. Since the children of an interned expression are normally interned as well, lookups only
+ * compare references below the top level. Instances are not thread-safe.
+ */
+public final class ExpressionInterner {
+    private final Map<Expression, Expression> expressions = new HashMap<>();
+    private final Map<Object, ConstantExpression> constants = new HashMap<>();
+    private VariableExpression[] variables = new VariableExpression[16];
+
+    /** Returns the canonical instance for a variable without allocating a new expression. */
+    public VariableExpression variable(int varIndex) {
+        if (varIndex >= variables.length) {
+            variables = Arrays.copyOf(variables, Math.max(varIndex + 1, variables.length * 2));
+        }
+        VariableExpression expression = variables[varIndex];
+        if (expression == null) {
+            expression = intern(new VariableExpression(varIndex));
+            variables[varIndex] = expression;
+        }
+        return expression;
+    }
+
+    /**
+     * Returns the canonical instance for an {@code int} constant. Small values are served from the
+     * shared {@link IntConstantExpression} cache.
+     */
+    public IntConstantExpression constant(int value) {
+        if (IntConstantExpression.isCached(value)) {
+            return IntConstantExpression.valueOf(value);
+        }
+        return intern(IntConstantExpression.valueOf(value));
+    }
+
+    /** Returns the canonical instance for a constant without allocating a new expression. */
+    public ConstantExpression constant(Object value) {
+        if (value instanceof Integer) {
+            return constant(((Integer) value).intValue());
+        }
+        ConstantExpression expression = constants.get(value);
+        if (expression == null) {
+            expression = intern(ConstantExpression.of(value));
+            constants.put(value, expression);
+        }
+        return expression;
+    }
+
+    /** Returns the canonical instance for the given expression. */
+    @SuppressWarnings("unchecked")
+    public <T extends Expression> T intern(T expression) {
+        Expression canonical = expressions.putIfAbsent(expression, expression);
+        // Equal expressions always have the same class.
+        return canonical == null ? expression : (T) canonical;
+    }
+
+    public int size() {
+        return expressions.size();
+    }
+
+    public void clear() {
+        expressions.clear();
+        constants.clear();
+        Arrays.fill(variables, null);
+    }
+}
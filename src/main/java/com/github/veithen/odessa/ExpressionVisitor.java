@@ -0,0 +1,80 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+/**
+ * Visitor for {@link Expression} trees. Dispatching through {@link Expression#accept} avoids chains
+ * of {@code instanceof} checks. The visitor is responsible for visiting the children of a node.
+ *
+ * @param <R> the result type
+ */
+public interface ExpressionVisitor<R> {
+    R visitArrayElement(ArrayElementExpression expression);
+
+    R visitArrayInitializer(ArrayInitializerExpression expression);
+
+    R visitArrayLength(ArrayLengthExpression expression);
+
+    R visitAssignment(AssignmentExpression expression);
+
+    R visitBinary(BinaryExpression expression);
+
+    R visitCast(CastExpression expression);
+
+    R visitCaughtException(CaughtExceptionExpression expression);
+
+    R visitCompare(CompareExpression expression);
+
+    R visitConditional(ConditionalExpression expression);
+
+    R visitDoubleConstant(DoubleConstantExpression expression);
+
+    R visitField(FieldExpression expression);
+
+    R visitFloatConstant(FloatConstantExpression expression);
+
+    R visitInstanceOf(InstanceOfExpression expression);
+
+    R visitIntConstant(IntConstantExpression expression);
+
+    R visitInvokeDynamic(InvokeDynamicExpression expression);
+
+    R visitInvokeMethod(InvokeMethodExpression expression);
+
+    R visitInvokeStaticMethod(InvokeStaticMethodExpression expression);
+
+    R visitLongConstant(LongConstantExpression expression);
+
+    R visitNegation(NegationExpression expression);
+
+    R visitNewArray(NewArrayExpression expression);
+
+    R visitNew(NewExpression expression);
+
+    R visitPostIncrement(PostIncrementExpression expression);
+
+    R visitPreIncrement(PreIncrementExpression expression);
+
+    R visitRawNew(RawNewExpression expression);
+
+    R visitReferenceConstant(ReferenceConstantExpression expression);
+
+    R visitVariable(VariableExpression expression);
+}
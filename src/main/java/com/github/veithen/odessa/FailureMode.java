@@ -19,22 +19,14 @@
  */
 package com.github.veithen.odessa;
 
-import org.objectweb.asm.Label;
+/** Specifies what happens when a method can't be decompiled. */
+public enum FailureMode {
+    /** The {@link DecompilationException} is propagated to the caller. */
+    THROW,
 
-public final class LabelledInstruction {
-    private final Label label;
-    private final Instruction instruction;
-
-    public LabelledInstruction(Label label, Instruction instruction) {
-        this.label = label;
-        this.instruction = instruction;
-    }
-
-    public Label getLabel() {
-        return label;
-    }
-
-    public Instruction getInstruction() {
-        return instruction;
-    }
+    /**
+     * The method is marked as failed (see {@link DecompiledMethod#getFailure()}) and its
+     * instructions are replaced by a listing of the bytecode.
+     */
+    FALLBACK
 }
@@ -19,15 +19,30 @@
  */
 package com.github.veithen.odessa;
 
+import java.io.IOException;
+import java.util.Objects;
+
 public final class FieldExpression extends LvalueExpression {
     private final String owner;
     private final Expression target;
     private final String name;
 
     public FieldExpression(String owner, Expression target, String name) {
-        this.owner = owner;
+        this.owner = SymbolTable.canonicalize(owner);
         this.target = target;
-        this.name = name;
+        this.name = SymbolTable.canonicalize(name);
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public Expression getTarget() {
+        return target;
+    }
+
+    public String getName() {
+        return name;
     }
 
     @Override
@@ -36,7 +51,39 @@ public final class FieldExpression extends LvalueExpression {
     }
 
     @Override
-    public String toString() {
-        return (target == null ? owner.replace('/', '.') : target.toString()) + "." + name;
+    public void appendTo(Appendable out) throws IOException {
+        if (target == null) {
+            appendClassName(out, owner);
+        } else {
+            target.appendTo(out);
+        }
+        out.append('.').append(name);
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return (31 * owner.hashCode() + Objects.hashCode(target)) * 31 + name.hashCode();
+    }
+
+    // Symbols are canonicalized by the constructor.
+    @SuppressWarnings("ReferenceEquality")
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof FieldExpression)) {
+            return false;
+        }
+        FieldExpression other = (FieldExpression) obj;
+        return hashCode() == other.hashCode()
+                && owner == other.owner
+                && Objects.equals(target, other.target)
+                && name == other.name;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitField(this);
     }
 }
@@ -19,4 +19,42 @@
  */
 package com.github.veithen.odessa;
 
-public final class Frame extends Instruction {}
+import org.objectweb.asm.Label;
+
+/**
+ * Stack map frame of a decompiled method, in expanded form. Types are represented as in ASM: {@link
+ * org.objectweb.asm.Opcodes#INTEGER} etc. for primitive types, internal names for reference types
+ * and the {@link Label} of the {@code NEW} instruction for uninitialized types.
+ */
+public final class Frame {
+    private final Label label;
+    private final Object[] locals;
+    private final Object[] stack;
+
+    public Frame(Label label, Object[] locals, Object[] stack) {
+        this.label = label;
+        this.locals = locals;
+        this.stack = stack;
+    }
+
+    /** Returns the label of the instruction the frame applies to. */
+    public Label getLabel() {
+        return label;
+    }
+
+    public int getLocalCount() {
+        return locals.length;
+    }
+
+    public Object getLocal(int index) {
+        return locals[index];
+    }
+
+    public int getStackSize() {
+        return stack.length;
+    }
+
+    public Object getStack(int index) {
+        return stack[index];
+    }
+}
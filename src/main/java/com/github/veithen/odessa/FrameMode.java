@@ -0,0 +1,41 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import org.objectweb.asm.ClassReader;
+
+/** Specifies how stack map frames are processed. */
+public enum FrameMode {
+    /** Frames are not read at all; decompiled methods have no frames. */
+    SKIP(ClassReader.SKIP_FRAMES),
+
+    /** Frames are expanded and recorded in the decompiled methods. */
+    EXPAND(ClassReader.EXPAND_FRAMES);
+
+    private final int readerFlags;
+
+    FrameMode(int readerFlags) {
+        this.readerFlags = readerFlags;
+    }
+
+    int getReaderFlags() {
+        return readerFlags;
+    }
+}
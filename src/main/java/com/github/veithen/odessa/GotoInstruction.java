@@ -19,6 +19,10 @@
  */
 package com.github.veithen.odessa;
 
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
 import org.objectweb.asm.Label;
 
 public final class GotoInstruction extends Instruction {
@@ -31,4 +35,19 @@ public final class GotoInstruction extends Instruction {
     public Label getLabel() {
         return label;
     }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        appendTo(out, Collections.emptyMap());
+    }
+
+    @Override
+    public void appendTo(Appendable out, Map<Label, String> labelNames) throws IOException {
+        out.append("goto ").append(getLabelName(labelNames, label)).append(';');
+    }
+
+    @Override
+    public <R> R accept(InstructionVisitor<R> visitor) {
+        return visitor.visitGoto(this);
+    }
 }
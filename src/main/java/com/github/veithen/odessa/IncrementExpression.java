@@ -31,4 +31,8 @@ public abstract class IncrementExpression extends Expression {
     public final int getVarIndex() {
         return varIndex;
     }
+
+    public final int getIncrement() {
+        return increment;
+    }
 }
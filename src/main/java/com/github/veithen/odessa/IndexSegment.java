@@ -0,0 +1,361 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable {@link SymbolIndex} segment read from a memory mapped file. A segment covers a set of
+ * classes and maps each referenced symbol to the (ascending) ids of the methods referencing it.
+ * Symbols are looked up by binary search directly in the mapping; only the class names are decoded
+ * when the segment is opened.
+ *
+ * <p>The file starts with a fixed size header, followed by the string pool (each string is an int
+ * length followed by UTF-8 bytes), the class table (string offsets), the method table (class index,
+ * name offset and descriptor offset), the symbol table (kind, symbol offset, postings offset and
+ * postings count, sorted by kind and then by the UTF-8 bytes of the symbol) and the postings.
+ */
+final class IndexSegment {
+    private static final int MAGIC = 0x4F445831;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int METHOD_ENTRY_SIZE = 12;
+    private static final int SYMBOL_ENTRY_SIZE = 16;
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final String[] classNames;
+    private final int methodCount;
+    private final int symbolCount;
+    private final int methodTable;
+    private final int symbolTable;
+
+    private IndexSegment(Path file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE
+                || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Not an index segment: " + file);
+        }
+        int classCount = buffer.getInt(8);
+        methodCount = buffer.getInt(12);
+        symbolCount = buffer.getInt(16);
+        int classTable = buffer.getInt(20);
+        methodTable = buffer.getInt(24);
+        symbolTable = buffer.getInt(28);
+        if (classTable + 4L * classCount > methodTable
+                || methodTable + (long) METHOD_ENTRY_SIZE * methodCount > symbolTable
+                || symbolTable + (long) SYMBOL_ENTRY_SIZE * symbolCount > buffer.limit()) {
+            throw new IOException("Corrupt index segment: " + file);
+        }
+        classNames = new String[classCount];
+        for (int i = 0; i < classCount; i++) {
+            classNames[i] = readString(buffer.getInt(classTable + 4 * i));
+        }
+    }
+
+    static IndexSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Index segment too large to be mapped: " + file);
+            }
+            // The mapping remains valid after the channel is closed.
+            return new IndexSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    private String readString(int offset) {
+        byte[] bytes = new byte[buffer.getInt(offset)];
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(offset + 4);
+        slice.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    int getClassCount() {
+        return classNames.length;
+    }
+
+    String getClassName(int index) {
+        return classNames[index];
+    }
+
+    int getMethodCount() {
+        return methodCount;
+    }
+
+    /** Returns the index of the class declaring the given method. */
+    int getMethodClass(int method) {
+        return buffer.getInt(methodTable + METHOD_ENTRY_SIZE * method);
+    }
+
+    String getMethodName(int method) {
+        return readString(buffer.getInt(methodTable + METHOD_ENTRY_SIZE * method + 4));
+    }
+
+    String getMethodDescriptor(int method) {
+        return readString(buffer.getInt(methodTable + METHOD_ENTRY_SIZE * method + 8));
+    }
+
+    MethodReference getMethod(int method) {
+        return new MethodReference(
+                classNames[getMethodClass(method)],
+                getMethodName(method),
+                getMethodDescriptor(method));
+    }
+
+    int getSymbolCount() {
+        return symbolCount;
+    }
+
+    ReferenceKind getSymbolKind(int symbol) {
+        return ReferenceKind.values()[buffer.getInt(symbolTable + SYMBOL_ENTRY_SIZE * symbol)];
+    }
+
+    String getSymbol(int symbol) {
+        return readString(buffer.getInt(symbolTable + SYMBOL_ENTRY_SIZE * symbol + 4));
+    }
+
+    int getPostingCount(int symbol) {
+        return buffer.getInt(symbolTable + SYMBOL_ENTRY_SIZE * symbol + 12);
+    }
+
+    /** Returns the id of the method at the given position in the postings list of a symbol. */
+    int getPosting(int symbol, int index) {
+        return buffer.getInt(
+                buffer.getInt(symbolTable + SYMBOL_ENTRY_SIZE * symbol + 8) + 4 * index);
+    }
+
+    /**
+     * Looks up a symbol.
+     *
+     * @param symbol the UTF-8 encoded symbol
+     * @return the index of the symbol, or -1 if the segment doesn't contain it
+     */
+    int find(ReferenceKind kind, byte[] symbol) {
+        int low = 0;
+        int high = symbolCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int result = compare(middle, kind.ordinal(), symbol);
+            if (result < 0) {
+                low = middle + 1;
+            } else if (result > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int compare(int symbol, int kind, byte[] bytes) {
+        int entry = symbolTable + SYMBOL_ENTRY_SIZE * symbol;
+        int result = Integer.compare(buffer.getInt(entry), kind);
+        if (result != 0) {
+            return result;
+        }
+        int offset = buffer.getInt(entry + 4);
+        int length = buffer.getInt(offset);
+        for (int i = 0; i < length && i < bytes.length; i++) {
+            result = Integer.compare(buffer.get(offset + 4 + i) & 0xFF, bytes[i] & 0xFF);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(length, bytes.length);
+    }
+
+    private static int compare(byte[] bytes1, byte[] bytes2) {
+        for (int i = 0; i < bytes1.length && i < bytes2.length; i++) {
+            int result = Integer.compare(bytes1[i] & 0xFF, bytes2[i] & 0xFF);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(bytes1.length, bytes2.length);
+    }
+
+    /** Collects the content of a segment in memory and writes it in the segment format. */
+    static final class Writer {
+        private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        private final DataOutputStream poolOut = new DataOutputStream(pool);
+        private final Map<String, Integer> stringOffsets = new HashMap<>();
+        private final List<Integer> classes = new ArrayList<>();
+        private int[] methods = new int[3 * 16];
+        private int methodCount;
+        private final Map<ReferenceKind, Map<String, Postings>> symbols =
+                new EnumMap<>(ReferenceKind.class);
+
+        private int addString(String string) {
+            Integer offset = stringOffsets.get(string);
+            if (offset == null) {
+                offset = HEADER_SIZE + pool.size();
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                try {
+                    poolOut.writeInt(bytes.length);
+                    poolOut.write(bytes);
+                } catch (IOException ex) {
+                    // ByteArrayOutputStream doesn't throw IOException.
+                    throw new IllegalStateException(ex);
+                }
+                stringOffsets.put(string, offset);
+            }
+            return offset;
+        }
+
+        /** Adds a class and returns its index. */
+        int addClass(String name) {
+            classes.add(addString(name));
+            return classes.size() - 1;
+        }
+
+        /** Adds a method and returns its id. */
+        int addMethod(int classIndex, String name, String descriptor) {
+            if (3 * methodCount == methods.length) {
+                methods = Arrays.copyOf(methods, methods.length * 2);
+            }
+            methods[3 * methodCount] = classIndex;
+            methods[3 * methodCount + 1] = addString(name);
+            methods[3 * methodCount + 2] = addString(descriptor);
+            return methodCount++;
+        }
+
+        void addReference(ReferenceKind kind, String symbol, int method) {
+            symbols.computeIfAbsent(kind, k -> new HashMap<>())
+                    .computeIfAbsent(symbol, s -> new Postings())
+                    .add(method);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            List<SymbolEntry> entries = new ArrayList<>();
+            for (Map.Entry<ReferenceKind, Map<String, Postings>> kindEntry : symbols.entrySet()) {
+                List<SymbolEntry> kindEntries = new ArrayList<>();
+                for (Map.Entry<String, Postings> entry : kindEntry.getValue().entrySet()) {
+                    kindEntries.add(
+                            new SymbolEntry(
+                                    kindEntry.getKey(),
+                                    entry.getKey(),
+                                    entry.getValue().toArray()));
+                }
+                kindEntries.sort((e1, e2) -> compare(e1.bytes, e2.bytes));
+                entries.addAll(kindEntries);
+            }
+            int[] symbolOffsets = new int[entries.size()];
+            for (int i = 0; i < symbolOffsets.length; i++) {
+                symbolOffsets[i] = addString(entries.get(i).symbol);
+            }
+            int classTable = HEADER_SIZE + pool.size();
+            int methodTable = classTable + 4 * classes.size();
+            int symbolTable = methodTable + METHOD_ENTRY_SIZE * methodCount;
+            int postings = symbolTable + SYMBOL_ENTRY_SIZE * entries.size();
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(classes.size());
+            out.writeInt(methodCount);
+            out.writeInt(entries.size());
+            out.writeInt(classTable);
+            out.writeInt(methodTable);
+            out.writeInt(symbolTable);
+            pool.writeTo(out);
+            for (int offset : classes) {
+                out.writeInt(offset);
+            }
+            for (int i = 0; i < 3 * methodCount; i++) {
+                out.writeInt(methods[i]);
+            }
+            for (int i = 0; i < symbolOffsets.length; i++) {
+                SymbolEntry entry = entries.get(i);
+                out.writeInt(entry.kind.ordinal());
+                out.writeInt(symbolOffsets[i]);
+                out.writeInt(postings);
+                out.writeInt(entry.postings.length);
+                postings += 4 * entry.postings.length;
+            }
+            for (SymbolEntry entry : entries) {
+                for (int method : entry.postings) {
+                    out.writeInt(method);
+                }
+            }
+        }
+    }
+
+    private static final class Postings {
+        private int[] methods = new int[4];
+        private int size;
+
+        void add(int method) {
+            // References are usually added method by method, so this eliminates most duplicates.
+            if (size > 0 && methods[size - 1] == method) {
+                return;
+            }
+            if (size == methods.length) {
+                methods = Arrays.copyOf(methods, size * 2);
+            }
+            methods[size++] = method;
+        }
+
+        /** Returns the sorted method ids without duplicates. */
+        int[] toArray() {
+            int[] result = Arrays.copyOf(methods, size);
+            Arrays.sort(result);
+            int count = 0;
+            for (int i = 0; i < result.length; i++) {
+                if (i == 0 || result[i] != result[i - 1]) {
+                    result[count++] = result[i];
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+    }
+
+    private static final class SymbolEntry {
+        final ReferenceKind kind;
+        final String symbol;
+        final byte[] bytes;
+        final int[] postings;
+
+        SymbolEntry(ReferenceKind kind, String symbol, int[] postings) {
+            this.kind = kind;
+            this.symbol = symbol;
+            bytes = symbol.getBytes(StandardCharsets.UTF_8);
+            this.postings = postings;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+
+import org.objectweb.asm.Type;
+
+public final class InstanceOfExpression extends Expression {
+    private final Expression expression;
+    private final String type;
+
+    public InstanceOfExpression(Expression expression, String type) {
+        this.expression = expression;
+        this.type = SymbolTable.canonicalize(type);
+    }
+
+    public Expression getExpression() {
+        return expression;
+    }
+
+    /** Returns the internal name of the type, or the descriptor for array types. */
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public boolean isPure() {
+        return expression.isPure();
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        expression.appendTo(out);
+        out.append(" instanceof ").append(Type.getObjectType(type).getClassName());
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return 31 * expression.hashCode() + type.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof InstanceOfExpression)) {
+            return false;
+        }
+        InstanceOfExpression other = (InstanceOfExpression) obj;
+        return hashCode() == other.hashCode()
+                && expression.equals(other.expression)
+                && type.equals(other.type);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitInstanceOf(this);
+    }
+}
@@ -19,4 +19,42 @@
  */
 package com.github.veithen.odessa;
 
-public abstract class Instruction {}
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+import org.objectweb.asm.Label;
+
+public abstract class Instruction {
+    /** Writes the source representation of this instruction to the given output. */
+    public abstract void appendTo(Appendable out) throws IOException;
+
+    /**
+     * Writes the source representation of this instruction to the given output, using the given
+     * names for the labels it refers to. Labels without a name are rendered using {@link
+     * Label#toString()}, which is not stable across runs.
+     */
+    public void appendTo(Appendable out, Map<Label, String> labelNames) throws IOException {
+        appendTo(out);
+    }
+
+    static String getLabelName(Map<Label, String> labelNames, Label label) {
+        String name = labelNames.get(label);
+        return name == null ? label.toString() : name;
+    }
+
+    /** Invokes the method of the visitor that corresponds to the type of this node. */
+    public abstract <R> R accept(InstructionVisitor<R> visitor);
+
+    @Override
+    public final String toString() {
+        StringBuilder buffer = new StringBuilder();
+        try {
+            appendTo(buffer);
+        } catch (IOException ex) {
+            // Can't happen with a StringBuilder.
+            throw new UncheckedIOException(ex);
+        }
+        return buffer.toString();
+    }
+}
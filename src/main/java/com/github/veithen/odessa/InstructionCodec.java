@@ -0,0 +1,857 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Type;
+
+/**
+ * Binary encoding of instruction lists, frames and label positions. Labels are encoded as numbers
+ * that are only meaningful within a single method, i.e. the frames and label positions must be
+ * written immediately after the instructions they refer to.
+ */
+final class InstructionCodec {
+    private static final int NULL = 0;
+
+    private static final int ASSIGNMENT = 1;
+    private static final int BINARY = 2;
+    private static final int CONSTANT = 3;
+    private static final int FIELD = 4;
+    private static final int INVOKE_METHOD = 5;
+    private static final int NEW = 6;
+    private static final int POST_INCREMENT = 7;
+    private static final int PRE_INCREMENT = 8;
+    private static final int RAW_NEW = 9;
+    private static final int VARIABLE = 10;
+    private static final int CONDITIONAL = 11;
+    private static final int ARRAY_ELEMENT = 12;
+    private static final int ARRAY_INITIALIZER = 13;
+    private static final int ARRAY_LENGTH = 14;
+    private static final int CAST = 15;
+    private static final int CAUGHT_EXCEPTION = 16;
+    private static final int COMPARE = 17;
+    private static final int INSTANCE_OF = 18;
+    private static final int INVOKE_DYNAMIC = 19;
+    private static final int INVOKE_STATIC_METHOD = 20;
+    private static final int NEGATION = 21;
+    private static final int NEW_ARRAY = 22;
+
+    private static final int CONDITIONAL_JUMP = 64;
+    private static final int DUP = 65;
+    private static final int EXPRESSION = 66;
+    private static final int GOTO = 68;
+    private static final int PUSH = 69;
+    private static final int RETURN = 70;
+    private static final int SUPERCLASS_CONSTRUCTOR_INVOCATION = 71;
+    private static final int MONITOR = 72;
+    private static final int SWITCH = 73;
+    private static final int THROW = 74;
+    private static final int BYTECODE = 75;
+
+    private static final int STRING = 0;
+    private static final int INTEGER = 1;
+    private static final int LONG = 2;
+    private static final int FLOAT = 3;
+    private static final int DOUBLE = 4;
+    private static final int TYPE = 5;
+    private static final int NULL_CONSTANT = 6;
+
+    private static final int FRAME_PRIMITIVE = 0;
+    private static final int FRAME_REFERENCE = 1;
+    private static final int FRAME_UNINITIALIZED = 2;
+
+    private InstructionCodec() {}
+
+    static final class Writer {
+        private final DataOutput out;
+        private final IdentityHashMap<Label, Integer> labels = new IdentityHashMap<>();
+        private final Encoder encoder = new Encoder();
+
+        Writer(DataOutput out) {
+            this.out = out;
+        }
+
+        void writeInstructions(List<Instruction> instructions) throws IOException {
+            labels.clear();
+            out.writeInt(instructions.size());
+            for (Instruction instruction : instructions) {
+                writeInstruction(instruction);
+            }
+        }
+
+        void writeFrames(List<Frame> frames) throws IOException {
+            out.writeInt(frames.size());
+            for (Frame frame : frames) {
+                writeLabel(frame.getLabel());
+                out.writeShort(frame.getLocalCount());
+                for (int i = 0; i < frame.getLocalCount(); i++) {
+                    writeFrameType(frame.getLocal(i));
+                }
+                out.writeShort(frame.getStackSize());
+                for (int i = 0; i < frame.getStackSize(); i++) {
+                    writeFrameType(frame.getStack(i));
+                }
+            }
+        }
+
+        void writeLabelPositions(Map<Label, Integer> labelPositions) throws IOException {
+            out.writeInt(labelPositions.size());
+            for (Map.Entry<Label, Integer> entry : labelPositions.entrySet()) {
+                writeLabel(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+        }
+
+        void writeTryCatchBlocks(List<TryCatchBlock> tryCatchBlocks) throws IOException {
+            out.writeInt(tryCatchBlocks.size());
+            for (TryCatchBlock tryCatchBlock : tryCatchBlocks) {
+                out.writeInt(tryCatchBlock.getStart());
+                out.writeInt(tryCatchBlock.getEnd());
+                out.writeInt(tryCatchBlock.getHandler());
+                String type = tryCatchBlock.getType();
+                out.writeBoolean(type != null);
+                if (type != null) {
+                    out.writeUTF(type);
+                }
+            }
+        }
+
+        private void writeFrameType(Object type) throws IOException {
+            if (type instanceof Integer) {
+                out.writeByte(FRAME_PRIMITIVE);
+                out.writeByte((Integer) type);
+            } else if (type instanceof String) {
+                out.writeByte(FRAME_REFERENCE);
+                out.writeUTF((String) type);
+            } else if (type instanceof Label) {
+                out.writeByte(FRAME_UNINITIALIZED);
+                writeLabel((Label) type);
+            } else {
+                throw new NotSerializableException(String.valueOf(type));
+            }
+        }
+
+        private void writeLabel(Label label) throws IOException {
+            Integer id = labels.get(label);
+            if (id == null) {
+                id = labels.size();
+                labels.put(label, id);
+            }
+            out.writeInt(id);
+        }
+
+        private void writeInstruction(Instruction instruction) throws IOException {
+            try {
+                instruction.accept(encoder);
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        }
+
+        /**
+         * Writes instructions and expressions. The visitor methods can't throw {@link IOException}
+         * directly; it is wrapped in an {@link UncheckedIOException} and unwrapped by {@link
+         * #writeInstruction(Instruction)}.
+         */
+        private final class Encoder implements InstructionVisitor<Void>, ExpressionVisitor<Void> {
+            private void writeByte(int value) {
+                try {
+                    out.writeByte(value);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+
+            private void writeBoolean(boolean value) {
+                try {
+                    out.writeBoolean(value);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+
+            private void writeShort(int value) {
+                try {
+                    out.writeShort(value);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+
+            private void writeInt(int value) {
+                try {
+                    out.writeInt(value);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+
+            private void writeLong(long value) {
+                try {
+                    out.writeLong(value);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+
+            private void writeFloat(float value) {
+                try {
+                    out.writeFloat(value);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+
+            private void writeDouble(double value) {
+                try {
+                    out.writeDouble(value);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+
+            private void writeUTF(String value) {
+                try {
+                    out.writeUTF(value);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+
+            private void writeLabel(Label label) {
+                try {
+                    Writer.this.writeLabel(label);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+
+            private void writeExpression(Expression expression) {
+                if (expression == null) {
+                    writeByte(NULL);
+                } else {
+                    expression.accept(this);
+                }
+            }
+
+            private void writeArgs(ArgList args) {
+                writeShort(args.size());
+                for (int i = 0; i < args.size(); i++) {
+                    writeExpression(args.get(i));
+                }
+            }
+
+            @Override
+            public Void visitBytecode(BytecodeInstruction instruction) {
+                writeByte(BYTECODE);
+                writeUTF(instruction.getText());
+                return null;
+            }
+
+            @Override
+            public Void visitConditionalJump(ConditionalJumpInstruction instruction) {
+                writeByte(CONDITIONAL_JUMP);
+                writeExpression(instruction.getExpression());
+                writeLabel(instruction.getLabel());
+                return null;
+            }
+
+            @Override
+            public Void visitDup(DupInstruction instruction) {
+                writeByte(DUP);
+                return null;
+            }
+
+            @Override
+            public Void visitExpression(ExpressionInstruction instruction) {
+                writeByte(EXPRESSION);
+                writeExpression(instruction.getExpression());
+                return null;
+            }
+
+            @Override
+            public Void visitGoto(GotoInstruction instruction) {
+                writeByte(GOTO);
+                writeLabel(instruction.getLabel());
+                return null;
+            }
+
+            @Override
+            public Void visitMonitor(MonitorInstruction instruction) {
+                writeByte(MONITOR);
+                writeBoolean(instruction.isEnter());
+                writeExpression(instruction.getExpression());
+                return null;
+            }
+
+            @Override
+            public Void visitPush(PushInstruction instruction) {
+                writeByte(PUSH);
+                writeExpression(instruction.getExpression());
+                return null;
+            }
+
+            @Override
+            public Void visitReturn(ReturnInstruction instruction) {
+                writeByte(RETURN);
+                writeExpression(instruction.getExpression());
+                return null;
+            }
+
+            @Override
+            public Void visitSuperclassConstructorInvocation(
+                    SuperclassConstructorInvocation instruction) {
+                writeByte(SUPERCLASS_CONSTRUCTOR_INVOCATION);
+                writeArgs(instruction.getArgs());
+                return null;
+            }
+
+            @Override
+            public Void visitSwitch(SwitchInstruction instruction) {
+                writeByte(SWITCH);
+                writeExpression(instruction.getExpression());
+                writeInt(instruction.getCaseCount());
+                for (int i = 0; i < instruction.getCaseCount(); i++) {
+                    writeInt(instruction.getKey(i));
+                    writeLabel(instruction.getLabel(i));
+                }
+                writeLabel(instruction.getDefaultLabel());
+                return null;
+            }
+
+            @Override
+            public Void visitThrow(ThrowInstruction instruction) {
+                writeByte(THROW);
+                writeExpression(instruction.getExpression());
+                return null;
+            }
+
+            @Override
+            public Void visitArrayElement(ArrayElementExpression expression) {
+                writeByte(ARRAY_ELEMENT);
+                writeExpression(expression.getArray());
+                writeExpression(expression.getIndex());
+                return null;
+            }
+
+            @Override
+            public Void visitArrayInitializer(ArrayInitializerExpression expression) {
+                writeByte(ARRAY_INITIALIZER);
+                writeUTF(expression.getType().getDescriptor());
+                writeInt(expression.getLength());
+                for (int i = 0; i < expression.getLength(); i++) {
+                    writeExpression(expression.getElement(i));
+                }
+                return null;
+            }
+
+            @Override
+            public Void visitArrayLength(ArrayLengthExpression expression) {
+                writeByte(ARRAY_LENGTH);
+                writeExpression(expression.getArray());
+                return null;
+            }
+
+            @Override
+            public Void visitAssignment(AssignmentExpression expression) {
+                writeByte(ASSIGNMENT);
+                writeExpression(expression.getTarget());
+                writeExpression(expression.getExpression());
+                return null;
+            }
+
+            @Override
+            public Void visitBinary(BinaryExpression expression) {
+                writeByte(BINARY);
+                writeExpression(expression.getOperand1());
+                writeExpression(expression.getOperand2());
+                writeUTF(expression.getOperator().getSymbol());
+                return null;
+            }
+
+            @Override
+            public Void visitCast(CastExpression expression) {
+                writeByte(CAST);
+                writeUTF(expression.getType().getDescriptor());
+                writeExpression(expression.getExpression());
+                return null;
+            }
+
+            @Override
+            public Void visitCaughtException(CaughtExceptionExpression expression) {
+                String type = expression.getType();
+                writeByte(CAUGHT_EXCEPTION);
+                writeBoolean(type != null);
+                if (type != null) {
+                    writeUTF(type);
+                }
+                return null;
+            }
+
+            @Override
+            public Void visitCompare(CompareExpression expression) {
+                writeByte(COMPARE);
+                writeExpression(expression.getOperand1());
+                writeExpression(expression.getOperand2());
+                writeByte(expression.getNanResult());
+                return null;
+            }
+
+            @Override
+            public Void visitConditional(ConditionalExpression expression) {
+                writeByte(CONDITIONAL);
+                writeExpression(expression.getCondition());
+                writeExpression(expression.getExpression1());
+                writeExpression(expression.getExpression2());
+                return null;
+            }
+
+            @Override
+            public Void visitDoubleConstant(DoubleConstantExpression expression) {
+                writeByte(CONSTANT);
+                writeByte(DOUBLE);
+                writeDouble(expression.getDoubleValue());
+                return null;
+            }
+
+            @Override
+            public Void visitField(FieldExpression expression) {
+                writeByte(FIELD);
+                writeUTF(expression.getOwner());
+                writeExpression(expression.getTarget());
+                writeUTF(expression.getName());
+                return null;
+            }
+
+            @Override
+            public Void visitFloatConstant(FloatConstantExpression expression) {
+                writeByte(CONSTANT);
+                writeByte(FLOAT);
+                writeFloat(expression.getFloatValue());
+                return null;
+            }
+
+            @Override
+            public Void visitInstanceOf(InstanceOfExpression expression) {
+                writeByte(INSTANCE_OF);
+                writeExpression(expression.getExpression());
+                writeUTF(expression.getType());
+                return null;
+            }
+
+            @Override
+            public Void visitIntConstant(IntConstantExpression expression) {
+                writeByte(CONSTANT);
+                writeByte(INTEGER);
+                writeInt(expression.getIntValue());
+                return null;
+            }
+
+            @Override
+            public Void visitInvokeDynamic(InvokeDynamicExpression expression) {
+                writeByte(INVOKE_DYNAMIC);
+                writeUTF(expression.getName());
+                writeArgs(expression.getArgs());
+                return null;
+            }
+
+            @Override
+            public Void visitInvokeMethod(InvokeMethodExpression expression) {
+                writeByte(INVOKE_METHOD);
+                writeExpression(expression.getTarget());
+                writeUTF(expression.getName());
+                writeArgs(expression.getArgs());
+                return null;
+            }
+
+            @Override
+            public Void visitInvokeStaticMethod(InvokeStaticMethodExpression expression) {
+                writeByte(INVOKE_STATIC_METHOD);
+                writeUTF(expression.getOwner());
+                writeUTF(expression.getName());
+                writeArgs(expression.getArgs());
+                return null;
+            }
+
+            @Override
+            public Void visitLongConstant(LongConstantExpression expression) {
+                writeByte(CONSTANT);
+                writeByte(LONG);
+                writeLong(expression.getLongValue());
+                return null;
+            }
+
+            @Override
+            public Void visitNegation(NegationExpression expression) {
+                writeByte(NEGATION);
+                writeExpression(expression.getOperand());
+                return null;
+            }
+
+            @Override
+            public Void visitNewArray(NewArrayExpression expression) {
+                writeByte(NEW_ARRAY);
+                writeUTF(expression.getType().getDescriptor());
+                writeArgs(expression.getDimensions());
+                return null;
+            }
+
+            @Override
+            public Void visitNew(NewExpression expression) {
+                writeByte(NEW);
+                writeUTF(expression.getType());
+                writeArgs(expression.getArgs());
+                return null;
+            }
+
+            @Override
+            public Void visitPostIncrement(PostIncrementExpression expression) {
+                writeByte(POST_INCREMENT);
+                writeShort(expression.getVarIndex());
+                writeShort(expression.getIncrement());
+                return null;
+            }
+
+            @Override
+            public Void visitPreIncrement(PreIncrementExpression expression) {
+                writeByte(PRE_INCREMENT);
+                writeShort(expression.getVarIndex());
+                writeShort(expression.getIncrement());
+                return null;
+            }
+
+            @Override
+            public Void visitRawNew(RawNewExpression expression) {
+                writeByte(RAW_NEW);
+                writeUTF(expression.getType());
+                return null;
+            }
+
+            @Override
+            public Void visitReferenceConstant(ReferenceConstantExpression expression) {
+                Object value = expression.getValue();
+                writeByte(CONSTANT);
+                if (value == null) {
+                    writeByte(NULL_CONSTANT);
+                } else if (value instanceof String) {
+                    writeByte(STRING);
+                    writeUTF((String) value);
+                } else if (value instanceof Type) {
+                    writeByte(TYPE);
+                    writeUTF(((Type) value).getDescriptor());
+                } else {
+                    // Method handles and dynamic constants are not supported.
+                    throw new UncheckedIOException(
+                            new NotSerializableException(value.getClass().getName()));
+                }
+                return null;
+            }
+
+            @Override
+            public Void visitVariable(VariableExpression expression) {
+                writeByte(VARIABLE);
+                writeShort(expression.getVarIndex());
+                return null;
+            }
+        }
+    }
+
+    static final class Reader {
+        private final DataInput in;
+        private final List<Label> labels = new ArrayList<>();
+
+        Reader(DataInput in) {
+            this.in = in;
+        }
+
+        List<Instruction> readInstructions() throws IOException {
+            labels.clear();
+            int count = in.readInt();
+            List<Instruction> instructions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                instructions.add(readInstruction());
+            }
+            return instructions;
+        }
+
+        List<Frame> readFrames() throws IOException {
+            int count = in.readInt();
+            List<Frame> frames = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Label label = readLabel();
+                Object[] locals = new Object[in.readUnsignedShort()];
+                for (int j = 0; j < locals.length; j++) {
+                    locals[j] = readFrameType();
+                }
+                Object[] stack = new Object[in.readUnsignedShort()];
+                for (int j = 0; j < stack.length; j++) {
+                    stack[j] = readFrameType();
+                }
+                frames.add(new Frame(label, locals, stack));
+            }
+            return frames;
+        }
+
+        Map<Label, Integer> readLabelPositions() throws IOException {
+            int count = in.readInt();
+            IdentityHashMap<Label, Integer> labelPositions = new IdentityHashMap<>();
+            for (int i = 0; i < count; i++) {
+                Label label = readLabel();
+                labelPositions.put(label, in.readInt());
+            }
+            return labelPositions;
+        }
+
+        List<TryCatchBlock> readTryCatchBlocks() throws IOException {
+            int count = in.readInt();
+            List<TryCatchBlock> tryCatchBlocks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int start = in.readInt();
+                int end = in.readInt();
+                int handler = in.readInt();
+                tryCatchBlocks.add(
+                        new TryCatchBlock(
+                                start, end, handler, in.readBoolean() ? in.readUTF() : null));
+            }
+            return tryCatchBlocks;
+        }
+
+        private Object readFrameType() throws IOException {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case FRAME_PRIMITIVE:
+                    return in.readUnsignedByte();
+                case FRAME_REFERENCE:
+                    return SymbolTable.canonicalize(in.readUTF());
+                case FRAME_UNINITIALIZED:
+                    return readLabel();
+                default:
+                    throw new StreamCorruptedException("Unexpected frame type tag " + tag);
+            }
+        }
+
+        private Label readLabel() throws IOException {
+            int id = in.readInt();
+            while (labels.size() <= id) {
+                labels.add(new Label());
+            }
+            return labels.get(id);
+        }
+
+        private Expression[] readArgs() throws IOException {
+            Expression[] args = new Expression[in.readUnsignedShort()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = readExpression();
+            }
+            return args;
+        }
+
+        private Instruction readInstruction() throws IOException {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case CONDITIONAL_JUMP:
+                    {
+                        Expression expression = readExpression();
+                        return new ConditionalJumpInstruction(expression, readLabel());
+                    }
+                case DUP:
+                    return DupInstruction.INSTANCE;
+                case EXPRESSION:
+                    return new ExpressionInstruction(readExpression());
+                case GOTO:
+                    return new GotoInstruction(readLabel());
+                case PUSH:
+                    return new PushInstruction(readExpression());
+                case RETURN:
+                    return new ReturnInstruction(readExpression());
+                case SUPERCLASS_CONSTRUCTOR_INVOCATION:
+                    return new SuperclassConstructorInvocation(readArgs());
+                case MONITOR:
+                    {
+                        boolean enter = in.readBoolean();
+                        return new MonitorInstruction(enter, readExpression());
+                    }
+                case SWITCH:
+                    {
+                        Expression expression = readExpression();
+                        int[] keys = new int[in.readInt()];
+                        Label[] targets = new Label[keys.length];
+                        for (int i = 0; i < keys.length; i++) {
+                            keys[i] = in.readInt();
+                            targets[i] = readLabel();
+                        }
+                        return new SwitchInstruction(expression, keys, targets, readLabel());
+                    }
+                case THROW:
+                    return new ThrowInstruction(readExpression());
+                case BYTECODE:
+                    return new BytecodeInstruction(in.readUTF());
+                default:
+                    throw new StreamCorruptedException("Unexpected instruction tag " + tag);
+            }
+        }
+
+        private Expression readExpression() throws IOException {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case ARRAY_ELEMENT:
+                    {
+                        Expression array = readExpression();
+                        return new ArrayElementExpression(array, readExpression());
+                    }
+                case ARRAY_INITIALIZER:
+                    {
+                        Type type = Type.getType(in.readUTF());
+                        Expression[] elements = new Expression[in.readInt()];
+                        for (int i = 0; i < elements.length; i++) {
+                            elements[i] = readExpression();
+                        }
+                        return new ArrayInitializerExpression(type, elements);
+                    }
+                case ARRAY_LENGTH:
+                    return new ArrayLengthExpression(readExpression());
+                case ASSIGNMENT:
+                    {
+                        LvalueExpression target = (LvalueExpression) readExpression();
+                        return new AssignmentExpression(target, readExpression());
+                    }
+                case BINARY:
+                    {
+                        Expression operand1 = readExpression();
+                        Expression operand2 = readExpression();
+                        return new BinaryExpression(
+                                operand1, operand2, BinaryOperator.forSymbol(in.readUTF()));
+                    }
+                case CAST:
+                    {
+                        Type type = Type.getType(in.readUTF());
+                        return new CastExpression(type, readExpression());
+                    }
+                case CAUGHT_EXCEPTION:
+                    return new CaughtExceptionExpression(in.readBoolean() ? in.readUTF() : null);
+                case COMPARE:
+                    {
+                        Expression operand1 = readExpression();
+                        Expression operand2 = readExpression();
+                        return new CompareExpression(operand1, operand2, in.readByte());
+                    }
+                case CONDITIONAL:
+                    {
+                        Expression condition = readExpression();
+                        Expression expression1 = readExpression();
+                        return new ConditionalExpression(condition, expression1, readExpression());
+                    }
+                case CONSTANT:
+                    return readConstant();
+                case FIELD:
+                    {
+                        String owner = in.readUTF();
+                        Expression target = readExpression();
+                        return new FieldExpression(owner, target, in.readUTF());
+                    }
+                case INSTANCE_OF:
+                    {
+                        Expression expression = readExpression();
+                        return new InstanceOfExpression(expression, in.readUTF());
+                    }
+                case INVOKE_DYNAMIC:
+                    {
+                        String name = in.readUTF();
+                        return new InvokeDynamicExpression(name, readArgs());
+                    }
+                case INVOKE_STATIC_METHOD:
+                    {
+                        String owner = in.readUTF();
+                        String name = in.readUTF();
+                        return new InvokeStaticMethodExpression(owner, name, readArgs());
+                    }
+                case INVOKE_METHOD:
+                    {
+                        Expression target = readExpression();
+                        String name = in.readUTF();
+                        return new InvokeMethodExpression(target, name, readArgs());
+                    }
+                case NEGATION:
+                    return new NegationExpression(readExpression());
+                case NEW_ARRAY:
+                    {
+                        Type type = Type.getType(in.readUTF());
+                        return new NewArrayExpression(type, readArgs());
+                    }
+                case NEW:
+                    {
+                        String type = in.readUTF();
+                        return new NewExpression(type, readArgs());
+                    }
+                case POST_INCREMENT:
+                    {
+                        int varIndex = in.readUnsignedShort();
+                        return new PostIncrementExpression(varIndex, in.readShort());
+                    }
+                case PRE_INCREMENT:
+                    {
+                        int varIndex = in.readUnsignedShort();
+                        return new PreIncrementExpression(varIndex, in.readShort());
+                    }
+                case RAW_NEW:
+                    return new RawNewExpression(in.readUTF());
+                case VARIABLE:
+                    return new VariableExpression(in.readUnsignedShort());
+                default:
+                    throw new StreamCorruptedException("Unexpected expression tag " + tag);
+            }
+        }
+
+        private ConstantExpression readConstant() throws IOException {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case STRING:
+                    return new ReferenceConstantExpression(in.readUTF());
+                case INTEGER:
+                    return IntConstantExpression.valueOf(in.readInt());
+                case LONG:
+                    return new LongConstantExpression(in.readLong());
+                case FLOAT:
+                    return new FloatConstantExpression(in.readFloat());
+                case DOUBLE:
+                    return new DoubleConstantExpression(in.readDouble());
+                case TYPE:
+                    return new ReferenceConstantExpression(Type.getType(in.readUTF()));
+                case NULL_CONSTANT:
+                    return ReferenceConstantExpression.NULL;
+                default:
+                    throw new StreamCorruptedException("Unexpected constant tag " + tag);
+            }
+        }
+    }
+}
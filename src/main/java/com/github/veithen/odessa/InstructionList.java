@@ -19,47 +19,82 @@
  */
 package com.github.veithen.odessa;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
 
 import org.objectweb.asm.Label;
 
+/**
+ * List of statements with the label of the first bytecode instruction that contributed to each of
+ * them. The backing arrays are retained by {@link #clear()} so that instances can be reused.
+ */
 public final class InstructionList {
-    private final Deque<LabelledInstruction> instructions = new ArrayDeque<>();
+    private Instruction[] instructions = new Instruction[32];
+    private Label[] labels = new Label[32];
+    private int size;
     private Label nextLabel;
 
+    public Label getNextLabel() {
+        return nextLabel;
+    }
+
     public void setNextLabel(Label label) {
         nextLabel = label;
     }
 
+    public int size() {
+        return size;
+    }
+
     public void push(Instruction instruction) {
         if (nextLabel == null) {
-            throw new IllegalStateException();
+            throw new DecompilationException("Statement inside an expression");
         }
-        instructions.addLast(new LabelledInstruction(nextLabel, instruction));
+        if (size == instructions.length) {
+            instructions = Arrays.copyOf(instructions, size * 2);
+            labels = Arrays.copyOf(labels, size * 2);
+        }
+        instructions[size] = instruction;
+        labels[size] = nextLabel;
+        size++;
     }
 
     public Instruction peek() {
-        return instructions.peekLast().getInstruction();
+        return size == 0 ? null : instructions[size - 1];
     }
 
     public Instruction pop() {
-        LabelledInstruction instruction = instructions.removeLast();
-        nextLabel = instruction.getLabel();
-        return instruction.getInstruction();
+        if (size == 0) {
+            throw new DecompilationException("No statement to remove");
+        }
+        size--;
+        Instruction instruction = instructions[size];
+        nextLabel = labels[size];
+        instructions[size] = null;
+        labels[size] = null;
+        return instruction;
+    }
+
+    public Instruction get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        return instructions[index];
     }
 
-    public Iterator<LabelledInstruction> descendingIterator() {
-        return instructions.descendingIterator();
+    /** Removes all instructions, keeping the allocated capacity. */
+    public void clear() {
+        Arrays.fill(instructions, 0, size, null);
+        Arrays.fill(labels, 0, size, null);
+        size = 0;
+        nextLabel = null;
     }
 
     public List<Instruction> getInstructions() {
-        List<Instruction> instructions = new ArrayList<>(this.instructions.size());
-        for (LabelledInstruction instruction : this.instructions) {
-            instructions.add(instruction.getInstruction());
+        List<Instruction> instructions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            instructions.add(this.instructions[i]);
         }
         return instructions;
     }
@@ -0,0 +1,49 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+/**
+ * Visitor for {@link Instruction}s. See {@link ExpressionVisitor}.
+ *
+ * @param <R> the result type
+ */
+public interface InstructionVisitor<R> {
+    R visitBytecode(BytecodeInstruction instruction);
+
+    R visitConditionalJump(ConditionalJumpInstruction instruction);
+
+    R visitDup(DupInstruction instruction);
+
+    R visitExpression(ExpressionInstruction instruction);
+
+    R visitGoto(GotoInstruction instruction);
+
+    R visitMonitor(MonitorInstruction instruction);
+
+    R visitPush(PushInstruction instruction);
+
+    R visitReturn(ReturnInstruction instruction);
+
+    R visitSuperclassConstructorInvocation(SuperclassConstructorInvocation instruction);
+
+    R visitSwitch(SwitchInstruction instruction);
+
+    R visitThrow(ThrowInstruction instruction);
+}
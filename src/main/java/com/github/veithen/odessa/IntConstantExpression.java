@@ -0,0 +1,83 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+
+/**
+ * An {@code int} constant. Instances for small values are preallocated, so that {@code ICONST_n},
+ * {@code BIPUSH} and most {@code SIPUSH} instructions don't allocate.
+ */
+public final class IntConstantExpression extends ConstantExpression {
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1023;
+    private static final IntConstantExpression[] cache =
+            new IntConstantExpression[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < cache.length; i++) {
+            cache[i] = new IntConstantExpression(CACHE_LOW + i);
+        }
+    }
+
+    private final int value;
+
+    private IntConstantExpression(int value) {
+        this.value = value;
+    }
+
+    public static IntConstantExpression valueOf(int value) {
+        return isCached(value) ? cache[value - CACHE_LOW] : new IntConstantExpression(value);
+    }
+
+    /** Determines if {@link #valueOf(int)} returns a shared instance for the given value. */
+    static boolean isCached(int value) {
+        return value >= CACHE_LOW && value <= CACHE_HIGH;
+    }
+
+    public int getIntValue() {
+        return value;
+    }
+
+    @Override
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        out.append(Integer.toString(value));
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return 0x434F + value;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof IntConstantExpression && ((IntConstantExpression) obj).value == value;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitIntConstant(this);
+    }
+}
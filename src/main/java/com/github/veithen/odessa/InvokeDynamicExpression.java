@@ -0,0 +1,77 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+
+/**
+ * {@code invokedynamic} call site, e.g. a lambda or a string concatenation. Only the name of the
+ * call site and the arguments are retained.
+ */
+public final class InvokeDynamicExpression extends Expression {
+    private final String name;
+    private final ArgList args;
+
+    public InvokeDynamicExpression(String name, Expression[] args) {
+        this.name = name;
+        this.args = new ArgList(args);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ArgList getArgs() {
+        return args;
+    }
+
+    @Override
+    public boolean isPure() {
+        return false;
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        out.append("indy:").append(name);
+        args.appendTo(out);
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return 31 * name.hashCode() + args.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof InvokeDynamicExpression)) {
+            return false;
+        }
+        InvokeDynamicExpression other = (InvokeDynamicExpression) obj;
+        return hashCode() == other.hashCode() && name.equals(other.name) && args.equals(other.args);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitInvokeDynamic(this);
+    }
+}
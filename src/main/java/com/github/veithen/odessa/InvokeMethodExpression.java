@@ -19,6 +19,9 @@
  */
 package com.github.veithen.odessa;
 
+import java.io.IOException;
+import java.util.Objects;
+
 public final class InvokeMethodExpression extends Expression {
     private final Expression target;
     private final String name;
@@ -26,17 +29,58 @@ public final class InvokeMethodExpression extends Expression {
 
     public InvokeMethodExpression(Expression target, String name, Expression[] args) {
         this.target = target;
-        this.name = name;
+        this.name = SymbolTable.canonicalize(name);
         this.args = new ArgList(args);
     }
 
+    public Expression getTarget() {
+        return target;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ArgList getArgs() {
+        return args;
+    }
+
     @Override
     public boolean isPure() {
         return false;
     }
 
     @Override
-    public String toString() {
-        return target + "." + name + args;
+    public void appendTo(Appendable out) throws IOException {
+        target.appendTo(out);
+        out.append('.').append(name);
+        args.appendTo(out);
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return (31 * Objects.hashCode(target) + name.hashCode()) * 31 + args.hashCode();
+    }
+
+    // Symbols are canonicalized by the constructor.
+    @SuppressWarnings("ReferenceEquality")
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof InvokeMethodExpression)) {
+            return false;
+        }
+        InvokeMethodExpression other = (InvokeMethodExpression) obj;
+        return hashCode() == other.hashCode()
+                && Objects.equals(target, other.target)
+                && name == other.name
+                && args.equals(other.args);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitInvokeMethod(this);
     }
 }
@@ -0,0 +1,85 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+
+public final class InvokeStaticMethodExpression extends Expression {
+    private final String owner;
+    private final String name;
+    private final ArgList args;
+
+    public InvokeStaticMethodExpression(String owner, String name, Expression[] args) {
+        this.owner = SymbolTable.canonicalize(owner);
+        this.name = SymbolTable.canonicalize(name);
+        this.args = new ArgList(args);
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ArgList getArgs() {
+        return args;
+    }
+
+    @Override
+    public boolean isPure() {
+        return false;
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        appendClassName(out, owner);
+        out.append('.').append(name);
+        args.appendTo(out);
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return (31 * owner.hashCode() + name.hashCode()) * 31 + args.hashCode();
+    }
+
+    // Symbols are canonicalized by the constructor.
+    @SuppressWarnings("ReferenceEquality")
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof InvokeStaticMethodExpression)) {
+            return false;
+        }
+        InvokeStaticMethodExpression other = (InvokeStaticMethodExpression) obj;
+        return hashCode() == other.hashCode()
+                && owner == other.owner
+                && name == other.name
+                && args.equals(other.args);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitInvokeStaticMethod(this);
+    }
+}
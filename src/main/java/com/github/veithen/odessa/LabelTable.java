@@ -0,0 +1,215 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import org.objectweb.asm.Label;
+
+/**
+ * Maps the labels of a method to dense int ids and keeps per label data in arrays indexed by these
+ * ids. Backing storage is retained by {@link #clear()}.
+ */
+final class LabelTable {
+    private final IdentityHashMap<Label, Integer> ids = new IdentityHashMap<>();
+    private Label[] labels = new Label[16];
+    private int[] positions = new int[16];
+    private int[] jumpCounts = new int[16];
+    private int[] jumpPositions = new int[16];
+    private boolean[] absorbed = new boolean[16];
+    private boolean[] handlers = new boolean[16];
+    private boolean[] frames = new boolean[16];
+    private String[] handlerTypes = new String[16];
+
+    /** Ids of the labels that have a position, in the order in which they were visited. */
+    private int[] visited = new int[16];
+
+    private int visitedCount;
+
+    int getId(Label label) {
+        Integer id = ids.get(label);
+        if (id != null) {
+            return id;
+        }
+        int newId = ids.size();
+        if (newId == labels.length) {
+            int capacity = newId * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            jumpCounts = Arrays.copyOf(jumpCounts, capacity);
+            jumpPositions = Arrays.copyOf(jumpPositions, capacity);
+            absorbed = Arrays.copyOf(absorbed, capacity);
+            handlers = Arrays.copyOf(handlers, capacity);
+            frames = Arrays.copyOf(frames, capacity);
+            handlerTypes = Arrays.copyOf(handlerTypes, capacity);
+            visited = Arrays.copyOf(visited, capacity);
+        }
+        labels[newId] = label;
+        positions[newId] = -1;
+        ids.put(label, newId);
+        return newId;
+    }
+
+    int size() {
+        return ids.size();
+    }
+
+    Label getLabel(int id) {
+        return labels[id];
+    }
+
+    /** Returns the index of the statement at the label, or -1 if the label hasn't been visited. */
+    int getPosition(int id) {
+        return positions[id];
+    }
+
+    void setPosition(int id, int position) {
+        positions[id] = position;
+        visited[visitedCount++] = id;
+    }
+
+    /**
+     * Determines if a label (other than the given one) at or after the given position is the target
+     * of a jump or starts an exception handler, i.e. if control can enter the statements from that
+     * position onwards other than by falling through. Labels with a stack map frame are considered
+     * as jump targets too, because they may be the target of a backward jump that hasn't been
+     * visited yet.
+     */
+    boolean hasTargetFrom(int position, int excludedId) {
+        // Positions increase in visit order, so only the most recently visited labels need to be
+        // checked.
+        for (int i = visitedCount - 1; i >= 0; i--) {
+            int id = visited[i];
+            if (positions[id] < position) {
+                break;
+            }
+            if (id != excludedId
+                    && !absorbed[id]
+                    && (jumpCounts[id] > 0 || handlers[id] || frames[id])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Updates the labels at or after the given position after the statements from that position
+     * onwards have been combined with the statement before them. The labels are moved to the new
+     * position and can no longer be the target of a jump.
+     */
+    void absorbFrom(int position, int newPosition) {
+        for (int i = visitedCount - 1; i >= 0; i--) {
+            int id = visited[i];
+            if (positions[id] < position) {
+                break;
+            }
+            positions[id] = newPosition;
+            absorbed[id] = true;
+        }
+    }
+
+    /** Returns the number of jump instructions that currently target the label. */
+    int getJumpCount(int id) {
+        return jumpCounts[id];
+    }
+
+    /**
+     * Adds a jump to the label.
+     *
+     * @param position the index of the jump instruction
+     */
+    void addJump(int id, int position) {
+        if (absorbed[id]) {
+            throw new DecompilationException("Jump into an expression");
+        }
+        jumpCounts[id]++;
+        jumpPositions[id] = position;
+    }
+
+    /**
+     * Returns the index of the last jump instruction added for the label. Values pushed after that
+     * instruction are not on the stack when control reaches the label through a jump.
+     */
+    int getLastJumpPosition(int id) {
+        return jumpPositions[id];
+    }
+
+    void setLastJumpPosition(int id, int position) {
+        jumpPositions[id] = position;
+    }
+
+    /**
+     * Removes a jump that has been absorbed into an expression. Once all jumps to a label have been
+     * absorbed, the label is inside an expression and can no longer be the target of a jump.
+     */
+    void absorbJump(int id) {
+        if (--jumpCounts[id] == 0) {
+            absorbed[id] = true;
+        }
+    }
+
+    /**
+     * Removes a jump that has been absorbed into an expression, without marking the label as
+     * absorbed. This is used if the label remains a valid jump target, e.g. because the caller is
+     * about to add another jump to it.
+     */
+    void removeJump(int id) {
+        jumpCounts[id]--;
+    }
+
+    /**
+     * Marks the label as the start of an exception handler. If several handlers with different
+     * types share the label, the type is widened to {@code Throwable}.
+     *
+     * @param type the internal name of the exception type, or {@code null} for any exception
+     */
+    void addHandler(int id, String type) {
+        if (!handlers[id]) {
+            handlers[id] = true;
+            handlerTypes[id] = type;
+        } else if (handlerTypes[id] != null && !handlerTypes[id].equals(type)) {
+            handlerTypes[id] = type == null ? null : "java/lang/Throwable";
+        }
+    }
+
+    void addFrame(int id) {
+        frames[id] = true;
+    }
+
+    boolean isHandler(int id) {
+        return handlers[id];
+    }
+
+    String getHandlerType(int id) {
+        return handlerTypes[id];
+    }
+
+    void clear() {
+        Arrays.fill(labels, 0, ids.size(), null);
+        Arrays.fill(jumpCounts, 0, ids.size(), 0);
+        Arrays.fill(absorbed, 0, ids.size(), false);
+        Arrays.fill(handlers, 0, ids.size(), false);
+        Arrays.fill(frames, 0, ids.size(), false);
+        Arrays.fill(handlerTypes, 0, ids.size(), null);
+        ids.clear();
+        visitedCount = 0;
+    }
+}
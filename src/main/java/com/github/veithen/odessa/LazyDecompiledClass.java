@@ -0,0 +1,65 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.objectweb.asm.ClassReader;
+
+/**
+ * A class whose methods are decompiled on demand. Creating an instance only reads the method
+ * metadata from the class file; each method is decompiled the first time it is accessed. Instances
+ * are thread-safe.
+ */
+public final class LazyDecompiledClass {
+    private final String name;
+    private final List<LazyMethod> methods;
+
+    LazyDecompiledClass(Decompiler decompiler, ClassReader reader) {
+        name = reader.getClassName();
+        int[] offsets = ClassFiles.getMethodOffsets(reader);
+        char[] buffer = new char[reader.getMaxStringLength()];
+        LazyMethod[] methods = new LazyMethod[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            int offset = offsets[i];
+            methods[i] =
+                    new LazyMethod(
+                            decompiler,
+                            reader,
+                            i,
+                            offset,
+                            reader.readUnsignedShort(offset),
+                            reader.readUTF8(offset + 2, buffer),
+                            reader.readUTF8(offset + 4, buffer));
+        }
+        this.methods = Collections.unmodifiableList(Arrays.asList(methods));
+    }
+
+    /** Returns the internal name of the class. */
+    public String getName() {
+        return name;
+    }
+
+    public List<LazyMethod> getMethods() {
+        return methods;
+    }
+}
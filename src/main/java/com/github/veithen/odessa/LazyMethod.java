@@ -0,0 +1,97 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.lang.ref.SoftReference;
+
+import org.objectweb.asm.ClassReader;
+
+/**
+ * A method of a {@link LazyDecompiledClass}. The metadata is available immediately; the decompiled
+ * method is computed on first access and kept in a soft reference, so that it may be reclaimed (and
+ * recomputed on the next access) under memory pressure.
+ */
+public final class LazyMethod {
+    private final Decompiler decompiler;
+    private final ClassReader reader;
+    private final int index;
+    private final int offset;
+    private final int access;
+    private final String name;
+    private final String descriptor;
+    private volatile SoftReference<DecompiledMethod> decompiledMethod;
+
+    LazyMethod(
+            Decompiler decompiler,
+            ClassReader reader,
+            int index,
+            int offset,
+            int access,
+            String name,
+            String descriptor) {
+        this.decompiler = decompiler;
+        this.reader = reader;
+        this.index = index;
+        this.offset = offset;
+        this.access = access;
+        this.name = name;
+        this.descriptor = descriptor;
+    }
+
+    public int getAccess() {
+        return access;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescriptor() {
+        return descriptor;
+    }
+
+    /** Returns the offset of the {@code method_info} structure in the class file. */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the decompiled method, decompiling it if necessary. Concurrent calls may decompile
+     * the method more than once, but always return equivalent results.
+     */
+    public DecompiledMethod getDecompiledMethod() {
+        SoftReference<DecompiledMethod> ref = decompiledMethod;
+        DecompiledMethod method = ref == null ? null : ref.get();
+        if (method == null) {
+            method =
+                    decompiler
+                            .decompileMethods(reader, index, index + 1, DecompilationFilter.ALL)
+                            .get(0);
+            decompiledMethod = new SoftReference<>(method);
+        }
+        return method;
+    }
+
+    /** Determines if the method has been decompiled and the result is still cached. */
+    public boolean isDecompiled() {
+        SoftReference<DecompiledMethod> ref = decompiledMethod;
+        return ref != null && ref.get() != null;
+    }
+}
@@ -0,0 +1,219 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Command line entry point. Decompiles JARs, directories and class files to a directory tree and
+ * prints a throughput summary at the end of the run. Alternatively starts a {@link
+ * DecompilationServer}.
+ */
+public final class Main {
+    /** Number of loose class files read into memory at once. */
+    private static final int BATCH_SIZE = 256;
+
+    /** Maximum size of the cache directory, in bytes. */
+    private static final long CACHE_SIZE = 1L << 30;
+
+    private Main() {}
+
+    private static void usage() {
+        System.err.println(
+                "Usage: odessa -o <output directory> [-j <threads>] [--cache <directory>]"
+                        + " <jar|directory|class file>...");
+        System.err.println("       odessa --server <port> [--cache <directory>]");
+        System.exit(2);
+    }
+
+    private static int parseInt(String option, String value, int min, int max) {
+        try {
+            int result = Integer.parseInt(value);
+            if (result >= min && result <= max) {
+                return result;
+            }
+        } catch (NumberFormatException ex) {
+            // Fall through
+        }
+        System.err.println("Invalid value for " + option + ": " + value);
+        usage();
+        return -1;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path outputDirectory = null;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        Path cacheDirectory = null;
+        int port = -1;
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("-")) {
+                if (i + 1 == args.length) {
+                    usage();
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "-o":
+                        outputDirectory = Paths.get(value);
+                        break;
+                    case "-j":
+                        parallelism = parseInt(arg, value, 1, Short.MAX_VALUE);
+                        break;
+                    case "--cache":
+                        cacheDirectory = Paths.get(value);
+                        break;
+                    case "--server":
+                        port = parseInt(arg, value, 0, 65535);
+                        break;
+                    default:
+                        usage();
+                }
+            } else {
+                inputs.add(Paths.get(arg));
+            }
+        }
+        Decompiler decompiler = new Decompiler();
+        decompiler.setFrameMode(FrameMode.SKIP);
+        decompiler.setFailureMode(FailureMode.FALLBACK);
+        if (cacheDirectory != null) {
+            decompiler.setCache(new DecompilationCache(cacheDirectory, CACHE_SIZE));
+        }
+        if (port != -1) {
+            serve(decompiler, port);
+        } else if (outputDirectory == null || inputs.isEmpty()) {
+            usage();
+        } else {
+            try {
+                decompile(decompiler, parallelism, inputs, outputDirectory);
+            } catch (IOException | RuntimeException | Error ex) {
+                // Includes StackOverflowError on pathological classes; the worker threads are
+                // daemon threads and don't prevent the JVM from exiting.
+                System.err.println("Decompilation failed: " + ex);
+                System.exit(1);
+            }
+        }
+    }
+
+    private static void serve(Decompiler decompiler, int port) throws IOException {
+        DecompilationServer server = new DecompilationServer(decompiler, port);
+        server.warmUp(20);
+        server.start();
+        System.err.println("Listening on port " + server.getPort());
+        // The server runs on daemon threads.
+        while (true) {
+            try {
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (InterruptedException ex) {
+                return;
+            }
+        }
+    }
+
+    private static void decompile(
+            Decompiler decompiler, int parallelism, List<Path> inputs, Path outputDirectory)
+            throws IOException {
+        long start = System.nanoTime();
+        List<MappedArchive> archives = new ArrayList<>();
+        List<Path> classFiles = new ArrayList<>();
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                List<Path> files = new ArrayList<>();
+                try (Stream<Path> stream = Files.walk(input)) {
+                    stream.filter(Files::isRegularFile).sorted().forEach(files::add);
+                }
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(".class")) {
+                        classFiles.add(file);
+                    } else if (name.endsWith(".jar")) {
+                        archives.add(MappedArchive.open(file));
+                    }
+                }
+            } else if (input.getFileName().toString().endsWith(".class")) {
+                classFiles.add(input);
+            } else {
+                archives.add(MappedArchive.open(input));
+            }
+        }
+        long bytes = 0;
+        for (MappedArchive archive : archives) {
+            for (ArchiveEntry entry : archive.getClassEntries()) {
+                bytes += entry.getSize();
+            }
+        }
+        long[] classCount = new long[1];
+        try (StreamingDecompiler streamingDecompiler =
+                new StreamingDecompiler(
+                        decompiler, parallelism, Runtime.getRuntime().maxMemory() / 4)) {
+            streamingDecompiler.decompile(
+                    archives,
+                    c -> {
+                        try {
+                            SourceRenderer.write(c, outputDirectory);
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                        classCount[0]++;
+                    });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        try (ParallelDecompiler parallelDecompiler =
+                new ParallelDecompiler(decompiler, parallelism)) {
+            for (int i = 0; i < classFiles.size(); i += BATCH_SIZE) {
+                List<byte[]> batch = new ArrayList<>();
+                for (Path file :
+                        classFiles.subList(i, Math.min(i + BATCH_SIZE, classFiles.size()))) {
+                    byte[] classFile = Files.readAllBytes(file);
+                    bytes += classFile.length;
+                    batch.add(classFile);
+                }
+                for (DecompiledClass decompiledClass : parallelDecompiler.decompile(batch)) {
+                    SourceRenderer.write(decompiledClass, outputDirectory);
+                    classCount[0]++;
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.println(
+                String.format(
+                        Locale.ROOT,
+                        "%d classes (%.0f/s), %d methods (%.0f/s, %d from cache), %.1f MB"
+                                + " (%.1f MB/s), %d failed methods in %.2f s",
+                        classCount[0],
+                        classCount[0] / seconds,
+                        decompiler.getMethodCount(),
+                        decompiler.getMethodCount() / seconds,
+                        decompiler.getCachedMethodCount(),
+                        bytes / 1e6,
+                        bytes / 1e6 / seconds,
+                        decompiler.getFailedMethodCount(),
+                        seconds));
+    }
+}
@@ -0,0 +1,225 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipException;
+
+/**
+ * ZIP/JAR archive read from a memory mapped file. The central directory is parsed directly from the
+ * mapping and entries are only decompressed on demand. Stored nested archives (as found in Spring
+ * Boot fat jars) are read as slices of the outer mapping.
+ */
+public final class MappedArchive {
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int EOCD_SIZE = 22;
+    private static final int ZIP64_EOCD_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_EOCD_SIZE = 56;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+
+    private final ByteBuffer buffer;
+    private final List<ArchiveEntry> entries;
+
+    private MappedArchive(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        entries = Collections.unmodifiableList(readCentralDirectory());
+    }
+
+    public static MappedArchive open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new ZipException("Archive too large to be mapped: " + path);
+            }
+            // The mapping remains valid after the channel is closed.
+            return new MappedArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    static MappedArchive wrap(ByteBuffer buffer) throws IOException {
+        return new MappedArchive(buffer);
+    }
+
+    private int u16(int offset) {
+        return buffer.getShort(offset) & 0xFFFF;
+    }
+
+    private long u32(int offset) {
+        return buffer.getInt(offset) & 0xFFFFFFFFL;
+    }
+
+    private static int toInt(long value) throws ZipException {
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new ZipException("Unsupported entry size or offset: " + value);
+        }
+        return (int) value;
+    }
+
+    private int findEndOfCentralDirectory() throws ZipException {
+        int limit = Math.max(0, buffer.limit() - EOCD_SIZE - 0xFFFF);
+        for (int offset = buffer.limit() - EOCD_SIZE; offset >= limit; offset--) {
+            if (buffer.getInt(offset) == EOCD_SIGNATURE
+                    && offset + EOCD_SIZE + u16(offset + 20) == buffer.limit()) {
+                return offset;
+            }
+        }
+        throw new ZipException("End of central directory record not found");
+    }
+
+    private List<ArchiveEntry> readCentralDirectory() throws IOException {
+        int eocd = findEndOfCentralDirectory();
+        long count = u16(eocd + 10);
+        long size = u32(eocd + 12);
+        long offset = u32(eocd + 16);
+        int end = eocd;
+        if (count == 0xFFFF || size == 0xFFFFFFFFL || offset == 0xFFFFFFFFL) {
+            int locator = eocd - 20;
+            if (locator >= 0 && buffer.getInt(locator) == ZIP64_EOCD_LOCATOR_SIGNATURE) {
+                // The offset in the locator is relative to the start of the archive. The record
+                // normally precedes the locator, which also works if the archive has a prefix. Only
+                // records with extensible data need the offset.
+                int zip64Eocd = locator - ZIP64_EOCD_SIZE;
+                if (zip64Eocd < 0
+                        || buffer.getInt(zip64Eocd) != ZIP64_EOCD_SIGNATURE
+                        || buffer.getLong(zip64Eocd + 4) != ZIP64_EOCD_SIZE - 12) {
+                    zip64Eocd = toInt(buffer.getLong(locator + 8));
+                }
+                if (buffer.getInt(zip64Eocd) != ZIP64_EOCD_SIGNATURE) {
+                    throw new ZipException("Invalid ZIP64 end of central directory record");
+                }
+                count = buffer.getLong(zip64Eocd + 32);
+                size = buffer.getLong(zip64Eocd + 40);
+                offset = buffer.getLong(zip64Eocd + 48);
+                // The central directory is followed by the ZIP64 record, not the locator.
+                end = zip64Eocd;
+            }
+        }
+        // Offsets are relative to the start of the archive, which is not necessarily the start of
+        // the file (e.g. executable jars with a launch script prepended to them).
+        int start = end - toInt(size);
+        int base = start - toInt(offset);
+        if (start < 0 || base < 0) {
+            throw new ZipException("Invalid central directory offset");
+        }
+        List<ArchiveEntry> entries = new ArrayList<>(toInt(Math.min(count, 0xFFFF)));
+        int pos = start;
+        for (long i = 0; i < count; i++) {
+            if (buffer.getInt(pos) != CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException("Invalid central directory header");
+            }
+            int method = u16(pos + 10);
+            long compressedSize = u32(pos + 20);
+            long uncompressedSize = u32(pos + 24);
+            int nameLength = u16(pos + 28);
+            int extraLength = u16(pos + 30);
+            int commentLength = u16(pos + 32);
+            long localHeaderOffset = u32(pos + 42);
+            int extra = pos + 46 + nameLength;
+            int extraEnd = extra + extraLength;
+            while (extra + 4 <= extraEnd) {
+                int id = u16(extra);
+                int length = u16(extra + 2);
+                if (id == ZIP64_EXTRA_ID) {
+                    int field = extra + 4;
+                    if (uncompressedSize == 0xFFFFFFFFL) {
+                        uncompressedSize = buffer.getLong(field);
+                        field += 8;
+                    }
+                    if (compressedSize == 0xFFFFFFFFL) {
+                        compressedSize = buffer.getLong(field);
+                        field += 8;
+                    }
+                    if (localHeaderOffset == 0xFFFFFFFFL) {
+                        localHeaderOffset = buffer.getLong(field);
+                    }
+                    break;
+                }
+                extra += 4 + length;
+            }
+            entries.add(
+                    new ArchiveEntry(
+                            this,
+                            readName(pos + 46, nameLength),
+                            method,
+                            toInt(compressedSize),
+                            toInt(uncompressedSize),
+                            base + toInt(localHeaderOffset)));
+            pos = extraEnd + commentLength;
+        }
+        return entries;
+    }
+
+    private String readName(int offset, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer dup = buffer.duplicate();
+        dup.position(offset);
+        dup.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a view of the raw (possibly compressed) data of the entry whose local file header is
+     * at the given offset.
+     */
+    ByteBuffer getData(int localHeaderOffset, int compressedSize) throws ZipException {
+        if (buffer.getInt(localHeaderOffset) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local file header");
+        }
+        int start =
+                localHeaderOffset + 30 + u16(localHeaderOffset + 26) + u16(localHeaderOffset + 28);
+        ByteBuffer data = buffer.duplicate();
+        data.limit(start + compressedSize);
+        data.position(start);
+        return data.slice();
+    }
+
+    public List<ArchiveEntry> getEntries() {
+        return entries;
+    }
+
+    /** Returns all class file entries of this archive, including the entries of nested archives. */
+    public List<ArchiveEntry> getClassEntries() throws IOException {
+        List<ArchiveEntry> result = new ArrayList<>();
+        collectClassEntries(result);
+        return result;
+    }
+
+    private void collectClassEntries(List<ArchiveEntry> result) throws IOException {
+        for (ArchiveEntry entry : entries) {
+            if (entry.isClass()) {
+                result.add(entry);
+            } else if (entry.isNestedArchive()) {
+                entry.openNested().collectClassEntries(result);
+            }
+        }
+    }
+}
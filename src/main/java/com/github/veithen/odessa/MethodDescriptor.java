@@ -0,0 +1,85 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.objectweb.asm.Type;
+
+/**
+ * Parsed method descriptor. Instances are cached and shared between threads, so that each distinct
+ * descriptor is only parsed once.
+ */
+public final class MethodDescriptor {
+    /** Beyond this size, new descriptors are still parsed, but no longer cached. */
+    private static final int MAX_CACHE_SIZE = 1 << 16;
+
+    private static final ConcurrentMap<String, MethodDescriptor> cache = new ConcurrentHashMap<>();
+
+    private final Type[] argumentTypes;
+    private final Type returnType;
+    private final int argumentSize;
+
+    private MethodDescriptor(String descriptor) {
+        argumentTypes = Type.getArgumentTypes(descriptor);
+        returnType = Type.getReturnType(descriptor);
+        int argumentSize = 0;
+        for (Type argumentType : argumentTypes) {
+            argumentSize += argumentType.getSize();
+        }
+        this.argumentSize = argumentSize;
+    }
+
+    public static MethodDescriptor get(String descriptor) {
+        MethodDescriptor result = cache.get(descriptor);
+        if (result == null) {
+            result = new MethodDescriptor(descriptor);
+            if (cache.size() < MAX_CACHE_SIZE) {
+                MethodDescriptor existing = cache.putIfAbsent(descriptor, result);
+                if (existing != null) {
+                    result = existing;
+                }
+            }
+        }
+        return result;
+    }
+
+    public int getArgumentCount() {
+        return argumentTypes.length;
+    }
+
+    public Type getArgumentType(int index) {
+        return argumentTypes[index];
+    }
+
+    /** Returns the number of local variable slots occupied by the arguments. */
+    public int getArgumentSize() {
+        return argumentSize;
+    }
+
+    public Type getReturnType() {
+        return returnType;
+    }
+
+    public boolean returnsVoid() {
+        return returnType.getSort() == Type.VOID;
+    }
+}
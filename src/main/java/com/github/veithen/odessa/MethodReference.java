@@ -0,0 +1,69 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.util.Objects;
+
+/** Identifies a method returned by a {@link SymbolIndex} query. */
+public final class MethodReference {
+    private final String className;
+    private final String name;
+    private final String descriptor;
+
+    public MethodReference(String className, String name, String descriptor) {
+        this.className = className;
+        this.name = name;
+        this.descriptor = descriptor;
+    }
+
+    /** Returns the internal name of the class declaring the method. */
+    public String getClassName() {
+        return className;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescriptor() {
+        return descriptor;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof MethodReference)) {
+            return false;
+        }
+        MethodReference other = (MethodReference) obj;
+        return className.equals(other.className)
+                && name.equals(other.name)
+                && descriptor.equals(other.descriptor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(className, name, descriptor);
+    }
+
+    @Override
+    public String toString() {
+        return className + "." + name + descriptor;
+    }
+}
@@ -19,49 +19,308 @@
  */
 package com.github.veithen.odessa;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
+import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 
+/**
+ * Decompiles a single method. Instances can be reused for several methods (see {@link #reset()}) so
+ * that the buffers are allocated only once.
+ */
 final class MethodVisitorImpl extends MethodVisitor {
+    private static final Object[] NO_FRAME_TYPES = new Object[0];
+
+    /** Handles an instruction without operand. */
+    @FunctionalInterface
+    private interface InsnHandler {
+        void handle(MethodVisitorImpl visitor, int opcode);
+    }
+
+    /** Handlers for {@link #visitInsn(int)}, indexed by opcode. */
+    private static final InsnHandler[] insnHandlers = new InsnHandler[256];
+
+    /** Operators of the arithmetic instructions and conditional jumps, indexed by opcode. */
+    private static final BinaryOperator[] operators = new BinaryOperator[256];
+
+    /** Values pushed by {@code ACONST_NULL} to {@code DCONST_1}. */
+    private static final ConstantExpression[] constants = {
+        ReferenceConstantExpression.NULL,
+        IntConstantExpression.valueOf(-1),
+        IntConstantExpression.valueOf(0),
+        IntConstantExpression.valueOf(1),
+        IntConstantExpression.valueOf(2),
+        IntConstantExpression.valueOf(3),
+        IntConstantExpression.valueOf(4),
+        IntConstantExpression.valueOf(5),
+        new LongConstantExpression(0L),
+        new LongConstantExpression(1L),
+        new FloatConstantExpression(0.0f),
+        new FloatConstantExpression(1.0f),
+        new FloatConstantExpression(2.0f),
+        new DoubleConstantExpression(0.0d),
+        new DoubleConstantExpression(1.0d)
+    };
+
+    /** Result types of the primitive conversions, indexed by opcode. */
+    private static final Type[] conversionTypes = new Type[256];
+
+    /**
+     * Size (in words) of the value pushed or consumed by typed instructions (constants, loads,
+     * stores, arithmetic etc.), indexed by opcode.
+     */
+    private static final byte[] valueSizes = new byte[256];
+
+    /** Array types created by {@code NEWARRAY}, indexed by operand. */
+    private static final Type[] primitiveArrayTypes = new Type[Opcodes.T_LONG + 1];
+
+    static {
+        insnHandlers[Opcodes.NOP] = (visitor, opcode) -> {};
+        register(Opcodes.ACONST_NULL, "LIIIIIIIJJFFFDD", MethodVisitorImpl::pushConstant);
+        register(Opcodes.ILOAD, "IJFDL", null);
+        register(Opcodes.IALOAD, "IJFDLBCS", MethodVisitorImpl::arrayLoad);
+        register(Opcodes.ISTORE, "IJFDL", null);
+        register(Opcodes.IASTORE, "IJFDLBCS", (visitor, opcode) -> visitor.arrayStore());
+        insnHandlers[Opcodes.POP] =
+                (visitor, opcode) ->
+                        visitor.instructions.push(
+                                new ExpressionInstruction(visitor.popExpression()));
+        insnHandlers[Opcodes.POP2] = (visitor, opcode) -> visitor.pop2();
+        insnHandlers[Opcodes.DUP] = (visitor, opcode) -> visitor.stack.dup();
+        insnHandlers[Opcodes.DUP_X1] = (visitor, opcode) -> visitor.dupX(1, 1);
+        insnHandlers[Opcodes.DUP_X2] = (visitor, opcode) -> visitor.dupX(1, 2);
+        insnHandlers[Opcodes.DUP2] = (visitor, opcode) -> visitor.dup2();
+        insnHandlers[Opcodes.DUP2_X1] = (visitor, opcode) -> visitor.dupX(2, 1);
+        insnHandlers[Opcodes.DUP2_X2] = (visitor, opcode) -> visitor.dupX(2, 2);
+        insnHandlers[Opcodes.SWAP] = (visitor, opcode) -> visitor.swap();
+        BinaryOperator[] arithmeticOperators = {
+            BinaryOperator.ADDITION,
+            BinaryOperator.SUBTRACTION,
+            BinaryOperator.MULTIPLICATION,
+            BinaryOperator.DIVISION,
+            BinaryOperator.REMAINDER
+        };
+        for (int i = 0; i < arithmeticOperators.length; i++) {
+            registerBinary(Opcodes.IADD + 4 * i, "IJFD", arithmeticOperators[i]);
+        }
+        register(
+                Opcodes.INEG,
+                "IJFD",
+                (visitor, opcode) ->
+                        visitor.push(
+                                new NegationExpression(visitor.popExpression()),
+                                valueSizes[opcode]));
+        registerBinary(Opcodes.ISHL, "IJ", BinaryOperator.SHIFT_LEFT);
+        registerBinary(Opcodes.ISHR, "IJ", BinaryOperator.SHIFT_RIGHT);
+        registerBinary(Opcodes.IUSHR, "IJ", BinaryOperator.UNSIGNED_SHIFT_RIGHT);
+        registerBinary(Opcodes.IAND, "IJ", BinaryOperator.AND);
+        registerBinary(Opcodes.IOR, "IJ", BinaryOperator.OR);
+        registerBinary(Opcodes.IXOR, "IJ", BinaryOperator.XOR);
+        String conversions = "JFDIFDIJDIJFBCS";
+        register(Opcodes.I2L, conversions, MethodVisitorImpl::addConversion);
+        for (int i = 0; i < conversions.length(); i++) {
+            conversionTypes[Opcodes.I2L + i] = Type.getType(conversions.substring(i, i + 1));
+        }
+        register(Opcodes.LCMP, "IIIII", MethodVisitorImpl::addComparison);
+        BinaryOperator[] comparisonOperators = {
+            BinaryOperator.EQUALS,
+            BinaryOperator.NOT_EQUALS,
+            BinaryOperator.LESS_THAN,
+            BinaryOperator.GREATER_THAN_OR_EQUAL,
+            BinaryOperator.GREATER_THAN,
+            BinaryOperator.LESS_THAN_OR_EQUAL
+        };
+        for (int i = 0; i < comparisonOperators.length; i++) {
+            operators[Opcodes.IFEQ + i] = comparisonOperators[i];
+            operators[Opcodes.IF_ICMPEQ + i] = comparisonOperators[i];
+        }
+        operators[Opcodes.IF_ACMPEQ] = BinaryOperator.EQUALS;
+        operators[Opcodes.IF_ACMPNE] = BinaryOperator.NOT_EQUALS;
+        operators[Opcodes.IFNULL] = BinaryOperator.EQUALS;
+        operators[Opcodes.IFNONNULL] = BinaryOperator.NOT_EQUALS;
+        register(
+                Opcodes.IRETURN,
+                "IJFDL",
+                (visitor, opcode) ->
+                        visitor.instructions.push(new ReturnInstruction(visitor.popExpression())));
+        insnHandlers[Opcodes.RETURN] =
+                (visitor, opcode) -> visitor.instructions.push(new ReturnInstruction(null));
+        insnHandlers[Opcodes.ARRAYLENGTH] =
+                (visitor, opcode) ->
+                        visitor.push(new ArrayLengthExpression(visitor.popExpression()));
+        insnHandlers[Opcodes.ATHROW] =
+                (visitor, opcode) ->
+                        visitor.instructions.push(new ThrowInstruction(visitor.popExpression()));
+        insnHandlers[Opcodes.MONITORENTER] =
+                (visitor, opcode) ->
+                        visitor.instructions.push(
+                                new MonitorInstruction(true, visitor.popExpression()));
+        insnHandlers[Opcodes.MONITOREXIT] =
+                (visitor, opcode) ->
+                        visitor.instructions.push(
+                                new MonitorInstruction(false, visitor.popExpression()));
+        String primitiveArrayTypeDescriptors = "[Z[C[F[D[B[S[I[J";
+        for (int i = 0; i < 8; i++) {
+            primitiveArrayTypes[Opcodes.T_BOOLEAN + i] =
+                    Type.getType(primitiveArrayTypeDescriptors.substring(2 * i, 2 * i + 2));
+        }
+    }
+
+    /**
+     * Registers a group of consecutive opcodes that only differ by the type of the value they
+     * operate on.
+     *
+     * @param types the descriptors of the types, one character per opcode
+     * @param handler the handler for the opcodes, or {@code null} if they are not dispatched
+     *     through {@link #insnHandlers}
+     */
+    private static void register(int firstOpcode, String types, InsnHandler handler) {
+        for (int i = 0; i < types.length(); i++) {
+            char type = types.charAt(i);
+            valueSizes[firstOpcode + i] = (byte) (type == 'J' || type == 'D' ? 2 : 1);
+            insnHandlers[firstOpcode + i] = handler;
+        }
+    }
+
+    private static void registerBinary(int firstOpcode, String types, BinaryOperator operator) {
+        register(firstOpcode, types, MethodVisitorImpl::addBinaryExpression);
+        for (int i = 0; i < types.length(); i++) {
+            operators[firstOpcode + i] = operator;
+        }
+    }
+
+    private static final ThreadLocal<MethodVisitorImpl> instances =
+            ThreadLocal.withInitial(MethodVisitorImpl::new);
+
     private final InstructionList instructions = new InstructionList();
+    private final OperandStack stack = new OperandStack(instructions);
+    private final ExpressionInterner interner = new ExpressionInterner();
+    private final LabelTable labels = new LabelTable();
+    private final List<Frame> frames = new ArrayList<>();
+
+    /** Ids of the start, end and handler labels of each try-catch block. */
+    private int[] tryCatchLabels = new int[12];
+
+    private final List<String> tryCatchTypes = new ArrayList<>();
+    private Consumer<MethodVisitorImpl> resultConsumer;
+    private boolean inUse;
 
     MethodVisitorImpl() {
         super(Opcodes.ASM9);
     }
 
+    /**
+     * Gets the instance for the current thread, or a new instance if that one is already in use.
+     * The instance must be returned using {@link #release()}.
+     */
+    static MethodVisitorImpl acquire() {
+        MethodVisitorImpl visitor = instances.get();
+        if (visitor.inUse) {
+            visitor = new MethodVisitorImpl();
+        }
+        visitor.inUse = true;
+        return visitor;
+    }
+
+    void release() {
+        reset();
+        interner.clear();
+        resultConsumer = null;
+        inUse = false;
+    }
+
+    /** Prepares the instance for the next method. */
+    void reset() {
+        instructions.clear();
+        stack.clear();
+        labels.clear();
+        frames.clear();
+        tryCatchTypes.clear();
+    }
+
+    /** Sets the consumer that is notified in {@link #visitEnd()} to collect the results. */
+    void setResultConsumer(Consumer<MethodVisitorImpl> resultConsumer) {
+        this.resultConsumer = resultConsumer;
+    }
+
+    private void push(Expression expression) {
+        push(expression, 1);
+    }
+
+    private void push(Expression expression, int size) {
+        stack.push(interner.intern(expression), size);
+    }
+
     private Expression popExpression() {
-        boolean isDup = false;
-        for (Iterator<LabelledInstruction> it = instructions.descendingIterator(); it.hasNext(); ) {
-            Instruction instruction = it.next().getInstruction();
-            if (instruction instanceof PushInstruction) {
-                Expression expression = ((PushInstruction) instruction).getExpression();
-                if (isDup && !expression.isPure()) {
-                    throw new IllegalStateException();
-                }
-                instructions.pop();
-                return expression;
-            }
-            if (instruction instanceof DupInstruction) {
-                isDup = true;
-            } else {
-                break;
+        if (stack.isEmpty()
+                || !(stack.isAvailable(0) || canDefer(stack.get(0), stack.getMark(0)))) {
+            throw new DecompilationException("Operand not available");
+        }
+        Expression expression = stack.get(0);
+        if ((stack.isDup(0) && !expression.isPure()) || stack.isPending(0)) {
+            throw new DecompilationException("Operand consumed twice");
+        }
+        stack.pop();
+        return expression;
+    }
+
+    /**
+     * Determines if the evaluation of a value can be moved after the statements that have been
+     * emitted since the given mark. This is the case for constants, as well as for local variables
+     * if the statements are {@code MONITOREXIT} instructions (as in a {@code return} from a {@code
+     * synchronized} block).
+     */
+    private boolean canDefer(Expression expression, int mark) {
+        if (expression instanceof ConstantExpression) {
+            return true;
+        }
+        if (!(expression instanceof VariableExpression)) {
+            return false;
+        }
+        for (int i = mark; i < instructions.size(); i++) {
+            if (!(instructions.get(i) instanceof MonitorInstruction)) {
+                return false;
             }
         }
-        throw new IllegalStateException();
+        return true;
+    }
+
+    /**
+     * Adds an assignment that consumed the given value. If a copy of the value (created by {@code
+     * DUP_X1} or similar) is on top of the stack, the assignment is used as an expression that
+     * replaces the copy; otherwise it becomes a statement. A copy of a value that is not pure is
+     * always a pending slot; an equal but unrelated value (e.g. a second invocation of the same
+     * method) must not be merged with the assignment.
+     */
+    private void addAssignment(AssignmentExpression assignment, Expression value) {
+        if (!stack.isEmpty()
+                && (stack.isPending(0) || value.isPure())
+                && stack.get(0).equals(value)
+                && !stack.isDup(0)
+                && stack.isAvailable(0)) {
+            int size = stack.getSize(0);
+            stack.pop();
+            push(assignment, size);
+        } else {
+            instructions.push(new ExpressionInstruction(assignment));
+        }
     }
 
     private Expression peekExpression() {
-        Instruction instruction = instructions.peek();
-        if (!(instruction instanceof PushInstruction)) {
+        if (stack.isEmpty() || stack.isDup(0) || !stack.isAvailable(0)) {
             return null;
         }
-        return ((PushInstruction) instruction).getExpression();
+        return stack.get(0);
     }
 
     private <T extends Expression> T peekExpression(Class<T> type) {
@@ -71,22 +330,14 @@ final class MethodVisitorImpl extends MethodVisitor {
 
     private <T extends Expression> boolean consumeTopOfStackExpression(
             Class<T> type, Function<T, Expression> transformation) {
-        Expression currentExpression = null;
-        boolean lastInstructionIsDup = false;
-        for (Iterator<LabelledInstruction> it = instructions.descendingIterator(); it.hasNext(); ) {
-            Instruction instruction = it.next().getInstruction();
-            if (instruction instanceof PushInstruction) {
-                currentExpression = ((PushInstruction) instruction).getExpression();
-                break;
-            } else if (instruction instanceof DupInstruction) {
-                if (lastInstructionIsDup) {
-                    return false;
-                }
-                lastInstructionIsDup = true;
-            } else {
-                return false;
-            }
+        if (stack.isEmpty() || !stack.isAvailable(0)) {
+            return false;
+        }
+        boolean isDup = stack.isDup(0);
+        if (isDup && stack.isDup(1)) {
+            return false;
         }
+        Expression currentExpression = stack.get(0);
         if (!type.isInstance(currentExpression)) {
             return false;
         }
@@ -94,84 +345,273 @@ final class MethodVisitorImpl extends MethodVisitor {
         if (newExpression == null) {
             return false;
         }
-        if (lastInstructionIsDup) {
-            instructions.pop();
-            instructions.pop();
-            instructions.push(new PushInstruction(newExpression));
+        if (isDup) {
+            int size = stack.getSize(1);
+            stack.pop();
+            stack.pop();
+            push(newExpression, size);
         } else {
-            instructions.pop();
+            stack.pop();
             instructions.push(new ExpressionInstruction(newExpression));
         }
         return true;
     }
 
+    /** Returns the number of stack slots that make up the given number of words. */
+    private int getSlotCount(int fromTop, int words) {
+        int slot = fromTop;
+        while (words > 0) {
+            words -= stack.getSize(slot++);
+        }
+        if (words != 0) {
+            throw new DecompilationException("Stack value split");
+        }
+        return slot - fromTop;
+    }
+
+    /**
+     * Duplicates the given number of words at the top of the stack and inserts the copies below the
+     * following {@code skipWords} words. Values that are not pure would be evaluated more than once
+     * by the decompiled code; this is only supported for a single value that is subsequently
+     * assigned, in which case the copy becomes a pending slot (see {@link #addAssignment}).
+     */
+    private void dupX(int words, int skipWords) {
+        int count = getSlotCount(0, words);
+        int total = count + getSlotCount(count, skipWords);
+        Expression[] values = new Expression[total];
+        int[] sizes = new int[total];
+        boolean pending = false;
+        for (int i = 0; i < total; i++) {
+            if (stack.isDup(0) || stack.isPending(0) || !stack.isAvailable(0)) {
+                throw new DecompilationException("Unsupported stack manipulation");
+            }
+            values[i] = stack.get(0);
+            if (i < count && !values[i].isPure()) {
+                if (count != 1 || skipWords == 0) {
+                    throw new DecompilationException("Unsupported stack manipulation");
+                }
+                pending = true;
+            }
+            sizes[i] = stack.getSize(0);
+            stack.pop();
+        }
+        if (pending) {
+            stack.pushPending(values[0], sizes[0]);
+        } else {
+            for (int i = count - 1; i >= 0; i--) {
+                push(values[i], sizes[i]);
+            }
+        }
+        for (int i = total - 1; i >= 0; i--) {
+            push(values[i], sizes[i]);
+        }
+    }
+
     @Override
-    public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
-        instructions.push(new Frame());
+    public void visitCode() {
+        // Without debug information (javac -g:none), the first instruction is usually not preceded
+        // by a label.
+        instructions.setNextLabel(new Label());
     }
 
     @Override
-    public void visitTypeInsn(int opcode, String type) {
-        switch (opcode) {
-            case Opcodes.NEW:
-                instructions.push(new PushInstruction(new RawNewExpression(type)));
-                break;
-            default:
-                throw new UnsupportedOperationException();
+    public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+        if (type != Opcodes.F_NEW) {
+            // Compressed frames can't be interpreted without the implicit frame of the method.
+            throw new IllegalArgumentException("Frames must be expanded");
         }
+        // Frames are not instructions and don't act as a barrier for the operand stack. Values that
+        // would flow into a jump target on some paths only are detected by visitLabel instead,
+        // which also works if frames are skipped.
+        labels.addFrame(labels.getId(instructions.getNextLabel()));
+        frames.add(
+                new Frame(
+                        instructions.getNextLabel(),
+                        copyFrameTypes(numLocal, local),
+                        copyFrameTypes(numStack, stack)));
     }
 
-    private void addBinaryExpression(BinaryOperator operator) {
-        Expression operand2 = popExpression();
-        Expression operand1 = popExpression();
-        instructions.push(new PushInstruction(new BinaryExpression(operand1, operand2, operator)));
+    private static Object[] copyFrameTypes(int count, Object[] types) {
+        if (count == 0) {
+            return NO_FRAME_TYPES;
+        }
+        Object[] copy = Arrays.copyOf(types, count);
+        SymbolTable.canonicalize(copy);
+        return copy;
     }
 
     @Override
-    public void visitInsn(int opcode) {
+    public void visitTypeInsn(int opcode, String type) {
         switch (opcode) {
-            case Opcodes.DUP:
-                instructions.push(DupInstruction.INSTANCE);
-                break;
-            case Opcodes.POP:
-                instructions.push(new ExpressionInstruction(popExpression()));
-                break;
-            case Opcodes.ICONST_0:
-            case Opcodes.ICONST_1:
-            case Opcodes.ICONST_2:
-            case Opcodes.ICONST_3:
-            case Opcodes.ICONST_4:
-            case Opcodes.ICONST_5:
-                instructions.push(
-                        new PushInstruction(new ConstantExpression(opcode - Opcodes.ICONST_0)));
-                break;
-            case Opcodes.IADD:
-                addBinaryExpression(BinaryOperator.ADDITION);
+            case Opcodes.NEW:
+                push(new RawNewExpression(type));
                 break;
-            case Opcodes.IMUL:
-                addBinaryExpression(BinaryOperator.MULTIPLICATION);
+            case Opcodes.ANEWARRAY:
+                push(
+                        new NewArrayExpression(
+                                Type.getType("[" + Type.getObjectType(type).getDescriptor()),
+                                popExpression()));
                 break;
-            case Opcodes.RETURN:
-                instructions.push(new ReturnInstruction(null));
+            case Opcodes.CHECKCAST:
+                push(
+                        new CastExpression(
+                                Type.getObjectType(SymbolTable.canonicalize(type)),
+                                popExpression()));
                 break;
-            case Opcodes.IRETURN:
-                instructions.push(new ReturnInstruction(popExpression()));
+            case Opcodes.INSTANCEOF:
+                push(new InstanceOfExpression(popExpression(), type));
                 break;
             default:
                 throw new UnknownOpcodeException(opcode);
         }
     }
 
+    @Override
+    public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+        Expression[] dimensions = new Expression[numDimensions];
+        for (int i = numDimensions - 1; i >= 0; i--) {
+            dimensions[i] = popExpression();
+        }
+        push(new NewArrayExpression(Type.getType(descriptor), dimensions));
+    }
+
+    @Override
+    public void visitInsn(int opcode) {
+        InsnHandler handler = insnHandlers[opcode];
+        if (handler == null) {
+            throw new UnknownOpcodeException(opcode);
+        }
+        handler.handle(this, opcode);
+    }
+
+    private void pushConstant(int opcode) {
+        // The constants are shared between all instances; they are not interned.
+        stack.push(constants[opcode - Opcodes.ACONST_NULL], valueSizes[opcode]);
+    }
+
+    private void arrayLoad(int opcode) {
+        Expression index = popExpression();
+        push(new ArrayElementExpression(popExpression(), index), valueSizes[opcode]);
+    }
+
+    private void arrayStore() {
+        Expression value = popExpression();
+        Expression index = popExpression();
+        if (!stack.isEmpty() && stack.isDup(0) && stack.isAvailable(0)) {
+            // Array initializers duplicate the reference to the new array before each store.
+            ArrayInitializerExpression initializer = toArrayInitializer(stack.get(0));
+            int elementIndex = getIntConstant(index);
+            if (initializer != null
+                    && elementIndex >= 0
+                    && elementIndex < initializer.getLength()) {
+                stack.pop();
+                stack.pop();
+                // Intermediate states are short lived; don't intern them.
+                stack.push(initializer.withElement(elementIndex, value), 1);
+                return;
+            }
+        }
+        addAssignment(
+                new AssignmentExpression(new ArrayElementExpression(popExpression(), index), value),
+                value);
+    }
+
+    private static ArrayInitializerExpression toArrayInitializer(Expression expression) {
+        if (expression instanceof ArrayInitializerExpression) {
+            return (ArrayInitializerExpression) expression;
+        }
+        if (expression instanceof NewArrayExpression) {
+            NewArrayExpression newArray = (NewArrayExpression) expression;
+            if (newArray.getDimensions().size() == 1) {
+                int length = getIntConstant(newArray.getDimensions().get(0));
+                if (length >= 0) {
+                    return new ArrayInitializerExpression(newArray.getType(), length);
+                }
+            }
+        }
+        return null;
+    }
+
+    /** Returns the value of a non negative int constant, or -1. */
+    private static int getIntConstant(Expression expression) {
+        if (expression instanceof IntConstantExpression) {
+            return Math.max(((IntConstantExpression) expression).getIntValue(), -1);
+        }
+        return -1;
+    }
+
+    private void addBinaryExpression(int opcode) {
+        Expression operand2 = popExpression();
+        Expression operand1 = popExpression();
+        push(new BinaryExpression(operand1, operand2, operators[opcode]), valueSizes[opcode]);
+    }
+
+    private void addConversion(int opcode) {
+        push(new CastExpression(conversionTypes[opcode], popExpression()), valueSizes[opcode]);
+    }
+
+    private void addComparison(int opcode) {
+        Expression operand2 = popExpression();
+        Expression operand1 = popExpression();
+        int nanResult;
+        if (opcode == Opcodes.LCMP) {
+            nanResult = 0;
+        } else if (opcode == Opcodes.FCMPG || opcode == Opcodes.DCMPG) {
+            nanResult = 1;
+        } else {
+            nanResult = -1;
+        }
+        push(new CompareExpression(operand1, operand2, nanResult));
+    }
+
+    private void pop2() {
+        if (stack.getSize(0) == 2) {
+            instructions.push(new ExpressionInstruction(popExpression()));
+        } else {
+            Expression value1 = popExpression();
+            Expression value2 = popExpression();
+            instructions.push(new ExpressionInstruction(value2));
+            instructions.push(new ExpressionInstruction(value1));
+        }
+    }
+
+    private void dup2() {
+        if (stack.getSize(0) == 2) {
+            stack.dup();
+        } else {
+            dupX(2, 0);
+        }
+    }
+
+    private void swap() {
+        if (stack.isDup(0) || stack.isDup(1)) {
+            throw new DecompilationException("Unsupported swap");
+        }
+        Expression value1 = popExpression();
+        Expression value2 = popExpression();
+        // Swapping changes the evaluation order.
+        if (!value1.isPure() && !value2.isPure()) {
+            throw new DecompilationException("Unsupported swap");
+        }
+        push(value1);
+        push(value2);
+    }
+
     @Override
     public void visitLdcInsn(Object value) {
-        instructions.push(new PushInstruction(new ConstantExpression(value)));
+        stack.push(
+                interner.constant(value), value instanceof Long || value instanceof Double ? 2 : 1);
     }
 
     @Override
     public void visitIntInsn(int opcode, int operand) {
         switch (opcode) {
             case Opcodes.BIPUSH:
-                instructions.push(new PushInstruction(new ConstantExpression(operand)));
+            case Opcodes.SIPUSH:
+                stack.push(interner.constant(operand), 1);
+                break;
+            case Opcodes.NEWARRAY:
+                push(new NewArrayExpression(primitiveArrayTypes[operand], popExpression()));
                 break;
             default:
                 throw new UnknownOpcodeException(opcode);
@@ -180,46 +620,37 @@ final class MethodVisitorImpl extends MethodVisitor {
 
     @Override
     public void visitVarInsn(int opcode, int varIndex) {
-        switch (opcode) {
-            case Opcodes.ASTORE:
-            case Opcodes.ISTORE:
-                if (!consumeTopOfStackExpression(
-                        Expression.class,
-                        e -> new AssignmentExpression(new VariableExpression(varIndex), e))) {
-                    throw new IllegalStateException();
-                }
-                break;
-            case Opcodes.ILOAD:
-                {
-                    PreIncrementExpression expression =
-                            peekExpression(PreIncrementExpression.class);
-                    if (expression != null && expression.getVarIndex() == varIndex) {
-                        instructions.pop();
-                        instructions.push(new PushInstruction(expression));
-                        break;
-                    }
+        if (opcode >= Opcodes.ISTORE && opcode <= Opcodes.ASTORE) {
+            if (!consumeTopOfStackExpression(
+                    Expression.class,
+                    e -> new AssignmentExpression(interner.variable(varIndex), e))) {
+                throw new DecompilationException("Store of unavailable value");
+            }
+        } else if (opcode >= Opcodes.ILOAD && opcode <= Opcodes.ALOAD) {
+            if (opcode == Opcodes.ILOAD) {
+                PreIncrementExpression expression = peekExpression(PreIncrementExpression.class);
+                if (expression != null && expression.getVarIndex() == varIndex) {
+                    stack.pop();
+                    push(expression);
+                    return;
                 }
-                // Fall through.
-            case Opcodes.ALOAD:
-                instructions.push(new PushInstruction(new VariableExpression(varIndex)));
-                break;
-            default:
-                throw new UnknownOpcodeException(opcode);
+            }
+            push(interner.variable(varIndex), valueSizes[opcode]);
+        } else {
+            // RET (together with JSR) is only used by class files older than version 50.
+            throw new UnknownOpcodeException(opcode);
         }
     }
 
     @Override
     public void visitIincInsn(int varIndex, int increment) {
-        Instruction lastInstruction = instructions.peek();
-        if (lastInstruction instanceof PushInstruction) {
-            Expression expression = ((PushInstruction) lastInstruction).getExpression();
-            if (expression instanceof VariableExpression
-                    && ((VariableExpression) expression).getVarIndex() == varIndex) {
-                instructions.pop();
-                instructions.push(
-                        new PushInstruction(new PostIncrementExpression(varIndex, increment)));
-                return;
-            }
+        VariableExpression expression = peekExpression(VariableExpression.class);
+        if (expression != null
+                && expression.getVarIndex() == varIndex
+                && Math.abs(increment) == 1) {
+            stack.pop();
+            push(new PostIncrementExpression(varIndex, increment));
+            return;
         }
         instructions.push(
                 new ExpressionInstruction(new PreIncrementExpression(varIndex, increment)));
@@ -227,79 +658,241 @@ final class MethodVisitorImpl extends MethodVisitor {
 
     @Override
     public void visitJumpInsn(int opcode, Label label) {
-        BinaryOperator operator;
-        switch (opcode) {
-            case Opcodes.GOTO:
-                instructions.push(new GotoInstruction(label));
-                return;
-            case Opcodes.IF_ICMPEQ:
-                operator = BinaryOperator.EQUALS;
-                break;
-            case Opcodes.IF_ICMPNE:
-                operator = BinaryOperator.NOT_EQUALS;
-                break;
-            default:
-                throw new UnknownOpcodeException(opcode);
+        if (opcode == Opcodes.GOTO) {
+            // In nested conditional expressions, both branches of the inner expression jump
+            // directly to the end of the outer one.
+            recoverConditionalExpressions(label, true);
+            addJump(label);
+            instructions.push(new GotoInstruction(label));
+            return;
         }
-        Expression operand2 = popExpression();
-        Expression operand1 = popExpression();
+        BinaryOperator operator = operators[opcode];
+        if (operator == null) {
+            throw new UnknownOpcodeException(opcode);
+        }
+        Expression operand1;
+        Expression operand2;
+        if (opcode >= Opcodes.IFEQ && opcode <= Opcodes.IFLE) {
+            Expression value = popExpression();
+            if (value instanceof CompareExpression
+                    && ((CompareExpression) value).getNanResult() == 0) {
+                // LCMP followed by IFxx is a comparison of the original operands. For FCMPL etc.
+                // this would be wrong if one of the operands is NaN, and the negation of the
+                // condition (see negate) would be wrong as well.
+                operand1 = ((CompareExpression) value).getOperand1();
+                operand2 = ((CompareExpression) value).getOperand2();
+            } else {
+                operand1 = value;
+                operand2 = interner.constant(0);
+            }
+        } else if (opcode == Opcodes.IFNULL || opcode == Opcodes.IFNONNULL) {
+            operand1 = popExpression();
+            operand2 = ReferenceConstantExpression.NULL;
+        } else {
+            operand2 = popExpression();
+            operand1 = popExpression();
+        }
+        Expression condition = new BinaryExpression(operand1, operand2, operator);
+        if (recoverConditionalOr(condition, label)) {
+            return;
+        }
+        addJump(label);
+        instructions.push(new ConditionalJumpInstruction(condition, label));
+    }
+
+    /**
+     * Replaces the pattern {@code if (c1) goto L; if (c2) goto L;} with {@code if (c1 || c2) goto
+     * L;}.
+     *
+     * @param condition the condition {@code c2} of the jump that is about to be added
+     * @return {@code true} if the jump has been combined with the previous one
+     */
+    private boolean recoverConditionalOr(Expression condition, Label label) {
+        int size = instructions.size();
+        Instruction last = instructions.peek();
+        if (!(last instanceof ConditionalJumpInstruction)
+                || ((ConditionalJumpInstruction) last).getLabel() != label
+                || (!stack.isEmpty() && stack.getMark(0) == size)
+                || labels.hasTargetFrom(size, -1)) {
+            return false;
+        }
+        instructions.pop();
         instructions.push(
                 new ConditionalJumpInstruction(
-                        new BinaryExpression(operand1, operand2, operator), label));
+                        new BinaryExpression(
+                                ((ConditionalJumpInstruction) last).getExpression(),
+                                condition,
+                                BinaryOperator.CONDITIONAL_OR),
+                        label));
+        labels.absorbFrom(size, size);
+        return true;
+    }
+
+    /**
+     * Replaces the pattern {@code if (c1) goto L1; if (c2) goto L2; L1:} with {@code if (!c1 && c2)
+     * goto L2; L1:}.
+     *
+     * @param label the label {@code L1}
+     */
+    private void recoverConditionalAnd(Label label) {
+        int size = instructions.size();
+        int id = labels.getId(label);
+        if (size < 2
+                || labels.getJumpCount(id) != 1
+                || labels.getLastJumpPosition(id) != size - 2
+                || labels.isHandler(id)
+                || !(instructions.get(size - 1) instanceof ConditionalJumpInstruction)
+                || (!stack.isEmpty() && stack.getMark(0) > size - 2)
+                || labels.hasTargetFrom(size - 1, -1)) {
+            return;
+        }
+        ConditionalJumpInstruction jump2 = (ConditionalJumpInstruction) instructions.get(size - 1);
+        ConditionalJumpInstruction jump1 = (ConditionalJumpInstruction) instructions.get(size - 2);
+        Expression negated = negate(jump1.getExpression());
+        if (negated == null) {
+            return;
+        }
+        instructions.pop();
+        instructions.pop();
+        labels.absorbJump(id);
+        labels.absorbFrom(size - 1, size - 1);
+        Expression condition =
+                new BinaryExpression(
+                        negated, jump2.getExpression(), BinaryOperator.CONDITIONAL_AND);
+        int id2 = labels.getId(jump2.getLabel());
+        labels.removeJump(id2);
+        // The combined jump may in turn be the second operand of ||.
+        if (!recoverConditionalOr(condition, jump2.getLabel())) {
+            labels.addJump(id2, size - 2);
+            instructions.push(new ConditionalJumpInstruction(condition, jump2.getLabel()));
+        }
+    }
+
+    @Override
+    public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+        int[] keys = new int[labels.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = min + i;
+        }
+        addSwitch(keys, labels, dflt);
+    }
+
+    @Override
+    public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+        addSwitch(keys, labels, dflt);
+    }
+
+    /** Registers a jump to the given label from the instruction that is about to be added. */
+    private void addJump(Label label) {
+        int id = labels.getId(label);
+        int position = labels.getPosition(id);
+        // A backward jump brings the current stack to a position where values pushed since then
+        // were not on the stack.
+        if (position != -1 && !stack.isEmpty() && stack.getMark(0) > position) {
+            throw new DecompilationException("Stack value at a jump target");
+        }
+        labels.addJump(id, instructions.size());
+    }
+
+    private void addSwitch(int[] keys, Label[] targets, Label defaultLabel) {
+        Expression expression = popExpression();
+        for (Label target : targets) {
+            addJump(target);
+        }
+        addJump(defaultLabel);
+        instructions.push(
+                new SwitchInstruction(expression, keys.clone(), targets.clone(), defaultLabel));
+    }
+
+    @Override
+    public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+        int index = tryCatchTypes.size() * 3;
+        if (index == tryCatchLabels.length) {
+            tryCatchLabels = Arrays.copyOf(tryCatchLabels, index * 2);
+        }
+        tryCatchLabels[index] = labels.getId(start);
+        tryCatchLabels[index + 1] = labels.getId(end);
+        tryCatchLabels[index + 2] = labels.getId(handler);
+        tryCatchTypes.add(type);
+        labels.addHandler(tryCatchLabels[index + 2], type);
     }
 
     @Override
     public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
         switch (opcode) {
             case Opcodes.GETFIELD:
-                instructions.push(
-                        new PushInstruction(new FieldExpression(owner, popExpression(), name)));
+                push(new FieldExpression(owner, popExpression(), name), getSize(descriptor));
                 break;
             case Opcodes.GETSTATIC:
-                instructions.push(new PushInstruction(new FieldExpression(owner, null, name)));
+                push(new FieldExpression(owner, null, name), getSize(descriptor));
                 break;
             case Opcodes.PUTFIELD:
                 {
                     Expression expression = popExpression();
-                    instructions.push(
-                            new ExpressionInstruction(
-                                    new AssignmentExpression(
-                                            new FieldExpression(owner, popExpression(), name),
-                                            expression)));
+                    addAssignment(
+                            new AssignmentExpression(
+                                    new FieldExpression(owner, popExpression(), name), expression),
+                            expression);
                     break;
                 }
             case Opcodes.PUTSTATIC:
-                instructions.push(
-                        new ExpressionInstruction(
-                                new AssignmentExpression(
-                                        new FieldExpression(owner, null, name), popExpression())));
+                if (!consumeTopOfStackExpression(
+                        Expression.class,
+                        e -> new AssignmentExpression(new FieldExpression(owner, null, name), e))) {
+                    throw new DecompilationException("Store of unavailable value");
+                }
                 break;
             default:
                 throw new UnknownOpcodeException(opcode);
         }
     }
 
-    @Override
-    public void visitMethodInsn(
-            int opcode, String owner, String name, String descriptor, boolean isInterface) {
-        Type type = Type.getType(descriptor);
-        int argCount = type.getArgumentTypes().length;
+    private Expression[] popArguments(MethodDescriptor methodDescriptor) {
+        int argCount = methodDescriptor.getArgumentCount();
         Expression[] args = new Expression[argCount];
         for (int i = 0; i < argCount; i++) {
             args[argCount - i - 1] = popExpression();
         }
+        for (int i = 0; i < argCount; i++) {
+            if (methodDescriptor.getArgumentType(i).getSort() == Type.BOOLEAN) {
+                args[i] = toBoolean(args[i]);
+            }
+        }
+        return args;
+    }
+
+    @Override
+    public void visitMethodInsn(
+            int opcode, String owner, String name, String descriptor, boolean isInterface) {
+        MethodDescriptor methodDescriptor = MethodDescriptor.get(descriptor);
+        Expression[] args = popArguments(methodDescriptor);
         switch (opcode) {
             case Opcodes.INVOKEVIRTUAL:
-                {
-                    Expression expression = new InvokeMethodExpression(popExpression(), name, args);
-                    instructions.push(
-                            type.getReturnType() == Type.VOID_TYPE
-                                    ? new ExpressionInstruction(expression)
-                                    : new PushInstruction(expression));
-                    break;
-                }
+            case Opcodes.INVOKEINTERFACE:
+                addInvocation(
+                        new InvokeMethodExpression(popExpression(), name, args), methodDescriptor);
+                break;
+            case Opcodes.INVOKESTATIC:
+                addInvocation(
+                        new InvokeStaticMethodExpression(owner, name, args), methodDescriptor);
+                break;
             case Opcodes.INVOKESPECIAL:
                 {
+                    if (!name.equals("<init>")) {
+                        // Private method or super call.
+                        addInvocation(
+                                new InvokeMethodExpression(popExpression(), name, args),
+                                methodDescriptor);
+                        break;
+                    }
+                    if (isCopiedRawNew()) {
+                        // The reference was duplicated with DUP_X1 and SWAP instead of DUP.
+                        String type = ((RawNewExpression) stack.get(0)).getType();
+                        stack.pop();
+                        stack.pop();
+                        push(new NewExpression(type, args));
+                        break;
+                    }
                     if (consumeTopOfStackExpression(
                             RawNewExpression.class, e -> new NewExpression(e.getType(), args))) {
                         break;
@@ -307,7 +900,7 @@ final class MethodVisitorImpl extends MethodVisitor {
                     Expression expression = popExpression();
                     if (!(expression instanceof VariableExpression
                             && ((VariableExpression) expression).getVarIndex() == 0)) {
-                        throw new IllegalStateException();
+                        throw new DecompilationException("Unexpected constructor invocation");
                     }
                     instructions.push(new SuperclassConstructorInvocation(args));
                     break;
@@ -317,34 +910,280 @@ final class MethodVisitorImpl extends MethodVisitor {
         }
     }
 
+    /**
+     * Determines if the two slots at the top of the stack are copies of the same uninitialized
+     * object.
+     */
+    private boolean isCopiedRawNew() {
+        return stack.getDepth() >= 2
+                && stack.get(0) instanceof RawNewExpression
+                && stack.get(1).equals(stack.get(0))
+                && !stack.isDup(0)
+                && !stack.isDup(1)
+                && stack.isAvailable(0)
+                && stack.isAvailable(1);
+    }
+
+    @Override
+    public void visitInvokeDynamicInsn(
+            String name,
+            String descriptor,
+            Handle bootstrapMethodHandle,
+            Object... bootstrapMethodArguments) {
+        MethodDescriptor methodDescriptor = MethodDescriptor.get(descriptor);
+        addInvocation(
+                new InvokeDynamicExpression(name, popArguments(methodDescriptor)),
+                methodDescriptor);
+    }
+
+    private void addInvocation(Expression expression, MethodDescriptor descriptor) {
+        if (descriptor.returnsVoid()) {
+            instructions.push(new ExpressionInstruction(expression));
+        } else {
+            push(expression, descriptor.getReturnType().getSize());
+        }
+    }
+
+    /** Returns the logical negation of the given condition, or {@code null} if not supported. */
+    static Expression negate(Expression condition) {
+        if (condition instanceof BinaryExpression) {
+            BinaryExpression binary = (BinaryExpression) condition;
+            BinaryOperator operator = binary.getOperator();
+            if (operator == BinaryOperator.CONDITIONAL_AND
+                    || operator == BinaryOperator.CONDITIONAL_OR) {
+                // De Morgan's laws
+                Expression operand1 = negate(binary.getOperand1());
+                Expression operand2 = negate(binary.getOperand2());
+                if (operand1 == null || operand2 == null) {
+                    return null;
+                }
+                return new BinaryExpression(
+                        operand1,
+                        operand2,
+                        operator == BinaryOperator.CONDITIONAL_AND
+                                ? BinaryOperator.CONDITIONAL_OR
+                                : BinaryOperator.CONDITIONAL_AND);
+            }
+            BinaryOperator negation = operator.getNegation();
+            if (negation != null) {
+                return new BinaryExpression(binary.getOperand1(), binary.getOperand2(), negation);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isIntConstant(Expression expression, int value) {
+        return expression instanceof IntConstantExpression
+                && ((IntConstantExpression) expression).getIntValue() == value;
+    }
+
+    /**
+     * Simplifies an expression used as a boolean. The compiler translates boolean valued conditions
+     * into {@code c ? 1 : 0}.
+     */
+    private static Expression toBoolean(Expression expression) {
+        if (expression instanceof ConditionalExpression) {
+            ConditionalExpression conditional = (ConditionalExpression) expression;
+            if (isIntConstant(conditional.getExpression1(), 1)
+                    && isIntConstant(conditional.getExpression2(), 0)) {
+                return conditional.getCondition();
+            }
+            if (isIntConstant(conditional.getExpression1(), 0)
+                    && isIntConstant(conditional.getExpression2(), 1)) {
+                Expression negated = negate(conditional.getCondition());
+                if (negated != null) {
+                    return negated;
+                }
+            }
+        }
+        return expression;
+    }
+
+    /**
+     * Replaces the pattern {@code if (c) goto L1; PUSH a; goto L2; L1: PUSH b; L2:} with {@code
+     * PUSH !c ? a : b}. This is repeated as long as possible to handle nested conditionals. The
+     * pattern is rejected if control can enter the branches in any other way, e.g. for {@code (c1
+     * || c2) ? a : b}.
+     *
+     * @param label the label {@code L2}
+     * @param atGoto {@code true} if this is invoked for a {@code goto L2} instruction that follows
+     *     the pattern (instead of the label itself)
+     */
+    private void recoverConditionalExpressions(Label label, boolean atGoto) {
+        while (true) {
+            int size = instructions.size();
+            if (size < 2 || stack.getDepth() < 2) {
+                return;
+            }
+            if (stack.isDup(0)
+                    || stack.isDup(1)
+                    || stack.getMark(0) != size
+                    || stack.getMark(1) != size - 1
+                    || stack.getSize(0) != stack.getSize(1)) {
+                return;
+            }
+            Instruction last = instructions.get(size - 1);
+            if (!(last instanceof GotoInstruction)
+                    || ((GotoInstruction) last).getLabel() != label) {
+                return;
+            }
+            Instruction previous = instructions.get(size - 2);
+            if (!(previous instanceof ConditionalJumpInstruction)) {
+                return;
+            }
+            ConditionalJumpInstruction jump = (ConditionalJumpInstruction) previous;
+            int elseLabelId = labels.getId(jump.getLabel());
+            int labelId = labels.getId(label);
+            if (labels.getPosition(elseLabelId) != size
+                    || labels.getJumpCount(elseLabelId) != 1
+                    || labels.hasTargetFrom(size - 1, elseLabelId)) {
+                return;
+            }
+            int valueSize = stack.getSize(0);
+            Expression expression2 = stack.get(0);
+            Expression expression1 = stack.get(1);
+            stack.pop();
+            stack.pop();
+            instructions.pop();
+            instructions.pop();
+            labels.absorbJump(elseLabelId);
+            if (atGoto) {
+                labels.removeJump(labelId);
+            } else {
+                labels.absorbJump(labelId);
+                if (labels.getJumpCount(labelId) > 0) {
+                    // The label is also the end of an outer conditional expression.
+                    int position = instructions.size() - 1;
+                    while (position >= 0 && !isJumpTo(instructions.get(position), label)) {
+                        position--;
+                    }
+                    labels.setLastJumpPosition(labelId, position);
+                }
+            }
+            Expression condition = jump.getExpression();
+            Expression negated = negate(condition);
+            push(
+                    negated == null
+                            ? new ConditionalExpression(condition, expression2, expression1)
+                            : new ConditionalExpression(negated, expression1, expression2),
+                    valueSize);
+        }
+    }
+
+    private static boolean isJumpTo(Instruction instruction, Label label) {
+        if (instruction instanceof GotoInstruction) {
+            return ((GotoInstruction) instruction).getLabel() == label;
+        }
+        if (instruction instanceof ConditionalJumpInstruction) {
+            return ((ConditionalJumpInstruction) instruction).getLabel() == label;
+        }
+        if (instruction instanceof SwitchInstruction) {
+            SwitchInstruction switchInstruction = (SwitchInstruction) instruction;
+            if (switchInstruction.getDefaultLabel() == label) {
+                return true;
+            }
+            for (int i = 0; i < switchInstruction.getCaseCount(); i++) {
+                if (switchInstruction.getLabel(i) == label) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks that the values on the stack are the same on all paths that reach a jump target.
+     * Values pushed after the last jump to the label are only on the stack if control falls through
+     * to the label; unless they have been merged into a conditional expression, the decompiled code
+     * would be wrong for the other paths.
+     */
+    private void checkJumpTarget(int id) {
+        if (stack.isEmpty() || stack.getMark(0) <= labels.getLastJumpPosition(id)) {
+            return;
+        }
+        if (stack.getMark(0) < instructions.size()) {
+            // The value was pushed before the last statement. If control can't fall through that
+            // statement, the value is a branch of a conditional expression that ends later.
+            Instruction last = instructions.peek();
+            if (last instanceof GotoInstruction
+                    || last instanceof ReturnInstruction
+                    || last instanceof ThrowInstruction
+                    || last instanceof SwitchInstruction) {
+                return;
+            }
+        }
+        throw new DecompilationException("Stack value at a jump target");
+    }
+
     @Override
     public void visitLabel(Label label) {
         instructions.setNextLabel(label);
-        // if (instructions.size() < 4) {
-        //     return;
-        // }
-        // Iterator<LabelledInstruction> it = instructions.descendingIterator();
-        // LabelledInstruction instruction = it.next();
-        // if (!(instruction.getInstruction() instanceof PushInstruction)) {
-        //     return;
-        // }
-        // Expression expression1 = ((PushInstruction)
-        // instruction.getInstruction()).getExpression();
-        // instruction = it.next();
-        // if (!(instruction.getInstruction() instanceof GotoInstruction)
-        //         || ((GotoInstruction) instruction.getInstruction()).getLabel() != label) {
-        //     return;
-        // }
-        // instruction = it.next();
-        // if (!(instruction.getInstruction() instanceof PushInstruction)) {
-        //     return;
-        // }
-        // Expression expression2 = ((PushInstruction)
-        // instruction.getInstruction()).getExpression();
-        // TODO
+        recoverConditionalAnd(label);
+        recoverConditionalExpressions(label, false);
+        instructions.setNextLabel(label);
+        int id = labels.getId(label);
+        if (labels.getJumpCount(id) > 0) {
+            checkJumpTarget(id);
+        }
+        labels.setPosition(id, instructions.size());
+        if (labels.isHandler(id)) {
+            push(new CaughtExceptionExpression(labels.getHandlerType(id)));
+        }
+    }
+
+    @Override
+    public void visitEnd() {
+        if (resultConsumer != null) {
+            resultConsumer.accept(this);
+        }
+    }
+
+    private static int getSize(String descriptor) {
+        char c = descriptor.charAt(0);
+        return c == 'J' || c == 'D' ? 2 : 1;
+    }
+
+    /**
+     * Returns the positions (as indexes into the list returned by {@link #getInstructions()}) of
+     * all labels that are targets of jump instructions or start exception handlers.
+     */
+    public Map<Label, Integer> getLabelPositions() {
+        IdentityHashMap<Label, Integer> positions = new IdentityHashMap<>();
+        for (int id = 0; id < labels.size(); id++) {
+            if (labels.getJumpCount(id) > 0 || labels.isHandler(id)) {
+                positions.put(labels.getLabel(id), labels.getPosition(id));
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Returns the exception handlers. Handlers that no longer cover any statement (because the
+     * instructions in their range have been combined with instructions outside of it) are omitted.
+     */
+    public List<TryCatchBlock> getTryCatchBlocks() {
+        List<TryCatchBlock> result = new ArrayList<>(tryCatchTypes.size());
+        for (int i = 0; i < tryCatchTypes.size(); i++) {
+            int start = labels.getPosition(tryCatchLabels[3 * i]);
+            int end = Math.min(labels.getPosition(tryCatchLabels[3 * i + 1]), instructions.size());
+            int handler = labels.getPosition(tryCatchLabels[3 * i + 2]);
+            if (start >= 0 && start < end && handler >= 0) {
+                result.add(new TryCatchBlock(start, end, handler, tryCatchTypes.get(i)));
+            }
+        }
+        return result;
+    }
+
+    public List<Frame> getFrames() {
+        return frames.isEmpty() ? Collections.emptyList() : new ArrayList<>(frames);
     }
 
     public List<Instruction> getInstructions() {
-        return instructions.getInstructions();
+        if (stack.isEmpty()) {
+            return instructions.getInstructions();
+        }
+        List<Instruction> result = new ArrayList<>(instructions.size() + 8);
+        stack.merge(result);
+        return result;
     }
 }
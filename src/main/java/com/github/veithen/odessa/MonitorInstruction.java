@@ -0,0 +1,53 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+
+/** {@code MONITORENTER} or {@code MONITOREXIT}. */
+public final class MonitorInstruction extends Instruction {
+    private final boolean enter;
+    private final Expression expression;
+
+    public MonitorInstruction(boolean enter, Expression expression) {
+        this.enter = enter;
+        this.expression = expression;
+    }
+
+    public boolean isEnter() {
+        return enter;
+    }
+
+    public Expression getExpression() {
+        return expression;
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        out.append(enter ? "monitorenter(" : "monitorexit(");
+        expression.appendTo(out);
+        out.append(");");
+    }
+
+    @Override
+    public <R> R accept(InstructionVisitor<R> visitor) {
+        return visitor.visitMonitor(this);
+    }
+}
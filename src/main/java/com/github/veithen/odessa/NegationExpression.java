@@ -0,0 +1,68 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+
+/** Arithmetic negation. */
+public final class NegationExpression extends Expression {
+    private final Expression operand;
+
+    public NegationExpression(Expression operand) {
+        this.operand = operand;
+    }
+
+    public Expression getOperand() {
+        return operand;
+    }
+
+    @Override
+    public boolean isPure() {
+        return operand.isPure();
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        out.append('-');
+        operand.appendTo(out);
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return 0x4E45 + operand.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof NegationExpression)) {
+            return false;
+        }
+        NegationExpression other = (NegationExpression) obj;
+        return hashCode() == other.hashCode() && operand.equals(other.operand);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitNegation(this);
+    }
+}
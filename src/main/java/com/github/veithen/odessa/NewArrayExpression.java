@@ -0,0 +1,90 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+
+import org.objectweb.asm.Type;
+
+public final class NewArrayExpression extends Expression {
+    private final Type type;
+    private final ArgList dimensions;
+
+    /**
+     * Constructor.
+     *
+     * @param type the type of the array
+     * @param dimensions the expressions for the sizes of the dimensions that are created; there may
+     *     be less than the number of dimensions of the array type
+     */
+    public NewArrayExpression(Type type, Expression... dimensions) {
+        this.type = type;
+        this.dimensions = new ArgList(dimensions);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public ArgList getDimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public boolean isPure() {
+        return false;
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        out.append("new ").append(type.getElementType().getClassName());
+        for (int i = 0; i < type.getDimensions(); i++) {
+            out.append('[');
+            if (i < dimensions.size()) {
+                dimensions.get(i).appendTo(out);
+            }
+            out.append(']');
+        }
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return 31 * type.hashCode() + dimensions.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof NewArrayExpression)) {
+            return false;
+        }
+        NewArrayExpression other = (NewArrayExpression) obj;
+        return hashCode() == other.hashCode()
+                && type.equals(other.type)
+                && dimensions.equals(other.dimensions);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitNewArray(this);
+    }
+}
@@ -19,34 +19,58 @@
  */
 package com.github.veithen.odessa;
 
-import java.util.Objects;
+import java.io.IOException;
 
-@SuppressWarnings("EqualsHashCode")
 public final class NewExpression extends Expression {
     private final String type;
     private final ArgList args;
 
     public NewExpression(String type, Expression... args) {
-        this.type = type;
+        this.type = SymbolTable.canonicalize(type);
         this.args = new ArgList(args);
     }
 
+    public String getType() {
+        return type;
+    }
+
+    public ArgList getArgs() {
+        return args;
+    }
+
     @Override
     public boolean isPure() {
         return false;
     }
 
     @Override
-    public String toString() {
-        return "new " + type.replace('/', '.') + args;
+    public void appendTo(Appendable out) throws IOException {
+        out.append("new ");
+        appendClassName(out, type);
+        args.appendTo(out);
     }
 
+    @Override
+    protected int computeHashCode() {
+        return 31 * type.hashCode() + args.hashCode();
+    }
+
+    // Symbols are canonicalized by the constructor.
+    @SuppressWarnings("ReferenceEquality")
     @Override
     public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
         if (!(obj instanceof NewExpression)) {
             return false;
         }
         NewExpression other = (NewExpression) obj;
-        return Objects.equals(type, other.type) && Objects.equals(args, other.args);
+        return hashCode() == other.hashCode() && type == other.type && args.equals(other.args);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitNew(this);
     }
 }
@@ -0,0 +1,188 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.objectweb.asm.Label;
+
+/**
+ * Symbolic operand stack kept next to the statement list. All operations are constant time.
+ *
+ * <p>Each slot records the number of statements that had been emitted when its value was pushed. A
+ * value can only be consumed if no statement has been emitted since then, because otherwise the
+ * evaluation order would change.
+ *
+ * <p>A slot created by {@code DUP} is marked as such. It refers to the same expression as the slot
+ * below it and its value is taken to be the result of whatever operation consumes that slot (e.g.
+ * {@code new T(...)} or an assignment used as an expression).
+ *
+ * <p>A pending slot is created by {@code DUP_X1} and similar instructions when the duplicated value
+ * is not pure. It stands for the result of the assignment that will consume the original value
+ * (e.g. {@code this.x = value}), which is inserted into the slot once it is known.
+ */
+final class OperandStack {
+    private final InstructionList instructions;
+    private Expression[] values = new Expression[16];
+    private byte[] sizes = new byte[16];
+    private boolean[] dups = new boolean[16];
+    private boolean[] pendings = new boolean[16];
+    private Label[] labels = new Label[16];
+    private int[] marks = new int[16];
+    private int depth;
+
+    OperandStack(InstructionList instructions) {
+        this.instructions = instructions;
+    }
+
+    boolean isEmpty() {
+        return depth == 0;
+    }
+
+    int getDepth() {
+        return depth;
+    }
+
+    private int index(int fromTop) {
+        int index = depth - 1 - fromTop;
+        if (index < 0) {
+            throw new DecompilationException("Operand stack underflow");
+        }
+        return index;
+    }
+
+    Expression get(int fromTop) {
+        return values[index(fromTop)];
+    }
+
+    int getSize(int fromTop) {
+        return sizes[index(fromTop)];
+    }
+
+    boolean isDup(int fromTop) {
+        return dups[index(fromTop)];
+    }
+
+    boolean isPending(int fromTop) {
+        return pendings[index(fromTop)];
+    }
+
+    /** Returns the number of statements that had been emitted when the slot was pushed. */
+    int getMark(int fromTop) {
+        return marks[index(fromTop)];
+    }
+
+    /**
+     * Determines if the value in the given slot can be consumed, i.e. if no statement has been
+     * emitted since it was pushed.
+     */
+    boolean isAvailable(int fromTop) {
+        int index = index(fromTop);
+        if (dups[index]) {
+            index--;
+        }
+        return marks[index] == instructions.size();
+    }
+
+    private void ensureCapacity() {
+        if (depth == values.length) {
+            int capacity = depth * 2;
+            values = Arrays.copyOf(values, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+            dups = Arrays.copyOf(dups, capacity);
+            pendings = Arrays.copyOf(pendings, capacity);
+            labels = Arrays.copyOf(labels, capacity);
+            marks = Arrays.copyOf(marks, capacity);
+        }
+    }
+
+    private void push(Expression value, int size, boolean dup, boolean pending) {
+        Label label = instructions.getNextLabel();
+        if (label == null) {
+            throw new DecompilationException("Value pushed inside an expression");
+        }
+        ensureCapacity();
+        values[depth] = value;
+        sizes[depth] = (byte) size;
+        dups[depth] = dup;
+        pendings[depth] = pending;
+        labels[depth] = label;
+        marks[depth] = instructions.size();
+        depth++;
+    }
+
+    void push(Expression value, int size) {
+        push(value, size, false, false);
+    }
+
+    /**
+     * Pushes a pending slot.
+     *
+     * @param value the value whose assignment will provide the value of the slot
+     */
+    void pushPending(Expression value, int size) {
+        push(value, size, false, true);
+    }
+
+    /** Duplicates the top slot ({@code DUP} or {@code DUP2} with a category 2 value). */
+    void dup() {
+        int index = index(0);
+        push(values[index], sizes[index], true, false);
+    }
+
+    /**
+     * Removes the top slot. As with a statement, the label attached to the slot becomes the label
+     * for whatever replaces it.
+     */
+    void pop() {
+        int index = index(0);
+        instructions.setNextLabel(labels[index]);
+        values[index] = null;
+        labels[index] = null;
+        depth--;
+    }
+
+    /** Removes all slots, keeping the allocated capacity. */
+    void clear() {
+        Arrays.fill(values, 0, depth, null);
+        Arrays.fill(labels, 0, depth, null);
+        depth = 0;
+    }
+
+    /**
+     * Appends the statements to the given list, inserting the values remaining on the stack at the
+     * positions where they were pushed.
+     */
+    void merge(List<Instruction> result) {
+        int statementCount = instructions.size();
+        int slot = 0;
+        for (int i = 0; i <= statementCount; i++) {
+            while (slot < depth && marks[slot] <= i) {
+                result.add(
+                        dups[slot] ? DupInstruction.INSTANCE : new PushInstruction(values[slot]));
+                slot++;
+            }
+            if (i < statementCount) {
+                result.add(instructions.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Decompiles batches of classes on a work-stealing pool. Classes with many methods are split so
+ * that their methods are decompiled in parallel as well. The results are always returned in the
+ * order of the input, i.e. the output is the same as for a single-threaded run.
+ */
+public final class ParallelDecompiler implements AutoCloseable {
+    /** Classes with more methods than this are split into several tasks. */
+    private static final int METHODS_PER_TASK = 32;
+
+    private final Decompiler decompiler;
+    private final ForkJoinPool pool;
+
+    public ParallelDecompiler(Decompiler decompiler, int parallelism) {
+        this.decompiler = decompiler;
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    public ParallelDecompiler(Decompiler decompiler) {
+        this(decompiler, Runtime.getRuntime().availableProcessors());
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public List<DecompiledClass> decompile(List<byte[]> classFiles) {
+        return decompile(classFiles.size(), classFiles::get);
+    }
+
+    /**
+     * Decompiles all classes in the given archive, including nested archives. Entries are
+     * decompressed by the worker threads, so that only the classes currently being processed are
+     * held in memory in their raw form.
+     */
+    public List<DecompiledClass> decompile(MappedArchive archive) throws IOException {
+        List<ArchiveEntry> entries = archive.getClassEntries();
+        DecompiledClass[] result = new DecompiledClass[entries.size()];
+        try {
+            decompile(entries.size(), getBytes(entries), (c, i) -> result[i] = c);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        return toList(result);
+    }
+
+    /**
+     * Decompiles all classes in the given archive and writes the source code to the given
+     * directory. Each class is rendered to disk by the worker thread that decompiled it, so that
+     * neither the AST nor the source of the whole archive is held in memory.
+     */
+    public void decompile(MappedArchive archive, Path outputDirectory) throws IOException {
+        List<ArchiveEntry> entries = archive.getClassEntries();
+        try {
+            decompile(
+                    entries.size(),
+                    getBytes(entries),
+                    (c, i) -> {
+                        try {
+                            SourceRenderer.write(c, outputDirectory);
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static IntFunction<byte[]> getBytes(List<ArchiveEntry> entries) {
+        return i -> {
+            try {
+                return entries.get(i).getBytes();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        };
+    }
+
+    private List<DecompiledClass> decompile(int count, IntFunction<byte[]> classFiles) {
+        DecompiledClass[] result = new DecompiledClass[count];
+        decompile(count, classFiles, (c, i) -> result[i] = c);
+        return toList(result);
+    }
+
+    /** Converts the results to a list, removing the classes rejected by the filter. */
+    private static List<DecompiledClass> toList(DecompiledClass[] result) {
+        List<DecompiledClass> list = new ArrayList<>(result.length);
+        for (DecompiledClass decompiledClass : result) {
+            if (decompiledClass != null) {
+                list.add(decompiledClass);
+            }
+        }
+        return list;
+    }
+
+    private void decompile(
+            int count,
+            IntFunction<byte[]> classFiles,
+            ObjIntConsumer<DecompiledClass> resultConsumer) {
+        pool.invoke(new ClassRangeTask(classFiles, resultConsumer, 0, count));
+    }
+
+    private List<DecompiledMethod> decompileMethods(ClassReader reader) {
+        int methodCount = ClassFiles.getMethodCount(reader);
+        if (methodCount <= METHODS_PER_TASK) {
+            return decompiler.decompileMethods(reader, 0, methodCount);
+        }
+        List<MethodRangeTask> tasks = new ArrayList<>();
+        for (int i = 0; i < methodCount; i += METHODS_PER_TASK) {
+            tasks.add(new MethodRangeTask(reader, i, Math.min(i + METHODS_PER_TASK, methodCount)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+        List<DecompiledMethod> methods = new ArrayList<>(methodCount);
+        for (MethodRangeTask task : tasks) {
+            methods.addAll(task.join());
+        }
+        return methods;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private final class ClassRangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final IntFunction<byte[]> classFiles;
+        private final ObjIntConsumer<DecompiledClass> resultConsumer;
+        private final int start;
+        private final int end;
+
+        ClassRangeTask(
+                IntFunction<byte[]> classFiles,
+                ObjIntConsumer<DecompiledClass> resultConsumer,
+                int start,
+                int end) {
+            this.classFiles = classFiles;
+            this.resultConsumer = resultConsumer;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > 1) {
+                int middle = (start + end) >>> 1;
+                invokeAll(
+                        new ClassRangeTask(classFiles, resultConsumer, start, middle),
+                        new ClassRangeTask(classFiles, resultConsumer, middle, end));
+            } else if (end > start) {
+                DecompiledClass result =
+                        decompiler.decompile(
+                                classFiles.apply(start), ParallelDecompiler.this::decompileMethods);
+                if (result != null) {
+                    resultConsumer.accept(result, start);
+                }
+            }
+        }
+    }
+
+    private final class MethodRangeTask extends RecursiveTask<List<DecompiledMethod>> {
+        private static final long serialVersionUID = 1L;
+
+        private final ClassReader reader;
+        private final int firstMethod;
+        private final int lastMethod;
+
+        MethodRangeTask(ClassReader reader, int firstMethod, int lastMethod) {
+            this.reader = reader;
+            this.firstMethod = firstMethod;
+            this.lastMethod = lastMethod;
+        }
+
+        @Override
+        protected List<DecompiledMethod> compute() {
+            return decompiler.decompileMethods(reader, firstMethod, lastMethod);
+        }
+    }
+}
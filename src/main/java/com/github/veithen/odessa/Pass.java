@@ -0,0 +1,441 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.objectweb.asm.Label;
+
+/**
+ * A set of {@link RewriteRule}s applied bottom-up to every expression of a method in a single
+ * traversal. Rules are indexed by the exact class of the nodes they match, so that each node is
+ * only checked against the relevant rules. Instances are thread-safe once all rules have been
+ * added; the time spent in the pass is accumulated across threads.
+ */
+// Rules signal that they don't apply by returning the node itself, so changes are detected by
+// identity.
+@SuppressWarnings("ReferenceEquality")
+public final class Pass {
+    private final String name;
+    private final Map<Class<?>, RewriteRule<Expression>[]> rules = new HashMap<>();
+    private final LongAdder time = new LongAdder();
+    private final LongAdder runCount = new LongAdder();
+    private final InstructionRewriter instructionRewriter = new InstructionRewriter();
+    private final ChildRewriter childRewriter = new ChildRewriter();
+
+    public Pass(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Registers a rule. Rules are matched against the exact class of the node; to match several
+     * node types, the rule must be registered for each of them. Rules registered for the same type
+     * are tried in registration order.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Expression> void addRule(Class<T> type, RewriteRule<? super T> rule) {
+        RewriteRule<Expression>[] existing = rules.get(type);
+        RewriteRule<Expression>[] updated;
+        if (existing == null) {
+            updated = (RewriteRule<Expression>[]) new RewriteRule<?>[1];
+        } else {
+            updated = Arrays.copyOf(existing, existing.length + 1);
+        }
+        updated[updated.length - 1] = (RewriteRule<Expression>) rule;
+        rules.put(type, updated);
+    }
+
+    /** Returns the total time spent in this pass. */
+    public long getTime(TimeUnit unit) {
+        return unit.convert(time.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /** Returns the number of methods this pass has been applied to. */
+    public long getRunCount() {
+        return runCount.sum();
+    }
+
+    /** Rewrites the given instructions in place. */
+    void run(List<Instruction> instructions) {
+        long start = System.nanoTime();
+        for (int i = 0; i < instructions.size(); i++) {
+            Instruction instruction = instructions.get(i);
+            Instruction rewritten = instruction.accept(instructionRewriter);
+            if (rewritten != instruction) {
+                instructions.set(i, rewritten);
+            }
+        }
+        time.add(System.nanoTime() - start);
+        runCount.increment();
+    }
+
+    private Expression rewrite(Expression expression) {
+        if (expression == null) {
+            return null;
+        }
+        Expression current = expression.accept(childRewriter);
+        RewriteRule<Expression>[] candidates = rules.get(current.getClass());
+        int i = 0;
+        while (candidates != null && i < candidates.length) {
+            Expression rewritten = candidates[i].rewrite(current);
+            if (rewritten == current) {
+                i++;
+            } else {
+                // The replacement is a new root; its children have already been processed.
+                current = rewritten;
+                candidates = rules.get(current.getClass());
+                i = 0;
+            }
+        }
+        return current;
+    }
+
+    /** Returns a copy of the array with rewritten elements, or {@code null} if nothing changed. */
+    private Expression[] rewrite(ArgList args) {
+        Expression[] result = null;
+        for (int i = 0; i < args.size(); i++) {
+            Expression arg = args.get(i);
+            Expression rewritten = rewrite(arg);
+            if (rewritten != arg && result == null) {
+                result = new Expression[args.size()];
+                for (int j = 0; j < i; j++) {
+                    result[j] = args.get(j);
+                }
+            }
+            if (result != null) {
+                result[i] = rewritten;
+            }
+        }
+        return result;
+    }
+
+    private static Expression[] toArray(ArgList args) {
+        Expression[] array = new Expression[args.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = args.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Rewrites the expressions in an instruction. Returns the instruction itself if nothing
+     * changed.
+     */
+    private final class InstructionRewriter implements InstructionVisitor<Instruction> {
+        @Override
+        public Instruction visitBytecode(BytecodeInstruction instruction) {
+            return instruction;
+        }
+
+        @Override
+        public Instruction visitConditionalJump(ConditionalJumpInstruction instruction) {
+            Expression expression = rewrite(instruction.getExpression());
+            return expression == instruction.getExpression()
+                    ? instruction
+                    : new ConditionalJumpInstruction(expression, instruction.getLabel());
+        }
+
+        @Override
+        public Instruction visitDup(DupInstruction instruction) {
+            return instruction;
+        }
+
+        @Override
+        public Instruction visitExpression(ExpressionInstruction instruction) {
+            Expression expression = rewrite(instruction.getExpression());
+            return expression == instruction.getExpression()
+                    ? instruction
+                    : new ExpressionInstruction(expression);
+        }
+
+        @Override
+        public Instruction visitGoto(GotoInstruction instruction) {
+            return instruction;
+        }
+
+        @Override
+        public Instruction visitMonitor(MonitorInstruction instruction) {
+            Expression expression = rewrite(instruction.getExpression());
+            return expression == instruction.getExpression()
+                    ? instruction
+                    : new MonitorInstruction(instruction.isEnter(), expression);
+        }
+
+        @Override
+        public Instruction visitPush(PushInstruction instruction) {
+            Expression expression = rewrite(instruction.getExpression());
+            return expression == instruction.getExpression()
+                    ? instruction
+                    : new PushInstruction(expression);
+        }
+
+        @Override
+        public Instruction visitReturn(ReturnInstruction instruction) {
+            Expression expression = rewrite(instruction.getExpression());
+            return expression == instruction.getExpression()
+                    ? instruction
+                    : new ReturnInstruction(expression);
+        }
+
+        @Override
+        public Instruction visitSuperclassConstructorInvocation(
+                SuperclassConstructorInvocation instruction) {
+            Expression[] args = rewrite(instruction.getArgs());
+            return args == null ? instruction : new SuperclassConstructorInvocation(args);
+        }
+
+        @Override
+        public Instruction visitSwitch(SwitchInstruction instruction) {
+            Expression expression = rewrite(instruction.getExpression());
+            if (expression == instruction.getExpression()) {
+                return instruction;
+            }
+            int[] keys = new int[instruction.getCaseCount()];
+            Label[] labels = new Label[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = instruction.getKey(i);
+                labels[i] = instruction.getLabel(i);
+            }
+            return new SwitchInstruction(expression, keys, labels, instruction.getDefaultLabel());
+        }
+
+        @Override
+        public Instruction visitThrow(ThrowInstruction instruction) {
+            Expression expression = rewrite(instruction.getExpression());
+            return expression == instruction.getExpression()
+                    ? instruction
+                    : new ThrowInstruction(expression);
+        }
+    }
+
+    /**
+     * Rewrites the children of an expression, but not the expression itself. Returns the expression
+     * itself if nothing changed.
+     */
+    private final class ChildRewriter implements ExpressionVisitor<Expression> {
+        @Override
+        public Expression visitArrayElement(ArrayElementExpression expression) {
+            Expression array = rewrite(expression.getArray());
+            Expression index = rewrite(expression.getIndex());
+            return array == expression.getArray() && index == expression.getIndex()
+                    ? expression
+                    : new ArrayElementExpression(array, index);
+        }
+
+        @Override
+        public Expression visitArrayInitializer(ArrayInitializerExpression expression) {
+            ArrayInitializerExpression result = expression;
+            for (int i = 0; i < expression.getLength(); i++) {
+                Expression element = expression.getElement(i);
+                Expression rewritten = rewrite(element);
+                if (rewritten != element) {
+                    result = result.withElement(i, rewritten);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public Expression visitArrayLength(ArrayLengthExpression expression) {
+            Expression array = rewrite(expression.getArray());
+            return array == expression.getArray() ? expression : new ArrayLengthExpression(array);
+        }
+
+        @Override
+        public Expression visitAssignment(AssignmentExpression expression) {
+            // Only the children of the target are rewritten; the target must remain an lvalue.
+            LvalueExpression target = (LvalueExpression) expression.getTarget().accept(this);
+            Expression value = rewrite(expression.getExpression());
+            return target == expression.getTarget() && value == expression.getExpression()
+                    ? expression
+                    : new AssignmentExpression(target, value);
+        }
+
+        @Override
+        public Expression visitBinary(BinaryExpression expression) {
+            Expression operand1 = rewrite(expression.getOperand1());
+            Expression operand2 = rewrite(expression.getOperand2());
+            return operand1 == expression.getOperand1() && operand2 == expression.getOperand2()
+                    ? expression
+                    : new BinaryExpression(operand1, operand2, expression.getOperator());
+        }
+
+        @Override
+        public Expression visitCast(CastExpression expression) {
+            Expression operand = rewrite(expression.getExpression());
+            return operand == expression.getExpression()
+                    ? expression
+                    : new CastExpression(expression.getType(), operand);
+        }
+
+        @Override
+        public Expression visitCaughtException(CaughtExceptionExpression expression) {
+            return expression;
+        }
+
+        @Override
+        public Expression visitCompare(CompareExpression expression) {
+            Expression operand1 = rewrite(expression.getOperand1());
+            Expression operand2 = rewrite(expression.getOperand2());
+            return operand1 == expression.getOperand1() && operand2 == expression.getOperand2()
+                    ? expression
+                    : new CompareExpression(operand1, operand2, expression.getNanResult());
+        }
+
+        @Override
+        public Expression visitConditional(ConditionalExpression expression) {
+            Expression condition = rewrite(expression.getCondition());
+            Expression expression1 = rewrite(expression.getExpression1());
+            Expression expression2 = rewrite(expression.getExpression2());
+            return condition == expression.getCondition()
+                            && expression1 == expression.getExpression1()
+                            && expression2 == expression.getExpression2()
+                    ? expression
+                    : new ConditionalExpression(condition, expression1, expression2);
+        }
+
+        @Override
+        public Expression visitDoubleConstant(DoubleConstantExpression expression) {
+            return expression;
+        }
+
+        @Override
+        public Expression visitField(FieldExpression expression) {
+            Expression target = rewrite(expression.getTarget());
+            return target == expression.getTarget()
+                    ? expression
+                    : new FieldExpression(expression.getOwner(), target, expression.getName());
+        }
+
+        @Override
+        public Expression visitFloatConstant(FloatConstantExpression expression) {
+            return expression;
+        }
+
+        @Override
+        public Expression visitInstanceOf(InstanceOfExpression expression) {
+            Expression operand = rewrite(expression.getExpression());
+            return operand == expression.getExpression()
+                    ? expression
+                    : new InstanceOfExpression(operand, expression.getType());
+        }
+
+        @Override
+        public Expression visitIntConstant(IntConstantExpression expression) {
+            return expression;
+        }
+
+        @Override
+        public Expression visitInvokeDynamic(InvokeDynamicExpression expression) {
+            Expression[] args = rewrite(expression.getArgs());
+            return args == null
+                    ? expression
+                    : new InvokeDynamicExpression(expression.getName(), args);
+        }
+
+        @Override
+        public Expression visitInvokeMethod(InvokeMethodExpression expression) {
+            Expression target = rewrite(expression.getTarget());
+            Expression[] args = rewrite(expression.getArgs());
+            if (target == expression.getTarget() && args == null) {
+                return expression;
+            }
+            return new InvokeMethodExpression(
+                    target,
+                    expression.getName(),
+                    args == null ? toArray(expression.getArgs()) : args);
+        }
+
+        @Override
+        public Expression visitInvokeStaticMethod(InvokeStaticMethodExpression expression) {
+            Expression[] args = rewrite(expression.getArgs());
+            return args == null
+                    ? expression
+                    : new InvokeStaticMethodExpression(
+                            expression.getOwner(), expression.getName(), args);
+        }
+
+        @Override
+        public Expression visitLongConstant(LongConstantExpression expression) {
+            return expression;
+        }
+
+        @Override
+        public Expression visitNegation(NegationExpression expression) {
+            Expression operand = rewrite(expression.getOperand());
+            return operand == expression.getOperand()
+                    ? expression
+                    : new NegationExpression(operand);
+        }
+
+        @Override
+        public Expression visitNewArray(NewArrayExpression expression) {
+            Expression[] dimensions = rewrite(expression.getDimensions());
+            return dimensions == null
+                    ? expression
+                    : new NewArrayExpression(expression.getType(), dimensions);
+        }
+
+        @Override
+        public Expression visitNew(NewExpression expression) {
+            Expression[] args = rewrite(expression.getArgs());
+            return args == null ? expression : new NewExpression(expression.getType(), args);
+        }
+
+        @Override
+        public Expression visitPostIncrement(PostIncrementExpression expression) {
+            return expression;
+        }
+
+        @Override
+        public Expression visitPreIncrement(PreIncrementExpression expression) {
+            return expression;
+        }
+
+        @Override
+        public Expression visitRawNew(RawNewExpression expression) {
+            return expression;
+        }
+
+        @Override
+        public Expression visitReferenceConstant(ReferenceConstantExpression expression) {
+            return expression;
+        }
+
+        @Override
+        public Expression visitVariable(VariableExpression expression) {
+            return expression;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + getTime(TimeUnit.MICROSECONDS) + " us in " + getRunCount() + " runs";
+    }
+}
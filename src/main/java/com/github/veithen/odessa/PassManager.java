@@ -0,0 +1,72 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs a sequence of {@link Pass}es over the instructions of each decompiled method. Passes are
+ * configured before the decompiler is used; after that, instances are thread-safe.
+ */
+public final class PassManager {
+    private final List<Pass> passes = new ArrayList<>();
+
+    /** Creates a pass manager with the default passes. */
+    static PassManager createDefault() {
+        PassManager passManager = new PassManager();
+        Pass constantFolding = new Pass("constant-folding");
+        constantFolding.addRule(BinaryExpression.class, ConstantFolder::fold);
+        constantFolding.addRule(CompareExpression.class, ConstantFolder::fold);
+        passManager.addPass(constantFolding);
+        return passManager;
+    }
+
+    public void addPass(Pass pass) {
+        passes.add(pass);
+    }
+
+    public List<Pass> getPasses() {
+        return Collections.unmodifiableList(passes);
+    }
+
+    /**
+     * Returns a string that identifies the configured passes. This is used as part of the cache
+     * key.
+     */
+    String getSignature() {
+        StringBuilder buffer = new StringBuilder();
+        for (Pass pass : passes) {
+            if (buffer.length() > 0) {
+                buffer.append(',');
+            }
+            buffer.append(pass.getName());
+        }
+        return buffer.toString();
+    }
+
+    /** Applies all passes to the given (mutable) list of instructions. */
+    void run(List<Instruction> instructions) {
+        for (Pass pass : passes) {
+            pass.run(instructions);
+        }
+    }
+}
@@ -19,6 +19,8 @@
  */
 package com.github.veithen.odessa;
 
+import java.io.IOException;
+
 public final class PostIncrementExpression extends IncrementExpression {
     public PostIncrementExpression(int varIndex, int increment) {
         super(varIndex, increment);
@@ -30,14 +32,35 @@ public final class PostIncrementExpression extends IncrementExpression {
     }
 
     @Override
-    public String toString() {
+    public void appendTo(Appendable out) throws IOException {
         switch (increment) {
             case -1:
-                return "$" + varIndex + "--";
+                out.append('$').append(Integer.toString(varIndex)).append("--");
+                break;
             case 1:
-                return "$" + varIndex + "++";
+                out.append('$').append(Integer.toString(varIndex)).append("++");
+                break;
             default:
                 throw new UnsupportedOperationException();
         }
     }
+
+    @Override
+    protected int computeHashCode() {
+        return (0x504F + varIndex) * 31 + increment;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof PostIncrementExpression)) {
+            return false;
+        }
+        PostIncrementExpression other = (PostIncrementExpression) obj;
+        return varIndex == other.varIndex && increment == other.increment;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitPostIncrement(this);
+    }
 }
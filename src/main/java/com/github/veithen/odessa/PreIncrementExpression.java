@@ -19,6 +19,8 @@
  */
 package com.github.veithen.odessa;
 
+import java.io.IOException;
+
 public final class PreIncrementExpression extends IncrementExpression {
     public PreIncrementExpression(int varIndex, int increment) {
         super(varIndex, increment);
@@ -30,14 +32,38 @@ public final class PreIncrementExpression extends IncrementExpression {
     }
 
     @Override
-    public String toString() {
+    public void appendTo(Appendable out) throws IOException {
         switch (increment) {
             case -1:
-                return "--$" + varIndex;
+                out.append("--$").append(Integer.toString(varIndex));
+                break;
             case 1:
-                return "++$" + varIndex;
+                out.append("++$").append(Integer.toString(varIndex));
+                break;
             default:
-                return "$" + varIndex + " += " + increment;
+                out.append('$')
+                        .append(Integer.toString(varIndex))
+                        .append(" += ")
+                        .append(Integer.toString(increment));
         }
     }
+
+    @Override
+    protected int computeHashCode() {
+        return (0x5052 + varIndex) * 31 + increment;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof PreIncrementExpression)) {
+            return false;
+        }
+        PreIncrementExpression other = (PreIncrementExpression) obj;
+        return varIndex == other.varIndex && increment == other.increment;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitPreIncrement(this);
+    }
 }
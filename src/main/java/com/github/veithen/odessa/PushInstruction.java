@@ -19,6 +19,8 @@
  */
 package com.github.veithen.odessa;
 
+import java.io.IOException;
+
 public final class PushInstruction extends Instruction {
     private final Expression expression;
 
@@ -31,7 +33,14 @@ public final class PushInstruction extends Instruction {
     }
 
     @Override
-    public String toString() {
-        return "PUSH " + expression + ";";
+    public void appendTo(Appendable out) throws IOException {
+        out.append("PUSH ");
+        expression.appendTo(out);
+        out.append(';');
+    }
+
+    @Override
+    public <R> R accept(InstructionVisitor<R> visitor) {
+        return visitor.visitPush(this);
     }
 }
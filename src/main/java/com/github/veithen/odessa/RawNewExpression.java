@@ -19,20 +19,48 @@
  */
 package com.github.veithen.odessa;
 
+import java.io.IOException;
 /** Expression that creates a new instance of a given type without calling a constructor. */
 public final class RawNewExpression extends Expression {
     private final String type;
 
     public RawNewExpression(String type) {
-        this.type = type;
+        this.type = SymbolTable.canonicalize(type);
     }
 
     @Override
     public boolean isPure() {
-        return false;
+        // Allocating an object that is not yet initialized has no observable side effects.
+        return true;
     }
 
     public String getType() {
         return type;
     }
+
+    @Override
+    protected int computeHashCode() {
+        return 0x524E + type.hashCode();
+    }
+
+    // Symbols are canonicalized by the constructor.
+    @SuppressWarnings("ReferenceEquality")
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof RawNewExpression)) {
+            return false;
+        }
+        return type == ((RawNewExpression) obj).type;
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        out.append("new ");
+        appendClassName(out, type);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitRawNew(this);
+    }
 }
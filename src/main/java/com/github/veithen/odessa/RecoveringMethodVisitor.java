@@ -0,0 +1,226 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.util.function.Consumer;
+
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Forwards events to a {@link MethodVisitorImpl} until it throws a {@link DecompilationException},
+ * after which the remaining events for the method are ignored. This allows the other methods of the
+ * class to be decompiled.
+ */
+final class RecoveringMethodVisitor extends MethodVisitor {
+    private final MethodVisitorImpl target;
+    private final Consumer<DecompilationException> failureConsumer;
+    private DecompilationException failure;
+
+    /**
+     * Constructor.
+     *
+     * @param failureConsumer notified in {@link #visitEnd()} if the method couldn't be decompiled;
+     *     otherwise the event is forwarded to the target
+     */
+    RecoveringMethodVisitor(
+            MethodVisitorImpl target, Consumer<DecompilationException> failureConsumer) {
+        super(Opcodes.ASM9, target);
+        this.target = target;
+        this.failureConsumer = failureConsumer;
+    }
+
+    /** Prepares the instance for the next method. */
+    void reset() {
+        mv = target;
+        failure = null;
+    }
+
+    private void fail(DecompilationException ex) {
+        failure = ex;
+        mv = null;
+    }
+
+    @Override
+    public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+        try {
+            super.visitFrame(type, numLocal, local, numStack, stack);
+        } catch (DecompilationException ex) {
+            fail(ex);
+        }
+    }
+
+    @Override
+    public void visitInsn(int opcode) {
+        try {
+            super.visitInsn(opcode);
+        } catch (DecompilationException ex) {
+            fail(ex);
+        }
+    }
+
+    @Override
+    public void visitIntInsn(int opcode, int operand) {
+        try {
+            super.visitIntInsn(opcode, operand);
+        } catch (DecompilationException ex) {
+            fail(ex);
+        }
+    }
+
+    @Override
+    public void visitVarInsn(int opcode, int varIndex) {
+        try {
+            super.visitVarInsn(opcode, varIndex);
+        } catch (DecompilationException ex) {
+            fail(ex);
+        }
+    }
+
+    @Override
+    public void visitTypeInsn(int opcode, String type) {
+        try {
+            super.visitTypeInsn(opcode, type);
+        } catch (DecompilationException ex) {
+            fail(ex);
+        }
+    }
+
+    @Override
+    public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+        try {
+            super.visitFieldInsn(opcode, owner, name, descriptor);
+        } catch (DecompilationException ex) {
+            fail(ex);
+        }
+    }
+
+    @Override
+    public void visitMethodInsn(
+            int opcode, String owner, String name, String descriptor, boolean isInterface) {
+        try {
+            super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+        } catch (DecompilationException ex) {
+            fail(ex);
+        }
+    }
+
+    @Override
+    public void visitInvokeDynamicInsn(
+            String name,
+            String descriptor,
+            Handle bootstrapMethodHandle,
+            Object... bootstrapMethodArguments) {
+        try {
+            super.visitInvokeDynamicInsn(
+                    name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments);
+        } catch (DecompilationException ex) {
+            fail(ex);
+        }
+    }
+
+    @Override
+    public void visitJumpInsn(int opcode, Label label) {
+        try {
+            super.visitJumpInsn(opcode, label);
+        } catch (DecompilationException ex) {
+            fail(ex);
+        }
+    }
+
+    @Override
+    public void visitLabel(Label label) {
+        try {
+            super.visitLabel(label);
+        } catch (DecompilationException ex) {
+            fail(ex);
+        }
+    }
+
+    @Override
+    public void visitLdcInsn(Object value) {
+        try {
+            super.visitLdcInsn(value);
+        } catch (DecompilationException ex) {
+            fail(ex);
+        }
+    }
+
+    @Override
+    public void visitIincInsn(int varIndex, int increment) {
+        try {
+            super.visitIincInsn(varIndex, increment);
+        } catch (DecompilationException ex) {
+            fail(ex);
+        }
+    }
+
+    @Override
+    public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+        try {
+            super.visitTableSwitchInsn(min, max, dflt, labels);
+        } catch (DecompilationException ex) {
+            fail(ex);
+        }
+    }
+
+    @Override
+    public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+        try {
+            super.visitLookupSwitchInsn(dflt, keys, labels);
+        } catch (DecompilationException ex) {
+            fail(ex);
+        }
+    }
+
+    @Override
+    public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+        try {
+            super.visitMultiANewArrayInsn(descriptor, numDimensions);
+        } catch (DecompilationException ex) {
+            fail(ex);
+        }
+    }
+
+    @Override
+    public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+        try {
+            super.visitTryCatchBlock(start, end, handler, type);
+        } catch (DecompilationException ex) {
+            fail(ex);
+        }
+    }
+
+    @Override
+    public void visitEnd() {
+        if (failure == null) {
+            // The passes and the final stack checks run when the method ends.
+            try {
+                super.visitEnd();
+                return;
+            } catch (DecompilationException ex) {
+                failure = ex;
+            }
+        }
+        failureConsumer.accept(failure);
+    }
+}
@@ -0,0 +1,286 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Walks the instructions of a method and reports the symbols referenced by them. See {@link
+ * ReferenceKind} for the symbols recorded for each kind of reference.
+ */
+final class ReferenceCollector implements InstructionVisitor<Void>, ExpressionVisitor<Void> {
+    private final BiConsumer<ReferenceKind, String> consumer;
+
+    ReferenceCollector(BiConsumer<ReferenceKind, String> consumer) {
+        this.consumer = consumer;
+    }
+
+    void collect(List<Instruction> instructions) {
+        for (Instruction instruction : instructions) {
+            instruction.accept(this);
+        }
+    }
+
+    private void scan(Expression expression) {
+        if (expression != null) {
+            expression.accept(this);
+        }
+    }
+
+    private void scan(ArgList args) {
+        for (int i = 0; i < args.size(); i++) {
+            scan(args.get(i));
+        }
+    }
+
+    @Override
+    public Void visitBytecode(BytecodeInstruction instruction) {
+        return null;
+    }
+
+    @Override
+    public Void visitConditionalJump(ConditionalJumpInstruction instruction) {
+        scan(instruction.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitDup(DupInstruction instruction) {
+        return null;
+    }
+
+    @Override
+    public Void visitExpression(ExpressionInstruction instruction) {
+        scan(instruction.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitGoto(GotoInstruction instruction) {
+        return null;
+    }
+
+    @Override
+    public Void visitMonitor(MonitorInstruction instruction) {
+        scan(instruction.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitPush(PushInstruction instruction) {
+        scan(instruction.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitReturn(ReturnInstruction instruction) {
+        scan(instruction.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitSuperclassConstructorInvocation(SuperclassConstructorInvocation instruction) {
+        scan(instruction.getArgs());
+        return null;
+    }
+
+    @Override
+    public Void visitSwitch(SwitchInstruction instruction) {
+        scan(instruction.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitThrow(ThrowInstruction instruction) {
+        scan(instruction.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitArrayElement(ArrayElementExpression expression) {
+        scan(expression.getArray());
+        scan(expression.getIndex());
+        return null;
+    }
+
+    @Override
+    public Void visitArrayInitializer(ArrayInitializerExpression expression) {
+        for (int i = 0; i < expression.getLength(); i++) {
+            scan(expression.getElement(i));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitArrayLength(ArrayLengthExpression expression) {
+        scan(expression.getArray());
+        return null;
+    }
+
+    @Override
+    public Void visitAssignment(AssignmentExpression expression) {
+        LvalueExpression target = expression.getTarget();
+        if (target instanceof FieldExpression) {
+            FieldExpression field = (FieldExpression) target;
+            consumer.accept(ReferenceKind.FIELD_WRITE, field.getOwner() + "." + field.getName());
+            scan(field.getTarget());
+        } else {
+            scan(target);
+        }
+        scan(expression.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitBinary(BinaryExpression expression) {
+        scan(expression.getOperand1());
+        scan(expression.getOperand2());
+        return null;
+    }
+
+    @Override
+    public Void visitCast(CastExpression expression) {
+        scan(expression.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitCaughtException(CaughtExceptionExpression expression) {
+        return null;
+    }
+
+    @Override
+    public Void visitCompare(CompareExpression expression) {
+        scan(expression.getOperand1());
+        scan(expression.getOperand2());
+        return null;
+    }
+
+    @Override
+    public Void visitConditional(ConditionalExpression expression) {
+        scan(expression.getCondition());
+        scan(expression.getExpression1());
+        scan(expression.getExpression2());
+        return null;
+    }
+
+    @Override
+    public Void visitDoubleConstant(DoubleConstantExpression expression) {
+        return null;
+    }
+
+    @Override
+    public Void visitField(FieldExpression expression) {
+        consumer.accept(
+                ReferenceKind.FIELD_READ, expression.getOwner() + "." + expression.getName());
+        scan(expression.getTarget());
+        return null;
+    }
+
+    @Override
+    public Void visitFloatConstant(FloatConstantExpression expression) {
+        return null;
+    }
+
+    @Override
+    public Void visitInstanceOf(InstanceOfExpression expression) {
+        scan(expression.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitIntConstant(IntConstantExpression expression) {
+        return null;
+    }
+
+    @Override
+    public Void visitInvokeDynamic(InvokeDynamicExpression expression) {
+        scan(expression.getArgs());
+        return null;
+    }
+
+    @Override
+    public Void visitInvokeMethod(InvokeMethodExpression expression) {
+        consumer.accept(ReferenceKind.CALL, expression.getName());
+        scan(expression.getTarget());
+        scan(expression.getArgs());
+        return null;
+    }
+
+    @Override
+    public Void visitInvokeStaticMethod(InvokeStaticMethodExpression expression) {
+        consumer.accept(ReferenceKind.CALL, expression.getName());
+        consumer.accept(ReferenceKind.CALL, expression.getOwner() + "." + expression.getName());
+        scan(expression.getArgs());
+        return null;
+    }
+
+    @Override
+    public Void visitLongConstant(LongConstantExpression expression) {
+        return null;
+    }
+
+    @Override
+    public Void visitNegation(NegationExpression expression) {
+        scan(expression.getOperand());
+        return null;
+    }
+
+    @Override
+    public Void visitNewArray(NewArrayExpression expression) {
+        scan(expression.getDimensions());
+        return null;
+    }
+
+    @Override
+    public Void visitNew(NewExpression expression) {
+        consumer.accept(ReferenceKind.INSTANTIATION, expression.getType());
+        scan(expression.getArgs());
+        return null;
+    }
+
+    @Override
+    public Void visitPostIncrement(PostIncrementExpression expression) {
+        return null;
+    }
+
+    @Override
+    public Void visitPreIncrement(PreIncrementExpression expression) {
+        return null;
+    }
+
+    @Override
+    public Void visitRawNew(RawNewExpression expression) {
+        // The constructor invocation couldn't be matched, but the object is still created.
+        consumer.accept(ReferenceKind.INSTANTIATION, expression.getType());
+        return null;
+    }
+
+    @Override
+    public Void visitReferenceConstant(ReferenceConstantExpression expression) {
+        return null;
+    }
+
+    @Override
+    public Void visitVariable(VariableExpression expression) {
+        return null;
+    }
+}
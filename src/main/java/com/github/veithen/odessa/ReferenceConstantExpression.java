@@ -0,0 +1,114 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Objects;
+
+import org.objectweb.asm.Type;
+
+/** A {@code null}, string, class literal or other non numeric constant. */
+public final class ReferenceConstantExpression extends ConstantExpression {
+    public static final ReferenceConstantExpression NULL = new ReferenceConstantExpression(null);
+
+    private final Object value;
+
+    public ReferenceConstantExpression(Object value) {
+        this.value = value;
+    }
+
+    @Override
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        if (value instanceof String) {
+            appendStringLiteral(out, (String) value);
+        } else if (value instanceof Type && ((Type) value).getSort() != Type.METHOD) {
+            out.append(((Type) value).getClassName()).append(".class");
+        } else {
+            out.append(String.valueOf(value));
+        }
+    }
+
+    /**
+     * Appends a string literal. Besides the usual escape sequences, control characters and unpaired
+     * surrogates are escaped, so that the output can be encoded in any Unicode encoding.
+     */
+    private static void appendStringLiteral(Appendable out, String s) throws IOException {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\b':
+                    out.append("\\b");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\f':
+                    out.append("\\f");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                default:
+                    if (Character.isHighSurrogate(c)
+                            && i + 1 < s.length()
+                            && Character.isLowSurrogate(s.charAt(i + 1))) {
+                        out.append(c).append(s.charAt(++i));
+                    } else if (c < 0x20 || c == 0x7F || Character.isSurrogate(c)) {
+                        out.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return 0x434F + Objects.hashCode(value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof ReferenceConstantExpression
+                && Objects.equals(((ReferenceConstantExpression) obj).value, value);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitReferenceConstant(this);
+    }
+}
@@ -0,0 +1,38 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+/** The kinds of references recorded by {@link SymbolIndex}. */
+public enum ReferenceKind {
+    /**
+     * Method invocation. The symbol is the method name; static invocations are also recorded under
+     * the qualified name {@code owner.name}, where the owner is an internal class name.
+     */
+    CALL,
+
+    /** Field read. The symbol is {@code owner.name}. */
+    FIELD_READ,
+
+    /** Field write. The symbol is {@code owner.name}. */
+    FIELD_WRITE,
+
+    /** Object instantiation. The symbol is the internal name of the class. */
+    INSTANTIATION;
+}
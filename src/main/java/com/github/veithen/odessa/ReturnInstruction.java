@@ -19,9 +19,9 @@
  */
 package com.github.veithen.odessa;
 
+import java.io.IOException;
 import java.util.Objects;
 
-@SuppressWarnings("EqualsHashCode")
 public final class ReturnInstruction extends Instruction {
     private final Expression expression;
 
@@ -29,9 +29,24 @@ public final class ReturnInstruction extends Instruction {
         this.expression = expression;
     }
 
+    public Expression getExpression() {
+        return expression;
+    }
+
     @Override
-    public String toString() {
-        return expression == null ? "return;" : "return " + expression + ";";
+    public void appendTo(Appendable out) throws IOException {
+        if (expression == null) {
+            out.append("return;");
+        } else {
+            out.append("return ");
+            expression.appendTo(out);
+            out.append(';');
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(expression);
     }
 
     @Override
@@ -42,4 +57,9 @@ public final class ReturnInstruction extends Instruction {
         ReturnInstruction other = (ReturnInstruction) obj;
         return Objects.equals(expression, other.expression);
     }
+
+    @Override
+    public <R> R accept(InstructionVisitor<R> visitor) {
+        return visitor.visitReturn(this);
+    }
 }
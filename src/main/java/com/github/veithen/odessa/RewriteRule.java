@@ -0,0 +1,37 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+/**
+ * Rewrites expressions of a given type. Rules are registered with a {@link Pass} and are only
+ * invoked for nodes of the type they were registered for. The children of the node have already
+ * been rewritten when the rule is invoked.
+ *
+ * @param <T> the type of expression the rule applies to
+ */
+@FunctionalInterface
+public interface RewriteRule<T extends Expression> {
+    /**
+     * Rewrites the given expression.
+     *
+     * @return the replacement, or the expression itself if the rule doesn't apply
+     */
+    Expression rewrite(T expression);
+}
@@ -0,0 +1,315 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Renders decompiled code as source. Output is streamed to the underlying {@link Appendable} in a
+ * single pass over the AST, without building intermediate strings for subtrees.
+ */
+public final class SourceRenderer {
+    private static final String INDENT = "    ";
+
+    private final Appendable out;
+
+    public SourceRenderer(Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * Renders the given class to a file in the given directory. The path of the file is derived
+     * from the class name.
+     *
+     * @return the path of the file that has been written
+     * @throws IOException if the file couldn't be written or if the class name (which comes from an
+     *     untrusted class file) would result in a path outside of the directory
+     */
+    public static Path write(DecompiledClass decompiledClass, Path directory) throws IOException {
+        Path base = directory.toAbsolutePath().normalize();
+        Path file = base.resolve(decompiledClass.getName() + ".java").normalize();
+        if (!file.startsWith(base)) {
+            throw new IOException("Invalid class name: " + decompiledClass.getName());
+        }
+        Files.createDirectories(file.getParent());
+        // Unlike Files.newBufferedWriter, OutputStreamWriter replaces unpaired surrogates (which
+        // may occur in string constants) instead of failing.
+        try (Writer writer =
+                new BufferedWriter(
+                        new OutputStreamWriter(
+                                Files.newOutputStream(file), StandardCharsets.UTF_8))) {
+            new SourceRenderer(writer).render(decompiledClass);
+        }
+        return file;
+    }
+
+    public void render(DecompiledClass decompiledClass) throws IOException {
+        out.append("class ");
+        Expression.appendClassName(out, decompiledClass.getName());
+        out.append(" {\n");
+        boolean first = true;
+        for (DecompiledMethod method : decompiledClass.getMethods()) {
+            if (!first) {
+                out.append('\n');
+            }
+            first = false;
+            render(method, 1);
+        }
+        out.append("}\n");
+    }
+
+    public void render(DecompiledMethod method) throws IOException {
+        render(method, 0);
+    }
+
+    private void render(DecompiledMethod method, int level) throws IOException {
+        int access = method.getAccess();
+        MethodDescriptor descriptor = MethodDescriptor.get(method.getDescriptor());
+        indent(level);
+        appendModifiers(access);
+        out.append(descriptor.getReturnType().getClassName())
+                .append(' ')
+                .append(method.getName())
+                .append('(');
+        int varIndex = (access & Opcodes.ACC_STATIC) == 0 ? 1 : 0;
+        for (int i = 0; i < descriptor.getArgumentCount(); i++) {
+            Type argumentType = descriptor.getArgumentType(i);
+            if (i > 0) {
+                out.append(", ");
+            }
+            out.append(argumentType.getClassName()).append(" $").append(Integer.toString(varIndex));
+            varIndex += argumentType.getSize();
+        }
+        out.append(')');
+        if ((access & (Opcodes.ACC_ABSTRACT | Opcodes.ACC_NATIVE)) != 0) {
+            out.append(";\n");
+            return;
+        }
+        out.append(" {\n");
+        String failure = method.getFailure();
+        if (failure != null) {
+            indent(level + 1);
+            out.append("// Decompilation failed: ").append(failure).append('\n');
+        }
+        List<Instruction> instructions = method.getInstructions();
+        Map<Label, Integer> labelPositions = method.getLabelPositions();
+        if (labelPositions.isEmpty()) {
+            for (Instruction instruction : instructions) {
+                indent(level + 1);
+                render(instruction);
+                out.append('\n');
+            }
+        } else {
+            new BodyRenderer(method).renderBlocks(0, level + 1);
+        }
+        indent(level);
+        out.append("}\n");
+    }
+
+    public void render(Instruction instruction) throws IOException {
+        instruction.appendTo(out);
+    }
+
+    public void render(Expression expression) throws IOException {
+        expression.appendTo(out);
+    }
+
+    /** Renders the body of a method with jumps, using the structures recovered from its graph. */
+    private final class BodyRenderer {
+        private final List<Instruction> instructions;
+        private final ControlFlowGraph graph;
+        private final Map<Integer, String> positionNames = new HashMap<>();
+        private final Map<Label, String> labelNames = new HashMap<>();
+
+        BodyRenderer(DecompiledMethod method) {
+            instructions = method.getInstructions();
+            graph = new ControlFlowGraph(method);
+            // Only the targets of the remaining jumps and exception handlers need a label. Labels
+            // are named by position, so that the names are stable across runs and labels at the
+            // same position share a name.
+            Map<Label, Integer> labelPositions = method.getLabelPositions();
+            TreeSet<Integer> positions = new TreeSet<>();
+            for (int i = 0; i < instructions.size(); i++) {
+                Instruction instruction = instructions.get(i);
+                if (!graph.isStructuralJump(i)) {
+                    for (int j = 0; j < ControlFlowGraph.getJumpTargetCount(instruction); j++) {
+                        positions.add(
+                                labelPositions.get(ControlFlowGraph.getJumpTarget(instruction, j)));
+                    }
+                }
+            }
+            for (TryCatchBlock tryCatchBlock : method.getTryCatchBlocks()) {
+                positions.add(tryCatchBlock.getHandler());
+            }
+            for (Integer position : positions) {
+                positionNames.put(position, "L" + positionNames.size());
+            }
+            for (Map.Entry<Label, Integer> entry : labelPositions.entrySet()) {
+                String name = positionNames.get(entry.getValue());
+                if (name != null) {
+                    labelNames.put(entry.getKey(), name);
+                }
+            }
+        }
+
+        void renderBlocks(int fromBlock, int level) throws IOException {
+            renderBlocks(fromBlock, graph.getBlockCount(), level);
+        }
+
+        private void renderBlocks(int fromBlock, int toBlock, int level) throws IOException {
+            int block = fromBlock;
+            while (block < toBlock) {
+                block = renderBlock(block, level, true);
+            }
+        }
+
+        /**
+         * Renders the statements starting with the given block.
+         *
+         * @param loop whether to render the loop starting at the block (if any)
+         * @return the block following the rendered statements
+         */
+        private int renderBlock(int block, int level, boolean loop) throws IOException {
+            int start = graph.getBlockStart(block);
+            if (loop) {
+                String name = positionNames.get(start);
+                if (name != null) {
+                    indent(level - 1);
+                    out.append(name).append(":\n");
+                }
+                ControlStructure structure = graph.getLoop(block);
+                if (structure != null) {
+                    int end = graph.getLoopLatch(block) + 1;
+                    indent(level);
+                    if (structure == ControlStructure.WHILE) {
+                        out.append("while (");
+                        appendNegatedCondition(start);
+                        out.append(") {\n");
+                        renderBlocks(block + 1, end, level + 1);
+                    } else {
+                        out.append(structure == ControlStructure.DO_WHILE ? "do" : "while (true)")
+                                .append(" {\n");
+                        renderBlocks(renderBlock(block, level + 1, false), end, level + 1);
+                    }
+                    indent(level);
+                    out.append('}');
+                    if (structure == ControlStructure.DO_WHILE) {
+                        out.append(" while (");
+                        getCondition(graph.getBlockEnd(end - 1) - 1).appendTo(out);
+                        out.append(");");
+                    }
+                    out.append('\n');
+                    return end;
+                }
+            }
+            int end = graph.getBlockEnd(block);
+            for (int i = start; i < end; i++) {
+                if (!graph.isStructuralJump(i)) {
+                    indent(level);
+                    instructions.get(i).appendTo(out, labelNames);
+                    out.append('\n');
+                }
+            }
+            ControlStructure structure = graph.getBranch(block);
+            if (structure == null) {
+                return block + 1;
+            }
+            int elseBlock = graph.getElseBlock(block);
+            indent(level);
+            out.append("if (");
+            appendNegatedCondition(end - 1);
+            out.append(") {\n");
+            renderBlocks(block + 1, elseBlock, level + 1);
+            if (structure == ControlStructure.IF_ELSE) {
+                indent(level);
+                out.append("} else {\n");
+                renderBlocks(elseBlock, graph.getMergeBlock(block), level + 1);
+            }
+            indent(level);
+            out.append("}\n");
+            return graph.getMergeBlock(block);
+        }
+
+        private Expression getCondition(int position) {
+            return ((ConditionalJumpInstruction) instructions.get(position)).getExpression();
+        }
+
+        /**
+         * Appends the condition under which the conditional jump at the given position falls
+         * through.
+         */
+        private void appendNegatedCondition(int position) throws IOException {
+            Expression condition = getCondition(position);
+            Expression negated = MethodVisitorImpl.negate(condition);
+            if (negated != null) {
+                negated.appendTo(out);
+            } else {
+                out.append("!(");
+                condition.appendTo(out);
+                out.append(')');
+            }
+        }
+    }
+
+    private void appendModifiers(int access) throws IOException {
+        if ((access & Opcodes.ACC_PUBLIC) != 0) {
+            out.append("public ");
+        } else if ((access & Opcodes.ACC_PROTECTED) != 0) {
+            out.append("protected ");
+        } else if ((access & Opcodes.ACC_PRIVATE) != 0) {
+            out.append("private ");
+        }
+        if ((access & Opcodes.ACC_STATIC) != 0) {
+            out.append("static ");
+        }
+        if ((access & Opcodes.ACC_FINAL) != 0) {
+            out.append("final ");
+        }
+        if ((access & Opcodes.ACC_SYNCHRONIZED) != 0) {
+            out.append("synchronized ");
+        }
+        if ((access & Opcodes.ACC_NATIVE) != 0) {
+            out.append("native ");
+        }
+        if ((access & Opcodes.ACC_ABSTRACT) != 0) {
+            out.append("abstract ");
+        }
+    }
+
+    private void indent(int level) throws IOException {
+        for (int i = 0; i < level; i++) {
+            out.append(INDENT);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Decompiles archives of arbitrary size in bounded memory. Classes flow through three stages
+ * connected by bounded queues: a reader thread that decompresses the class files, a set of
+ * decompiler threads and the calling thread, which hands the results to a consumer and then
+ * releases them. In addition, the reader only admits a class once its estimated memory footprint
+ * fits into the heap budget; the estimate is returned to the budget after the class has been
+ * consumed. Unlike {@link ParallelDecompiler}, results are delivered in completion order.
+ */
+public final class StreamingDecompiler implements AutoCloseable {
+    /**
+     * Estimated heap usage per byte of class file while the class is in the pipeline. The AST
+     * retains about 3.5 times the size of the class file; the rest covers the class file itself.
+     */
+    private static final int HEAP_PER_BYTE = 5;
+
+    private static final Item END = new Item(null, null, 0);
+
+    private final Decompiler decompiler;
+    private final int parallelism;
+    private final int budget;
+    private final ExecutorService executor;
+
+    /**
+     * Constructor.
+     *
+     * @param parallelism the number of decompiler threads
+     * @param heapBudget the maximum number of bytes of heap used by classes in the pipeline
+     */
+    public StreamingDecompiler(Decompiler decompiler, int parallelism, long heapBudget) {
+        this.decompiler = decompiler;
+        this.parallelism = parallelism;
+        // Permits are counted in kilobytes.
+        budget = (int) Math.min(Integer.MAX_VALUE, Math.max(1, heapBudget / 1024));
+        executor =
+                Executors.newFixedThreadPool(
+                        parallelism + 1,
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "odessa-streaming");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+    }
+
+    /** Creates an instance that uses one thread per CPU and a quarter of the maximum heap size. */
+    public StreamingDecompiler(Decompiler decompiler) {
+        this(
+                decompiler,
+                Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().maxMemory() / 4);
+    }
+
+    /**
+     * Decompiles all classes in the given archives, including nested archives, and writes the
+     * source code to the given directory.
+     */
+    public void decompile(List<MappedArchive> archives, Path outputDirectory) throws IOException {
+        try {
+            decompile(
+                    archives,
+                    c -> {
+                        try {
+                            SourceRenderer.write(c, outputDirectory);
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Decompiles all classes in the given archives, including nested archives. The consumer is
+     * invoked on the calling thread and must not retain the classes it receives, since this would
+     * defeat the heap budget. If a class can't be decompiled (including because of an {@link Error}
+     * such as {@link StackOverflowError} or {@link OutOfMemoryError}), the pipeline is aborted and
+     * the exception is rethrown.
+     */
+    public void decompile(List<MappedArchive> archives, Consumer<DecompiledClass> consumer)
+            throws IOException {
+        Semaphore permits = new Semaphore(budget);
+        BlockingQueue<Item> input = new ArrayBlockingQueue<>(2 * parallelism);
+        BlockingQueue<Item> output = new ArrayBlockingQueue<>(2 * parallelism);
+        List<Future<?>> futures = new ArrayList<>(parallelism + 1);
+        try {
+            futures.add(executor.submit(() -> read(archives, permits, input)));
+            for (int i = 0; i < parallelism; i++) {
+                futures.add(executor.submit(() -> decompile(permits, input, output)));
+            }
+            int remaining = parallelism;
+            while (remaining > 0) {
+                Item item = output.take();
+                if (item == END) {
+                    remaining--;
+                } else if (item.failure != null) {
+                    throw rethrow(item.failure);
+                } else {
+                    consumer.accept(item.decompiledClass);
+                    permits.release(item.permits);
+                }
+            }
+            futures.get(0).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException ex) {
+            // Only the reader can fail this way.
+            throw rethrow(ex.getCause());
+        } finally {
+            // Stops the remaining threads if the pipeline was aborted.
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Rethrows an exception from one of the threads of the pipeline. This method never returns
+     * normally; the return type allows callers to use it in a throw statement.
+     */
+    private static IOException rethrow(Throwable ex) throws IOException {
+        if (ex instanceof IOException) {
+            throw (IOException) ex;
+        } else if (ex instanceof RuntimeException) {
+            throw (RuntimeException) ex;
+        } else if (ex instanceof Error) {
+            throw (Error) ex;
+        } else {
+            throw new IOException(ex);
+        }
+    }
+
+    /** Returns the number of permits (in kilobytes) to acquire for the given class file. */
+    private int getPermits(ArchiveEntry entry) {
+        long estimate = (long) entry.getSize() * HEAP_PER_BYTE / 1024;
+        // A class larger than the budget is admitted once it has the pipeline to itself.
+        return (int) Math.min(budget, Math.max(1, estimate));
+    }
+
+    private Void read(List<MappedArchive> archives, Semaphore permits, BlockingQueue<Item> input)
+            throws IOException, InterruptedException {
+        // If the pipeline is aborted, an InterruptedException is thrown and the decompiler threads
+        // are interrupted as well. In all other cases (including errors) they need to be told to
+        // stop, because otherwise the calling thread would wait forever.
+        Throwable failure = null;
+        try {
+            for (MappedArchive archive : archives) {
+                for (ArchiveEntry entry : archive.getClassEntries()) {
+                    int count = getPermits(entry);
+                    permits.acquire(count);
+                    input.put(new Item(entry.getBytes(), null, count));
+                }
+            }
+        } catch (InterruptedException ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            failure = ex;
+        }
+        for (int i = 0; i < parallelism; i++) {
+            input.put(END);
+        }
+        if (failure != null) {
+            throw rethrow(failure);
+        }
+        return null;
+    }
+
+    private Void decompile(Semaphore permits, BlockingQueue<Item> input, BlockingQueue<Item> output)
+            throws InterruptedException {
+        while (true) {
+            Item item = input.take();
+            if (item == END) {
+                output.put(END);
+                return null;
+            }
+            DecompiledClass decompiledClass;
+            try {
+                decompiledClass = decompiler.decompile(item.classFile);
+            } catch (Throwable ex) {
+                // Errors must be reported as well; otherwise the calling thread would wait forever
+                // for this thread to finish.
+                output.put(new Item(ex));
+                return null;
+            }
+            if (decompiledClass == null) {
+                // Rejected by the filter.
+                permits.release(item.permits);
+            } else {
+                output.put(new Item(null, decompiledClass, item.permits));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static final class Item {
+        final byte[] classFile;
+        final DecompiledClass decompiledClass;
+        final int permits;
+        final Throwable failure;
+
+        Item(byte[] classFile, DecompiledClass decompiledClass, int permits) {
+            this.classFile = classFile;
+            this.decompiledClass = decompiledClass;
+            this.permits = permits;
+            failure = null;
+        }
+
+        Item(Throwable failure) {
+            classFile = null;
+            decompiledClass = null;
+            permits = 0;
+            this.failure = failure;
+        }
+    }
+}
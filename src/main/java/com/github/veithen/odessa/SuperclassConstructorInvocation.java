@@ -19,6 +19,8 @@
  */
 package com.github.veithen.odessa;
 
+import java.io.IOException;
+
 public final class SuperclassConstructorInvocation extends Instruction {
     private final ArgList args;
 
@@ -26,8 +28,19 @@ public final class SuperclassConstructorInvocation extends Instruction {
         this.args = new ArgList(args);
     }
 
+    public ArgList getArgs() {
+        return args;
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        out.append("super");
+        args.appendTo(out);
+        out.append(';');
+    }
+
     @Override
-    public String toString() {
-        return "super" + args + ";";
+    public <R> R accept(InstructionVisitor<R> visitor) {
+        return visitor.visitSuperclassConstructorInvocation(this);
     }
 }
@@ -0,0 +1,87 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import org.objectweb.asm.Label;
+
+/** {@code TABLESWITCH} or {@code LOOKUPSWITCH}. */
+public final class SwitchInstruction extends Instruction {
+    private final Expression expression;
+    private final int[] keys;
+    private final Label[] labels;
+    private final Label defaultLabel;
+
+    public SwitchInstruction(
+            Expression expression, int[] keys, Label[] labels, Label defaultLabel) {
+        this.expression = expression;
+        this.keys = keys;
+        this.labels = labels;
+        this.defaultLabel = defaultLabel;
+    }
+
+    public Expression getExpression() {
+        return expression;
+    }
+
+    public int getCaseCount() {
+        return keys.length;
+    }
+
+    public int getKey(int index) {
+        return keys[index];
+    }
+
+    public Label getLabel(int index) {
+        return labels[index];
+    }
+
+    public Label getDefaultLabel() {
+        return defaultLabel;
+    }
+
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        appendTo(out, Collections.emptyMap());
+    }
+
+    @Override
+    public void appendTo(Appendable out, Map<Label, String> labelNames) throws IOException {
+        out.append("switch (");
+        expression.appendTo(out);
+        out.append(") {");
+        for (int i = 0; i < keys.length; i++) {
+            out.append(" case ")
+                    .append(Integer.toString(keys[i]))
+                    .append(": goto ")
+                    .append(getLabelName(labelNames, labels[i]))
+                    .append(';');
+        }
+        out.append(" default: goto ").append(getLabelName(labelNames, defaultLabel)).append("; }");
+    }
+
+    @Override
+    public <R> R accept(InstructionVisitor<R> visitor) {
+        return visitor.visitSwitch(this);
+    }
+}
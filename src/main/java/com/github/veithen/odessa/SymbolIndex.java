@@ -0,0 +1,271 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Persistent index of the methods, fields and classes referenced by decompiled methods, answering
+ * queries such as "who calls X" without decompiling anything. See {@link ReferenceKind} for the
+ * symbols that are recorded.
+ *
+ * <p>The index is a stack of immutable, memory mapped segments. Each update writes a new segment
+ * with the given classes; a class in a newer segment supersedes the same class in older segments,
+ * and removed classes are recorded without methods. Once there are too many segments, they are
+ * merged into one. Queries may be executed concurrently with each other and with updates.
+ */
+public final class SymbolIndex {
+    /** The number of segments above which they are merged. */
+    private static final int MAX_SEGMENTS = 8;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+
+    /** Files of merged segments that couldn't be deleted yet, oldest first. */
+    private final List<Path> obsoleteFiles = new ArrayList<>();
+
+    private int nextSegment;
+    private volatile Snapshot snapshot;
+
+    public SymbolIndex(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(directory)) {
+            stream.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .forEach(files::add);
+        }
+        // Segment names are zero padded sequence numbers.
+        files.sort(Collections.reverseOrder());
+        List<IndexSegment> segments = new ArrayList<>(files.size());
+        for (Path file : files) {
+            segments.add(IndexSegment.open(file));
+        }
+        if (!files.isEmpty()) {
+            nextSegment = getSequenceNumber(files.get(0)) + 1;
+        }
+        snapshot = new Snapshot(segments);
+    }
+
+    private static int getSequenceNumber(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    public int getSegmentCount() {
+        return snapshot.segments.size();
+    }
+
+    /**
+     * Adds or replaces the given classes and removes the classes with the given names. The entries
+     * previously recorded for these classes are discarded.
+     */
+    public synchronized void update(
+            Collection<DecompiledClass> classes, Collection<String> removedClasses)
+            throws IOException {
+        deleteObsoleteFiles();
+        IndexSegment.Writer writer = new IndexSegment.Writer();
+        for (DecompiledClass decompiledClass : classes) {
+            int classIndex = writer.addClass(decompiledClass.getName());
+            for (DecompiledMethod method : decompiledClass.getMethods()) {
+                int methodId =
+                        writer.addMethod(classIndex, method.getName(), method.getDescriptor());
+                new ReferenceCollector(
+                                (kind, symbol) -> writer.addReference(kind, symbol, methodId))
+                        .collect(method.getInstructions());
+            }
+        }
+        for (String removedClass : removedClasses) {
+            writer.addClass(removedClass);
+        }
+        List<IndexSegment> segments = new ArrayList<>(snapshot.segments);
+        segments.add(0, writeSegment(writer));
+        snapshot = new Snapshot(segments);
+        if (segments.size() > MAX_SEGMENTS) {
+            compact();
+        }
+    }
+
+    /** Merges all segments into a single one. */
+    public synchronized void compact() throws IOException {
+        Snapshot snapshot = this.snapshot;
+        List<IndexSegment> segments = snapshot.segments;
+        if (segments.size() < 2) {
+            return;
+        }
+        IndexSegment.Writer writer = new IndexSegment.Writer();
+        for (int i = 0; i < segments.size(); i++) {
+            IndexSegment segment = segments.get(i);
+            BitSet shadowed = snapshot.shadowed.get(i);
+            BitSet nonEmpty = new BitSet();
+            for (int method = 0; method < segment.getMethodCount(); method++) {
+                nonEmpty.set(segment.getMethodClass(method));
+            }
+            // Classes without methods are dropped; this includes removed classes.
+            int[] classMap = new int[segment.getClassCount()];
+            for (int c = 0; c < classMap.length; c++) {
+                classMap[c] =
+                        shadowed.get(c) || !nonEmpty.get(c)
+                                ? -1
+                                : writer.addClass(segment.getClassName(c));
+            }
+            int[] methodMap = new int[segment.getMethodCount()];
+            for (int method = 0; method < methodMap.length; method++) {
+                int classIndex = classMap[segment.getMethodClass(method)];
+                methodMap[method] =
+                        classIndex == -1
+                                ? -1
+                                : writer.addMethod(
+                                        classIndex,
+                                        segment.getMethodName(method),
+                                        segment.getMethodDescriptor(method));
+            }
+            for (int symbol = 0; symbol < segment.getSymbolCount(); symbol++) {
+                ReferenceKind kind = segment.getSymbolKind(symbol);
+                String name = segment.getSymbol(symbol);
+                for (int j = 0; j < segment.getPostingCount(symbol); j++) {
+                    int method = methodMap[segment.getPosting(symbol, j)];
+                    if (method != -1) {
+                        writer.addReference(kind, name, method);
+                    }
+                }
+            }
+        }
+        this.snapshot = new Snapshot(Collections.singletonList(writeSegment(writer)));
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            obsoleteFiles.add(segments.get(i).getFile());
+        }
+        deleteObsoleteFiles();
+    }
+
+    /**
+     * Deletes the files of merged segments, starting with the oldest one. If this is interrupted,
+     * the remaining segments are still consistent: a removed class can only reappear if the segment
+     * recording its removal is deleted before the segments containing the class. Files that can't
+     * be deleted (e.g. because they are still mapped on Windows) are retried by the next update.
+     */
+    private void deleteObsoleteFiles() {
+        while (!obsoleteFiles.isEmpty()) {
+            try {
+                Files.deleteIfExists(obsoleteFiles.get(0));
+            } catch (IOException ex) {
+                return;
+            }
+            obsoleteFiles.remove(0);
+        }
+    }
+
+    private IndexSegment writeSegment(IndexSegment.Writer writer) throws IOException {
+        Path file = directory.resolve(String.format("%08d", nextSegment++) + SEGMENT_SUFFIX);
+        Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmpFile))) {
+                writer.write(new DataOutputStream(out));
+            }
+            try {
+                Files.move(
+                        tmpFile,
+                        file,
+                        StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            try {
+                Files.deleteIfExists(tmpFile);
+            } catch (IOException ex2) {
+                ex.addSuppressed(ex2);
+            }
+            throw ex;
+        }
+        return IndexSegment.open(file);
+    }
+
+    /**
+     * Returns the methods that reference the given symbol, in no particular order.
+     *
+     * @param symbol the symbol, in the format described by the given {@link ReferenceKind}
+     */
+    public List<MethodReference> findReferences(ReferenceKind kind, String symbol) {
+        byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+        Snapshot snapshot = this.snapshot;
+        List<MethodReference> result = new ArrayList<>();
+        for (int i = 0; i < snapshot.segments.size(); i++) {
+            IndexSegment segment = snapshot.segments.get(i);
+            BitSet shadowed = snapshot.shadowed.get(i);
+            int index = segment.find(kind, bytes);
+            if (index == -1) {
+                continue;
+            }
+            for (int j = 0; j < segment.getPostingCount(index); j++) {
+                int method = segment.getPosting(index, j);
+                if (!shadowed.get(segment.getMethodClass(method))) {
+                    result.add(segment.getMethod(method));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The segments, newest first, together with the classes in each segment that are superseded by
+     * newer segments.
+     */
+    private static final class Snapshot {
+        final List<IndexSegment> segments;
+        final List<BitSet> shadowed;
+
+        Snapshot(List<IndexSegment> segments) {
+            this.segments = segments;
+            shadowed = new ArrayList<>(segments.size());
+            Set<String> seen = new HashSet<>();
+            for (IndexSegment segment : segments) {
+                BitSet bits = new BitSet();
+                for (int i = 0; i < segment.getClassCount(); i++) {
+                    if (seen.contains(segment.getClassName(i))) {
+                        bits.set(i);
+                    }
+                }
+                for (int i = 0; i < segment.getClassCount(); i++) {
+                    seen.add(segment.getClassName(i));
+                }
+                shadowed.add(bits);
+            }
+        }
+    }
+}
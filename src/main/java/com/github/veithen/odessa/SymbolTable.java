@@ -0,0 +1,91 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Process wide table of canonical owner, name and type strings. The strings ASM returns are only
+ * shared within a class, so without this table every decompiled class holds its own copy of symbols
+ * such as {@code java/lang/String} or {@code append}. Nodes canonicalize these strings in their
+ * constructors, which allows them to compare them by identity.
+ *
+ * <p>The table is split into stripes, each with its own lock, so that decompiler threads rarely
+ * contend. Entries are weakly referenced and disappear once no node uses them anymore. In front of
+ * the table, each thread has a small direct mapped cache of recently used symbols, which serves
+ * most lookups without locking.
+ */
+final class SymbolTable {
+    private static final int STRIPES = 64;
+    private static final int CACHE_SIZE = 1024;
+
+    @SuppressWarnings("unchecked")
+    private static final WeakHashMap<String, WeakReference<String>>[] stripes =
+            (WeakHashMap<String, WeakReference<String>>[]) new WeakHashMap<?, ?>[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new WeakHashMap<>();
+        }
+    }
+
+    private static final ThreadLocal<String[]> caches =
+            ThreadLocal.withInitial(() -> new String[CACHE_SIZE]);
+
+    private SymbolTable() {}
+
+    /** Returns the canonical instance of the given string. */
+    static String canonicalize(String symbol) {
+        if (symbol == null) {
+            return null;
+        }
+        int hash = symbol.hashCode();
+        hash ^= hash >>> 16;
+        String[] cache = caches.get();
+        int slot = hash & (CACHE_SIZE - 1);
+        String cached = cache[slot];
+        // String.equals checks for identity first, which is the common case.
+        if (cached != null && cached.equals(symbol)) {
+            return cached;
+        }
+        WeakHashMap<String, WeakReference<String>> stripe = stripes[(hash >>> 10) & (STRIPES - 1)];
+        String canonical;
+        synchronized (stripe) {
+            WeakReference<String> ref = stripe.get(symbol);
+            canonical = ref == null ? null : ref.get();
+            if (canonical == null) {
+                stripe.put(symbol, new WeakReference<>(symbol));
+                canonical = symbol;
+            }
+        }
+        cache[slot] = canonical;
+        return canonical;
+    }
+
+    /** Replaces the strings in an array of frame types by their canonical instances. */
+    static void canonicalize(Object[] types) {
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] instanceof String) {
+                types[i] = canonicalize((String) types[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+/**
+ * Exception handler of a decompiled method. Positions are indexes into the list returned by {@link
+ * DecompiledMethod#getInstructions()}. Since several bytecode instructions are combined into one
+ * statement, the range is only accurate to the statement.
+ */
+public final class TryCatchBlock {
+    private final int start;
+    private final int end;
+    private final int handler;
+    private final String type;
+
+    /**
+     * Constructor.
+     *
+     * @param start the position of the first statement covered by the handler
+     * @param end the position after the last statement covered by the handler
+     * @param handler the position of the first statement of the handler
+     * @param type the internal name of the exception type, or {@code null} for any exception
+     */
+    public TryCatchBlock(int start, int end, int handler, String type) {
+        this.start = start;
+        this.end = end;
+        this.handler = handler;
+        this.type = SymbolTable.canonicalize(type);
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public int getHandler() {
+        return handler;
+    }
+
+    public String getType() {
+        return type;
+    }
+}
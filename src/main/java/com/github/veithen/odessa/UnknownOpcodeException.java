@@ -19,7 +19,9 @@
  */
 package com.github.veithen.odessa;
 
-public final class UnknownOpcodeException extends RuntimeException {
+public final class UnknownOpcodeException extends DecompilationException {
+    private static final long serialVersionUID = 1L;
+
     public UnknownOpcodeException(int opcode) {
         super("Unknown opcode " + opcode);
     }
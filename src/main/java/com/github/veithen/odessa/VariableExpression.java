@@ -19,7 +19,8 @@
  */
 package com.github.veithen.odessa;
 
-@SuppressWarnings("EqualsHashCode")
+import java.io.IOException;
+
 public final class VariableExpression extends LvalueExpression {
     private final int varIndex;
 
@@ -37,8 +38,13 @@ public final class VariableExpression extends LvalueExpression {
     }
 
     @Override
-    public String toString() {
-        return "$" + varIndex;
+    public void appendTo(Appendable out) throws IOException {
+        out.append('$').append(Integer.toString(varIndex));
+    }
+
+    @Override
+    protected int computeHashCode() {
+        return 0x5641 + varIndex;
     }
 
     @Override
@@ -49,4 +55,9 @@ public final class VariableExpression extends LvalueExpression {
         VariableExpression other = (VariableExpression) obj;
         return varIndex == other.varIndex;
     }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitVariable(this);
+    }
 }
@@ -0,0 +1,89 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class ConstantFolderTest {
+    private static Expression fold(Expression operand1, Expression operand2, BinaryOperator op) {
+        return ConstantFolder.fold(new BinaryExpression(operand1, operand2, op));
+    }
+
+    @Test
+    public void foldsConstants() {
+        assertThat(
+                        fold(
+                                fold(
+                                        ConstantExpression.of(6),
+                                        ConstantExpression.of(7),
+                                        BinaryOperator.MULTIPLICATION),
+                                ConstantExpression.of(2),
+                                BinaryOperator.SUBTRACTION))
+                .isEqualTo(ConstantExpression.of(40));
+        assertThat(
+                        fold(
+                                ConstantExpression.of(1L),
+                                ConstantExpression.of(40),
+                                BinaryOperator.SHIFT_LEFT))
+                .isEqualTo(ConstantExpression.of(1L << 40));
+        assertThat(
+                        fold(
+                                ConstantExpression.of(0.1f),
+                                ConstantExpression.of(0.2f),
+                                BinaryOperator.ADDITION))
+                .isEqualTo(ConstantExpression.of(0.1f + 0.2f));
+    }
+
+    @Test
+    public void doesNotFoldDivisionByZero() {
+        Expression expression =
+                new BinaryExpression(
+                        ConstantExpression.of(1),
+                        ConstantExpression.of(0),
+                        BinaryOperator.DIVISION);
+        assertThat(ConstantFolder.fold((BinaryExpression) expression)).isSameAs(expression);
+    }
+
+    @Test
+    public void removesIdentities() {
+        Expression variable = new VariableExpression(1);
+        assertThat(fold(variable, ConstantExpression.of(1), BinaryOperator.MULTIPLICATION))
+                .isSameAs(variable);
+        assertThat(fold(ConstantExpression.of(0L), variable, BinaryOperator.ADDITION))
+                .isSameAs(variable);
+        assertThat(fold(ConstantExpression.of(0), variable, BinaryOperator.SUBTRACTION))
+                .isInstanceOf(BinaryExpression.class);
+        assertThat(fold(variable, ConstantExpression.of(0.0), BinaryOperator.ADDITION))
+                .isInstanceOf(BinaryExpression.class);
+    }
+
+    @Test
+    public void foldsComparisons() {
+        assertThat(
+                        ConstantFolder.fold(
+                                new CompareExpression(
+                                        ConstantExpression.of(Double.NaN),
+                                        ConstantExpression.of(1.0),
+                                        1)))
+                .isEqualTo(ConstantExpression.of(1));
+    }
+}
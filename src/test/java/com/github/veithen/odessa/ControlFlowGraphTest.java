@@ -0,0 +1,120 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+public class ControlFlowGraphTest {
+    private static ControlFlowGraph buildGraph(String methodName) throws Exception {
+        ClassNode classNode = new ClassNode();
+        try (InputStream in = ControlFlowGraphTest.class.getResourceAsStream("TestClass.class")) {
+            new ClassReader(in).accept(classNode, ClassReader.EXPAND_FRAMES);
+        }
+        for (MethodNode method : classNode.methods) {
+            if (method.name.equals(methodName)) {
+                MethodVisitorImpl visitor = new MethodVisitorImpl();
+                method.accept(visitor);
+                return new ControlFlowGraph(
+                        visitor.getInstructions(),
+                        visitor.getLabelPositions(),
+                        visitor.getTryCatchBlocks());
+            }
+        }
+        throw new IllegalArgumentException(methodName);
+    }
+
+    @Test
+    public void loopWithIfElse() throws Exception {
+        // B0: $1 = 0; $2 = 0;
+        // B1: if ($2 == 10) goto B6;
+        // B2: if ($2 != 5) goto B4;
+        // B3: $1 = $1 + 2 * $2; goto B5;
+        // B4: $1 = $1 + $2;
+        // B5: $2 += 1; goto B1;
+        // B6: return $1;
+        ControlFlowGraph graph = buildGraph("loop");
+        assertThat(graph.getBlockCount()).isEqualTo(7);
+        assertThat(graph.getBlockStart(3)).isEqualTo(4);
+        assertThat(graph.getBlockEnd(3)).isEqualTo(6);
+        assertThat(graph.getSuccessorCount(1)).isEqualTo(2);
+        assertThat(graph.getSuccessor(1, 0)).isEqualTo(2);
+        assertThat(graph.getSuccessor(1, 1)).isEqualTo(6);
+        assertThat(graph.getPredecessorCount(1)).isEqualTo(2);
+        assertThat(graph.getImmediateDominator(0)).isEqualTo(-1);
+        assertThat(graph.getImmediateDominator(5)).isEqualTo(2);
+        assertThat(graph.getImmediateDominator(6)).isEqualTo(1);
+        assertThat(graph.dominates(1, 4)).isTrue();
+        assertThat(graph.dominates(3, 5)).isFalse();
+        assertThat(graph.getImmediatePostDominator(2)).isEqualTo(5);
+        assertThat(graph.getImmediatePostDominator(1)).isEqualTo(6);
+        assertThat(graph.getImmediatePostDominator(6)).isEqualTo(-1);
+        assertThat(graph.isLoopHeader(1)).isTrue();
+        assertThat(graph.isLoopHeader(2)).isFalse();
+        assertThat(graph.getLoopHeader(0)).isEqualTo(-1);
+        assertThat(graph.getLoopHeader(4)).isEqualTo(1);
+        assertThat(graph.getLoopHeader(6)).isEqualTo(-1);
+    }
+
+    @Test
+    public void structures() throws Exception {
+        // Same blocks as in loopWithIfElse.
+        ControlFlowGraph graph = buildGraph("loop");
+        assertThat(graph.getLoop(0)).isNull();
+        assertThat(graph.getLoop(1)).isEqualTo(ControlStructure.WHILE);
+        assertThat(graph.getLoopLatch(1)).isEqualTo(5);
+        assertThat(graph.getBranch(1)).isNull();
+        assertThat(graph.getBranch(2)).isEqualTo(ControlStructure.IF_ELSE);
+        assertThat(graph.getElseBlock(2)).isEqualTo(4);
+        assertThat(graph.getMergeBlock(2)).isEqualTo(5);
+        for (int block = 0; block < graph.getBlockCount(); block++) {
+            int end = graph.getBlockEnd(block);
+            // All jumps are represented by the structures.
+            assertThat(graph.isStructuralJump(end - 1))
+                    .isEqualTo(block >= 1 && block <= 3 || block == 5);
+        }
+    }
+
+    @Test
+    public void tryCatch() throws Exception {
+        // B0: $2 = Integer.parseInt($1);
+        // B1: goto B3;
+        // B2: $3 = <caught>; $2 = -1;
+        // B3: return $2;
+        ControlFlowGraph graph = buildGraph("tryCatch");
+        assertThat(graph.getBlockCount()).isEqualTo(4);
+        assertThat(graph.getBlockStart(2)).isEqualTo(2);
+        assertThat(graph.getSuccessorCount(0)).isEqualTo(2);
+        assertThat(graph.getSuccessor(0, 0)).isEqualTo(1);
+        assertThat(graph.getSuccessor(0, 1)).isEqualTo(2);
+        assertThat(graph.getSuccessorCount(1)).isEqualTo(1);
+        assertThat(graph.getPredecessorCount(3)).isEqualTo(2);
+        assertThat(graph.getImmediateDominator(2)).isEqualTo(0);
+        assertThat(graph.getImmediateDominator(3)).isEqualTo(0);
+        assertThat(graph.getImmediatePostDominator(0)).isEqualTo(3);
+        assertThat(graph.isLoopHeader(2)).isFalse();
+    }
+}
@@ -0,0 +1,109 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+
+public class DecompilationCacheTest {
+    @TempDir Path tempDir;
+
+    private static DecompiledClass createClass(String name) {
+        Label label = new Label();
+        return new DecompiledClass(
+                name,
+                Collections.singletonList(
+                        new DecompiledMethod(
+                                1,
+                                "test",
+                                "()V",
+                                Arrays.asList(
+                                        new ExpressionInstruction(
+                                                new AssignmentExpression(
+                                                        new VariableExpression(1),
+                                                        new NewExpression(
+                                                                "java/lang/String",
+                                                                ConstantExpression.of("foobar")))),
+                                        new GotoInstruction(label),
+                                        new ReturnInstruction(null)),
+                                Collections.singletonList(
+                                        new Frame(
+                                                label,
+                                                new Object[] {"test/Test", Opcodes.INTEGER},
+                                                new Object[] {label})),
+                                Collections.singletonMap(label, 2))));
+    }
+
+    @Test
+    public void persistsAcrossInstances() throws Exception {
+        DecompilationCache cache = new DecompilationCache(tempDir, Long.MAX_VALUE);
+        String key = cache.computeKey(new byte[] {1, 2, 3});
+        assertThat(cache.get(key)).isNull();
+        cache.put(key, createClass("test/Test"));
+
+        cache = new DecompilationCache(tempDir, Long.MAX_VALUE);
+        DecompiledClass decompiledClass = cache.get(key);
+        assertThat(decompiledClass).isNotNull();
+        assertThat(decompiledClass.getName()).isEqualTo("test/Test");
+        assertThat(decompiledClass.getMethods()).hasSize(1);
+        DecompiledMethod method = decompiledClass.getMethods().get(0);
+        assertThat(method.getInstructions()).hasSize(3);
+        assertThat(method.getInstructions().get(0))
+                .isEqualTo(createClass("test/Test").getMethods().get(0).getInstructions().get(0));
+        assertThat(method.getFrames()).hasSize(1);
+        Frame frame = method.getFrames().get(0);
+        Label label = ((GotoInstruction) method.getInstructions().get(1)).getLabel();
+        assertThat(frame.getLabel()).isSameAs(label);
+        assertThat(frame.getLocalCount()).isEqualTo(2);
+        assertThat(frame.getLocal(0)).isEqualTo("test/Test");
+        assertThat(frame.getLocal(1)).isEqualTo(Opcodes.INTEGER);
+        assertThat(frame.getStackSize()).isEqualTo(1);
+        assertThat(frame.getStack(0)).isSameAs(label);
+        assertThat(method.getLabelPositions()).containsExactly(entry(label, 2));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedEntries() throws Exception {
+        DecompilationCache cache = new DecompilationCache(tempDir, Long.MAX_VALUE);
+        String key1 = cache.computeKey(new byte[] {1});
+        cache.put(key1, createClass("test/Test1"));
+        long entrySize = cache.getSize();
+
+        cache = new DecompilationCache(tempDir, 2 * entrySize);
+        String key2 = cache.computeKey(new byte[] {2});
+        String key3 = cache.computeKey(new byte[] {3});
+        cache.put(key2, createClass("test/Test2"));
+        assertThat(cache.get(key1)).isNotNull();
+        cache.put(key3, createClass("test/Test3"));
+        assertThat(cache.getSize()).isEqualTo(2 * entrySize);
+        assertThat(cache.get(key1)).isNotNull();
+        assertThat(cache.get(key2)).isNull();
+        assertThat(cache.get(key3)).isNotNull();
+    }
+}
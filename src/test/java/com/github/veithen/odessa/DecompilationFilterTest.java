@@ -0,0 +1,95 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class DecompilationFilterTest {
+    private static byte[] classFile;
+
+    @BeforeAll
+    protected static void loadClass() throws Exception {
+        classFile =
+                Files.readAllBytes(
+                        Paths.get(
+                                DecompilationFilterTest.class
+                                        .getResource("TestClass.class")
+                                        .toURI()));
+    }
+
+    private static DecompiledClass decompile(DecompilationFilter filter) {
+        Decompiler decompiler = new Decompiler();
+        decompiler.setFilter(filter);
+        return decompiler.decompile(classFile);
+    }
+
+    @Test
+    public void referencedSymbol() {
+        assertThat(
+                        decompile(
+                                        new DecompilationFilter(
+                                                null, null, Collections.singleton("boolMethod")))
+                                .getMethods())
+                .extracting(DecompiledMethod::getName)
+                .containsExactly("expressionAsBoolArg");
+    }
+
+    @Test
+    public void symbolReferencedByMethodHandle() {
+        assertThat(
+                        decompile(
+                                        new DecompilationFilter(
+                                                null,
+                                                null,
+                                                Collections.singleton("referencedByHandle")))
+                                .getMethods())
+                .extracting(DecompiledMethod::getName)
+                .containsExactly("methodReference");
+    }
+
+    @Test
+    public void constantPoolPrefilter() {
+        assertThat(
+                        decompile(
+                                new DecompilationFilter(
+                                        null, null, Collections.singleton("java/util/List"))))
+                .isNull();
+    }
+
+    @Test
+    public void methodName() {
+        assertThat(
+                        decompile(
+                                        new DecompilationFilter(
+                                                name -> name.endsWith("/TestClass"),
+                                                (name, descriptor) -> name.equals("loop"),
+                                                Collections.emptySet()))
+                                .getMethods())
+                .extracting(DecompiledMethod::getName)
+                .containsExactly("loop");
+    }
+}
@@ -0,0 +1,52 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.Test;
+
+public class DecompilationServerTest {
+    @Test
+    public void roundTrip() throws Exception {
+        byte[] classFile =
+                Files.readAllBytes(
+                        Paths.get(
+                                DecompilationServerTest.class
+                                        .getResource("TestClass.class")
+                                        .toURI()));
+        try (DecompilationServer server = new DecompilationServer(new Decompiler(), 0)) {
+            server.warmUp(1);
+            server.start();
+            try (DecompilationClient client = new DecompilationClient(server.getPort())) {
+                assertThat(client.decompile(classFile))
+                        .contains("public void newOperator()", "return new int[] {1, 2};");
+                assertThatThrownBy(() -> client.decompile(new byte[] {1, 2, 3}))
+                        .isInstanceOf(DecompilationException.class);
+                // The connection remains usable after an error.
+                assertThat(client.decompile(classFile)).contains("public int loop()");
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+public class DecompilerTest {
+    /**
+     * Creates a class with three methods, the second of which can't be decompiled because it swaps
+     * the results of two method invocations.
+     */
+    private static byte[] createClass() {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "test/Test", null, "java/lang/Object", null);
+        for (String name : new String[] {"ok1", "bad", "ok2"}) {
+            MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, name, "()I", null, null);
+            mv.visitCode();
+            if (name.equals("bad")) {
+                mv.visitLdcInsn("x\"y");
+                mv.visitInsn(Opcodes.POP);
+                mv.visitVarInsn(Opcodes.ALOAD, 0);
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "test/Test", "f", "()I", false);
+                mv.visitVarInsn(Opcodes.ALOAD, 0);
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "test/Test", "g", "()I", false);
+                mv.visitInsn(Opcodes.SWAP);
+                mv.visitInsn(Opcodes.ISUB);
+            } else {
+                mv.visitInsn(Opcodes.ICONST_1);
+            }
+            mv.visitInsn(Opcodes.IRETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    @Test
+    public void throwMode() {
+        Decompiler decompiler = new Decompiler();
+        assertThatThrownBy(() -> decompiler.decompile(createClass()))
+                .isInstanceOf(DecompilationException.class);
+        assertThat(decompiler.getMethodCount()).isEqualTo(2);
+        assertThat(decompiler.getFailedMethodCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void fallbackMode() {
+        Decompiler decompiler = new Decompiler();
+        decompiler.setFailureMode(FailureMode.FALLBACK);
+        List<DecompiledMethod> methods = decompiler.decompile(createClass()).getMethods();
+        assertThat(methods)
+                .extracting(DecompiledMethod::getName)
+                .containsExactly("ok1", "bad", "ok2");
+        assertThat(methods.get(0).getFailure()).isNull();
+        assertThat(methods.get(0).getInstructions())
+                .containsExactly(new ReturnInstruction(ConstantExpression.of(1)));
+        assertThat(methods.get(2).getFailure()).isNull();
+        DecompiledMethod bad = methods.get(1);
+        assertThat(bad.getFailure()).isNotNull();
+        assertThat(bad.getInstructions())
+                .containsExactly(
+                        new BytecodeInstruction("LDC \"x\\\"y\""),
+                        new BytecodeInstruction("POP"),
+                        new BytecodeInstruction("ALOAD 0"),
+                        new BytecodeInstruction("INVOKEVIRTUAL test/Test.f()I"),
+                        new BytecodeInstruction("ALOAD 0"),
+                        new BytecodeInstruction("INVOKEVIRTUAL test/Test.g()I"),
+                        new BytecodeInstruction("SWAP"),
+                        new BytecodeInstruction("ISUB"),
+                        new BytecodeInstruction("IRETURN"));
+        assertThat(decompiler.getMethodCount()).isEqualTo(3);
+        assertThat(decompiler.getFailedMethodCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void fallbackModeWithFailingPass() {
+        Decompiler decompiler = new Decompiler();
+        decompiler.setFailureMode(FailureMode.FALLBACK);
+        Pass pass = new Pass("failing");
+        pass.addRule(
+                IntConstantExpression.class,
+                expression -> {
+                    throw new DecompilationException("Failing pass");
+                });
+        decompiler.getPassManager().addPass(pass);
+        List<DecompiledMethod> methods = decompiler.decompile(createClass()).getMethods();
+        assertThat(methods)
+                .extracting(DecompiledMethod::getName)
+                .containsExactly("ok1", "bad", "ok2");
+        assertThat(methods.get(0).getFailure()).isEqualTo("Failing pass");
+        assertThat(methods.get(0).getInstructions())
+                .containsExactly(
+                        new BytecodeInstruction("ICONST_1"), new BytecodeInstruction("IRETURN"));
+        assertThat(methods.get(1).getFailure()).isNotNull();
+        assertThat(methods.get(2).getFailure()).isEqualTo("Failing pass");
+        assertThat(decompiler.getFailedMethodCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void countsCachedMethods(@TempDir Path tempDir) throws Exception {
+        Decompiler decompiler = new Decompiler();
+        decompiler.setFailureMode(FailureMode.FALLBACK);
+        decompiler.setCache(new DecompilationCache(tempDir, Long.MAX_VALUE));
+        decompiler.decompile(createClass());
+        assertThat(decompiler.getMethodCount()).isEqualTo(3);
+        assertThat(decompiler.getCachedMethodCount()).isEqualTo(0);
+        decompiler.decompile(createClass());
+        assertThat(decompiler.getMethodCount()).isEqualTo(6);
+        assertThat(decompiler.getCachedMethodCount()).isEqualTo(3);
+        assertThat(decompiler.getFailedMethodCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,54 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class ExpressionInternerTest {
+    private static Expression createExpression(ExpressionInterner interner) {
+        return interner.intern(
+                new BinaryExpression(
+                        interner.intern(
+                                new FieldExpression("test/Test", interner.variable(0), "field")),
+                        interner.constant(1),
+                        BinaryOperator.ADDITION));
+    }
+
+    @Test
+    public void returnsCanonicalInstances() {
+        ExpressionInterner interner = new ExpressionInterner();
+        Expression expression1 = createExpression(interner);
+        Expression expression2 = createExpression(interner);
+        assertThat(expression2).isSameAs(expression1);
+        assertThat(interner.variable(0)).isSameAs(interner.variable(0));
+        assertThat(interner.constant(1)).isNotSameAs(interner.constant(1L));
+    }
+
+    @Test
+    public void structuralEquality() {
+        Expression expression1 = createExpression(new ExpressionInterner());
+        Expression expression2 = createExpression(new ExpressionInterner());
+        assertThat(expression2).isNotSameAs(expression1);
+        assertThat(expression2).isEqualTo(expression1);
+        assertThat(expression2.hashCode()).isEqualTo(expression1.hashCode());
+    }
+}
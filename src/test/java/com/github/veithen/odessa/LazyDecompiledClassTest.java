@@ -0,0 +1,54 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class LazyDecompiledClassTest {
+    @Test
+    public void decompilesOnDemand() throws Exception {
+        byte[] classFile =
+                Files.readAllBytes(
+                        Paths.get(
+                                LazyDecompiledClassTest.class
+                                        .getResource("TestClass.class")
+                                        .toURI()));
+        Decompiler decompiler = new Decompiler();
+        LazyDecompiledClass lazyClass = decompiler.decompileLazily(classFile);
+        List<DecompiledMethod> methods = decompiler.decompile(classFile).getMethods();
+        assertThat(lazyClass.getMethods()).hasSameSizeAs(methods);
+        long methodCount = decompiler.getMethodCount();
+        LazyMethod lazyMethod = lazyClass.getMethods().get(1);
+        DecompiledMethod method = methods.get(1);
+        assertThat(lazyMethod.getName()).isEqualTo(method.getName());
+        assertThat(lazyMethod.getDescriptor()).isEqualTo(method.getDescriptor());
+        assertThat(lazyMethod.isDecompiled()).isFalse();
+        assertThat(lazyMethod.getDecompiledMethod().getInstructions())
+                .isEqualTo(method.getInstructions());
+        assertThat(lazyMethod.getDecompiledMethod()).isSameAs(lazyMethod.getDecompiledMethod());
+        assertThat(decompiler.getMethodCount()).isEqualTo(methodCount + 1);
+    }
+}
@@ -0,0 +1,131 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MappedArchiveTest {
+    @TempDir Path tempDir;
+
+    private static void addEntry(ZipOutputStream out, String name, byte[] content, boolean stored)
+            throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        if (stored) {
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.length);
+            entry.setCompressedSize(content.length);
+            entry.setCrc(crc.getValue());
+        }
+        out.putNextEntry(entry);
+        out.write(content);
+        out.closeEntry();
+    }
+
+    private static byte[] createContent(int seed, int length) {
+        byte[] content = new byte[length];
+        Random random = new Random(seed);
+        for (int i = 0; i < length; i++) {
+            // Use a small alphabet so that the content is compressible.
+            content[i] = (byte) ('a' + random.nextInt(4));
+        }
+        return content;
+    }
+
+    @Test
+    public void readStoredDeflatedAndNestedEntries() throws Exception {
+        byte[] stored = createContent(1, 1000);
+        byte[] deflated = createContent(2, 100000);
+        byte[] nestedClass = createContent(3, 5000);
+
+        ByteArrayOutputStream nested = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(nested)) {
+            addEntry(out, "p/Nested.class", nestedClass, false);
+        }
+
+        Path file = tempDir.resolve("test.jar");
+        try (OutputStream fileOut = Files.newOutputStream(file);
+                ZipOutputStream out = new ZipOutputStream(fileOut)) {
+            addEntry(out, "p/", new byte[0], true);
+            addEntry(out, "p/Stored.class", stored, true);
+            addEntry(out, "p/Deflated.class", deflated, false);
+            addEntry(out, "lib/nested.jar", nested.toByteArray(), true);
+            addEntry(out, "p/resource.txt", stored, false);
+        }
+
+        MappedArchive archive = MappedArchive.open(file);
+        assertThat(archive.getEntries()).hasSize(5);
+        List<ArchiveEntry> classes = archive.getClassEntries();
+        assertThat(classes)
+                .extracting(ArchiveEntry::getName)
+                .containsExactly("p/Stored.class", "p/Deflated.class", "p/Nested.class");
+        assertThat(classes.get(0).getBytes()).isEqualTo(stored);
+        assertThat(classes.get(1).getBytes()).isEqualTo(deflated);
+        assertThat(classes.get(2).getBytes()).isEqualTo(nestedClass);
+    }
+
+    private void testZip64(String prefix) throws Exception {
+        // ZipOutputStream switches to ZIP64 if there are more than 65535 entries.
+        int count = 70000;
+        Path file = tempDir.resolve("test.jar");
+        try (OutputStream fileOut = Files.newOutputStream(file)) {
+            // Offsets written by ZipOutputStream are relative to the start of the archive, as in
+            // a jar with a prepended launch script.
+            fileOut.write(prefix.getBytes(StandardCharsets.UTF_8));
+            ZipOutputStream out = new ZipOutputStream(fileOut);
+            for (int i = 0; i < count; i++) {
+                addEntry(out, "p/C" + i + ".class", createContent(i, 10), i % 2 == 0);
+            }
+            out.finish();
+        }
+
+        MappedArchive archive = MappedArchive.open(file);
+        List<ArchiveEntry> classes = archive.getClassEntries();
+        assertThat(classes).hasSize(count);
+        assertThat(classes.get(count - 1).getName()).isEqualTo("p/C" + (count - 1) + ".class");
+        assertThat(classes.get(count - 1).getBytes()).isEqualTo(createContent(count - 1, 10));
+    }
+
+    @Test
+    public void zip64() throws Exception {
+        testZip64("");
+    }
+
+    @Test
+    public void zip64WithPrefix() throws Exception {
+        testZip64("#!/bin/sh\nexec java -jar \"$0\" \"$@\"\n");
+    }
+}
@@ -20,6 +20,7 @@
 package com.github.veithen.odessa;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.io.InputStream;
 import java.util.HashMap;
@@ -29,29 +30,46 @@ import java.util.Map;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.MethodNode;
 
 public class MethodVisitorImplTest {
     private static final Map<String, MethodNode> methods = new HashMap<>();
+    private static final Map<String, MethodNode> methodsWithoutDebugInfo = new HashMap<>();
 
-    @BeforeAll
-    protected static void loadClass() throws Exception {
+    private static void loadClass(Map<String, MethodNode> methods, int flags) throws Exception {
         ClassNode classNode = new ClassNode();
         try (InputStream in = MethodVisitorImplTest.class.getResourceAsStream("TestClass.class")) {
-            new ClassReader(in).accept(classNode, 0);
+            new ClassReader(in).accept(classNode, flags);
         }
         for (MethodNode method : classNode.methods) {
             methods.put(method.name, method);
         }
     }
 
-    private List<Instruction> getInstructions(String methodName) {
+    @BeforeAll
+    protected static void loadClass() throws Exception {
+        loadClass(methods, ClassReader.EXPAND_FRAMES);
+        // Equivalent to a class compiled with javac -g:none: there are no line numbers and hence no
+        // label before the first instruction of a method.
+        loadClass(methodsWithoutDebugInfo, ClassReader.SKIP_DEBUG | ClassReader.EXPAND_FRAMES);
+    }
+
+    private static List<Instruction> getInstructions(Map<String, MethodNode> methods, String name) {
         MethodVisitorImpl visitor = new MethodVisitorImpl();
-        methods.get(methodName).accept(visitor);
+        methods.get(name).accept(visitor);
         return visitor.getInstructions();
     }
 
+    private List<Instruction> getInstructions(String methodName) {
+        List<Instruction> instructions = getInstructions(methods, methodName);
+        assertThat(getInstructions(methodsWithoutDebugInfo, methodName)).isEqualTo(instructions);
+        return instructions;
+    }
+
     @Test
     public void newOperator() {
         assertThat(getInstructions("newOperator"))
@@ -61,7 +79,7 @@ public class MethodVisitorImplTest {
                                         new VariableExpression(1),
                                         new NewExpression(
                                                 "java/lang/String",
-                                                new ConstantExpression("foobar")))),
+                                                ConstantExpression.of("foobar")))),
                         new ReturnInstruction(null));
     }
 
@@ -71,12 +89,373 @@ public class MethodVisitorImplTest {
                 .containsExactly(
                         new ExpressionInstruction(
                                 new NewExpression(
-                                        "java/lang/String", new ConstantExpression("foobar"))),
+                                        "java/lang/String", ConstantExpression.of("foobar"))),
                         new ReturnInstruction(null));
     }
 
     @Test
     public void expressionAsBoolArg() {
-        assertThat(getInstructions("expressionAsBoolArg")).containsExactly();
+        assertThat(getInstructions("expressionAsBoolArg"))
+                .containsExactly(
+                        new ExpressionInstruction(
+                                new AssignmentExpression(
+                                        new VariableExpression(1), ConstantExpression.of(42))),
+                        new ExpressionInstruction(
+                                new InvokeMethodExpression(
+                                        new VariableExpression(0),
+                                        "boolMethod",
+                                        new Expression[] {
+                                            new BinaryExpression(
+                                                    new VariableExpression(1),
+                                                    ConstantExpression.of(42),
+                                                    BinaryOperator.EQUALS)
+                                        })),
+                        new ReturnInstruction(null));
+    }
+
+    @Test
+    public void withoutDebugInfo() throws Exception {
+        for (String name : methodsWithoutDebugInfo.keySet()) {
+            getInstructions(methodsWithoutDebugInfo, name);
+        }
+    }
+
+    @Test
+    public void equalImpureValuesNotMerged() {
+        // this.f(); this.x = this.f(); return <first result>: the two invocations must not be
+        // merged into "return this.x = this.f()". The first result can't be deferred past the
+        // assignment, so the method can't be decompiled.
+        MethodVisitorImpl visitor = new MethodVisitorImpl();
+        visitor.visitCode();
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "test/Test", "f", "()I", false);
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "test/Test", "f", "()I", false);
+        visitor.visitFieldInsn(Opcodes.PUTFIELD, "test/Test", "x", "I");
+        assertThatThrownBy(() -> visitor.visitInsn(Opcodes.IRETURN))
+                .isInstanceOf(DecompilationException.class);
+    }
+
+    private static Expression getJumpCondition(int loadOpcode, int compareOpcode) {
+        MethodVisitorImpl visitor = new MethodVisitorImpl();
+        visitor.visitCode();
+        visitor.visitVarInsn(loadOpcode, 1);
+        visitor.visitVarInsn(loadOpcode, 3);
+        visitor.visitInsn(compareOpcode);
+        visitor.visitJumpInsn(Opcodes.IFGE, new Label());
+        return ((ConditionalJumpInstruction) visitor.getInstructions().get(0)).getExpression();
+    }
+
+    @Test
+    public void longComparisonFolded() {
+        assertThat(getJumpCondition(Opcodes.LLOAD, Opcodes.LCMP))
+                .isEqualTo(
+                        new BinaryExpression(
+                                new VariableExpression(1),
+                                new VariableExpression(3),
+                                BinaryOperator.GREATER_THAN_OR_EQUAL));
+    }
+
+    @Test
+    public void floatingPointComparisonNotFolded() {
+        // DCMPG followed by IFGE jumps if one of the operands is NaN; "$1 >= $3" would be false.
+        assertThat(getJumpCondition(Opcodes.DLOAD, Opcodes.DCMPG))
+                .isEqualTo(
+                        new BinaryExpression(
+                                new CompareExpression(
+                                        new VariableExpression(1), new VariableExpression(3), 1),
+                                ConstantExpression.of(0),
+                                BinaryOperator.GREATER_THAN_OR_EQUAL));
+    }
+
+    private static LvalueExpression field(String name) {
+        return new FieldExpression(
+                "com/github/veithen/odessa/TestClass", new VariableExpression(0), name);
+    }
+
+    @Test
+    public void dupX1() {
+        assertThat(getInstructions("assignFieldAsValue"))
+                .containsExactly(
+                        new ReturnInstruction(
+                                new AssignmentExpression(
+                                        field("intField"), new VariableExpression(1))));
+    }
+
+    @Test
+    public void dupX1WithImpureValue() {
+        assertThat(getInstructions("assignFieldAsValueFromCall"))
+                .containsExactly(
+                        new ReturnInstruction(
+                                new AssignmentExpression(
+                                        field("intField"),
+                                        new InvokeMethodExpression(
+                                                new VariableExpression(0),
+                                                "intMethod",
+                                                new Expression[0]))));
+    }
+
+    @Test
+    public void dup2X1() {
+        assertThat(getInstructions("assignLongFieldAsValue"))
+                .containsExactly(
+                        new ReturnInstruction(
+                                new AssignmentExpression(
+                                        field("longField"), new VariableExpression(1))));
+    }
+
+    @Test
+    public void dupX2() {
+        assertThat(getInstructions("assignArrayElementAsValue"))
+                .containsExactly(
+                        new ReturnInstruction(
+                                new AssignmentExpression(
+                                        new ArrayElementExpression(
+                                                new VariableExpression(1),
+                                                new VariableExpression(2)),
+                                        new VariableExpression(3))));
+    }
+
+    @Test
+    public void dup2X2() {
+        assertThat(getInstructions("assignLongArrayElementAsValue"))
+                .containsExactly(
+                        new ReturnInstruction(
+                                new AssignmentExpression(
+                                        new ArrayElementExpression(
+                                                new VariableExpression(1),
+                                                new VariableExpression(2)),
+                                        new VariableExpression(3))));
+    }
+
+    @Test
+    public void swap() {
+        MethodVisitorImpl visitor = new MethodVisitorImpl();
+        visitor.visitCode();
+        visitor.visitVarInsn(Opcodes.ILOAD, 1);
+        visitor.visitInsn(Opcodes.ICONST_2);
+        visitor.visitInsn(Opcodes.SWAP);
+        visitor.visitInsn(Opcodes.ISUB);
+        visitor.visitInsn(Opcodes.IRETURN);
+        assertThat(visitor.getInstructions())
+                .containsExactly(
+                        new ReturnInstruction(
+                                new BinaryExpression(
+                                        ConstantExpression.of(2),
+                                        new VariableExpression(1),
+                                        BinaryOperator.SUBTRACTION)));
+    }
+
+    @Test
+    public void swapChangingEvaluationOrder() {
+        MethodVisitorImpl visitor = new MethodVisitorImpl();
+        visitor.visitCode();
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "test/Test", "f", "()I", false);
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "test/Test", "g", "()I", false);
+        assertThatThrownBy(() -> visitor.visitInsn(Opcodes.SWAP))
+                .isInstanceOf(DecompilationException.class);
+    }
+
+    @Test
+    public void arrayInitializer() {
+        assertThat(getInstructions("arrayInitializer"))
+                .containsExactly(
+                        new ReturnInstruction(
+                                new ArrayInitializerExpression(
+                                        Type.getType("[I"),
+                                        new Expression[] {
+                                            ConstantExpression.of(1), ConstantExpression.of(2)
+                                        })));
+    }
+
+    @Test
+    public void conditional() {
+        assertThat(getInstructions("conditional"))
+                .containsExactly(
+                        new ReturnInstruction(
+                                new ConditionalExpression(
+                                        new BinaryExpression(
+                                                new VariableExpression(1),
+                                                ConstantExpression.of(0),
+                                                BinaryOperator.GREATER_THAN),
+                                        ConstantExpression.of(1),
+                                        ConstantExpression.of(2))));
+    }
+
+    @Test
+    public void nestedConditional() {
+        assertThat(getInstructions("nestedConditional"))
+                .containsExactly(
+                        new ReturnInstruction(
+                                new ConditionalExpression(
+                                        new BinaryExpression(
+                                                new VariableExpression(1),
+                                                ConstantExpression.of(0),
+                                                BinaryOperator.GREATER_THAN),
+                                        new ConditionalExpression(
+                                                new BinaryExpression(
+                                                        new VariableExpression(2),
+                                                        ConstantExpression.of(0),
+                                                        BinaryOperator.GREATER_THAN),
+                                                ConstantExpression.of(1),
+                                                ConstantExpression.of(2)),
+                                        ConstantExpression.of(3))));
+    }
+
+    @Test
+    public void chainedConditional() {
+        // Both conditional expressions end at the same label.
+        assertThat(getInstructions("chainedConditional"))
+                .containsExactly(
+                        new ReturnInstruction(
+                                new ConditionalExpression(
+                                        new BinaryExpression(
+                                                new VariableExpression(1),
+                                                ConstantExpression.of(0),
+                                                BinaryOperator.GREATER_THAN),
+                                        ConstantExpression.of(1),
+                                        new ConditionalExpression(
+                                                new BinaryExpression(
+                                                        new VariableExpression(2),
+                                                        ConstantExpression.of(0),
+                                                        BinaryOperator.GREATER_THAN),
+                                                ConstantExpression.of(2),
+                                                ConstantExpression.of(3)))));
+    }
+
+    @Test
+    public void shortCircuit() {
+        // The method returns a boolean, but the visitor doesn't know the return type.
+        assertThat(getInstructions("shortCircuit"))
+                .containsExactly(
+                        new ReturnInstruction(
+                                new ConditionalExpression(
+                                        new BinaryExpression(
+                                                new BinaryExpression(
+                                                        new VariableExpression(1),
+                                                        ConstantExpression.of(0),
+                                                        BinaryOperator.GREATER_THAN),
+                                                new BinaryExpression(
+                                                        new BinaryExpression(
+                                                                new VariableExpression(2),
+                                                                ConstantExpression.of(0),
+                                                                BinaryOperator.GREATER_THAN),
+                                                        new BinaryExpression(
+                                                                new VariableExpression(3),
+                                                                ConstantExpression.of(0),
+                                                                BinaryOperator.GREATER_THAN),
+                                                        BinaryOperator.CONDITIONAL_OR),
+                                                BinaryOperator.CONDITIONAL_AND),
+                                        ConstantExpression.of(1),
+                                        ConstantExpression.of(0))));
+    }
+
+    @Test
+    public void loopAfterCondition() {
+        // The loop header between the two jumps has a frame. The jumps must not be combined because
+        // the header is the target of the backward jump at the end of the loop.
+        List<Instruction> instructions = getInstructions(methods, "loopAfterCondition");
+        assertThat(instructions).hasSize(5);
+        assertThat(instructions.get(0)).isInstanceOf(ConditionalJumpInstruction.class);
+        assertThat(((ConditionalJumpInstruction) instructions.get(0)).getExpression())
+                .isEqualTo(
+                        new BinaryExpression(
+                                new VariableExpression(2),
+                                ReferenceConstantExpression.NULL,
+                                BinaryOperator.EQUALS));
+    }
+
+    /**
+     * Creates the code generated by javac for {@code (a || b) ? 1 : 2} or {@code (a && b) ? 1 : 2}.
+     *
+     * @param increment whether to increment {@code a} between the two conditions; this is not valid
+     *     Java, but it prevents the conditions from being combined
+     */
+    private static MethodNode createShortCircuitConditional(boolean or, boolean increment) {
+        MethodNode method = new MethodNode(Opcodes.ACC_PUBLIC, "test", "(ZZ)I", null, null);
+        Label thenLabel = new Label();
+        Label elseLabel = new Label();
+        Label endLabel = new Label();
+        method.visitCode();
+        method.visitVarInsn(Opcodes.ILOAD, 1);
+        if (or) {
+            method.visitJumpInsn(Opcodes.IFNE, thenLabel);
+        } else {
+            method.visitJumpInsn(Opcodes.IFEQ, elseLabel);
+        }
+        if (increment) {
+            method.visitIincInsn(1, 1);
+        }
+        method.visitVarInsn(Opcodes.ILOAD, 2);
+        method.visitJumpInsn(Opcodes.IFEQ, elseLabel);
+        method.visitLabel(thenLabel);
+        method.visitInsn(Opcodes.ICONST_1);
+        method.visitJumpInsn(Opcodes.GOTO, endLabel);
+        method.visitLabel(elseLabel);
+        method.visitInsn(Opcodes.ICONST_2);
+        method.visitLabel(endLabel);
+        method.visitInsn(Opcodes.IRETURN);
+        method.visitMaxs(2, 3);
+        method.visitEnd();
+        return method;
+    }
+
+    private static List<Instruction> getInstructions(MethodNode method) {
+        MethodVisitorImpl visitor = new MethodVisitorImpl();
+        method.accept(visitor);
+        return visitor.getInstructions();
+    }
+
+    @Test
+    public void conditionalWithOr() {
+        assertThat(getInstructions(createShortCircuitConditional(true, false)))
+                .containsExactly(
+                        new ReturnInstruction(
+                                new ConditionalExpression(
+                                        new BinaryExpression(
+                                                new BinaryExpression(
+                                                        new VariableExpression(1),
+                                                        ConstantExpression.of(0),
+                                                        BinaryOperator.NOT_EQUALS),
+                                                new BinaryExpression(
+                                                        new VariableExpression(2),
+                                                        ConstantExpression.of(0),
+                                                        BinaryOperator.NOT_EQUALS),
+                                                BinaryOperator.CONDITIONAL_OR),
+                                        ConstantExpression.of(1),
+                                        ConstantExpression.of(2))));
+    }
+
+    @Test
+    public void conditionalWithAnd() {
+        assertThat(getInstructions(createShortCircuitConditional(false, false)))
+                .containsExactly(
+                        new ReturnInstruction(
+                                new ConditionalExpression(
+                                        new BinaryExpression(
+                                                new BinaryExpression(
+                                                        new VariableExpression(1),
+                                                        ConstantExpression.of(0),
+                                                        BinaryOperator.NOT_EQUALS),
+                                                new BinaryExpression(
+                                                        new VariableExpression(2),
+                                                        ConstantExpression.of(0),
+                                                        BinaryOperator.NOT_EQUALS),
+                                                BinaryOperator.CONDITIONAL_AND),
+                                        ConstantExpression.of(1),
+                                        ConstantExpression.of(2))));
+    }
+
+    @Test
+    public void jumpIntoConditional() {
+        // The first jump enters the "then" branch after a statement that can't be combined with
+        // the conditions. Merging the branches would give "if ($1 != 0) goto L; $1++; return $2 !=
+        // 0 ? 1 : 2", which is wrong if a is true.
+        MethodNode method = createShortCircuitConditional(true, true);
+        assertThatThrownBy(() -> method.accept(new MethodVisitorImpl()))
+                .isInstanceOf(DecompilationException.class);
     }
 }
@@ -0,0 +1,72 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+public class ParallelDecompilerTest {
+    private static byte[] createClass(String name, int methodCount) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+        for (int i = 0; i < methodCount; i++) {
+            MethodVisitor mv =
+                    cw.visitMethod(
+                            Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "m" + i, "()I", null, null);
+            mv.visitCode();
+            mv.visitLdcInsn(i);
+            mv.visitInsn(Opcodes.IRETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    @Test
+    public void preservesOrder() {
+        List<byte[]> classFiles = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            names.add("test/C" + i);
+            // Every fifth class is large enough to be split into several method range tasks.
+            classFiles.add(createClass("test/C" + i, i % 5 == 0 ? 100 : 3));
+        }
+        List<DecompiledClass> result;
+        try (ParallelDecompiler decompiler = new ParallelDecompiler(new Decompiler(), 4)) {
+            result = decompiler.decompile(classFiles);
+        }
+        assertThat(result).extracting(DecompiledClass::getName).isEqualTo(names);
+        List<DecompiledMethod> methods = result.get(0).getMethods();
+        assertThat(methods).hasSize(100);
+        for (int i = 0; i < methods.size(); i++) {
+            assertThat(methods.get(i).getName()).isEqualTo("m" + i);
+            assertThat(methods.get(i).getInstructions())
+                    .containsExactly(new ReturnInstruction(ConstantExpression.of(i)));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class PassTest {
+    @Test
+    public void rewritesBottomUp() {
+        Pass pass = new Pass("test");
+        pass.addRule(BinaryExpression.class, ConstantFolder::fold);
+        Instruction unchanged = new ReturnInstruction(new VariableExpression(1));
+        List<Instruction> instructions =
+                new ArrayList<>(
+                        Arrays.asList(
+                                new ExpressionInstruction(
+                                        new InvokeStaticMethodExpression(
+                                                "test/Test",
+                                                "test",
+                                                new Expression[] {
+                                                    new BinaryExpression(
+                                                            new BinaryExpression(
+                                                                    ConstantExpression.of(2),
+                                                                    ConstantExpression.of(3),
+                                                                    BinaryOperator.ADDITION),
+                                                            ConstantExpression.of(7),
+                                                            BinaryOperator.MULTIPLICATION)
+                                                })),
+                                unchanged));
+        pass.run(instructions);
+        assertThat(instructions)
+                .containsExactly(
+                        new ExpressionInstruction(
+                                new InvokeStaticMethodExpression(
+                                        "test/Test",
+                                        "test",
+                                        new Expression[] {ConstantExpression.of(35)})),
+                        unchanged);
+        assertThat(instructions.get(1)).isSameAs(unchanged);
+        assertThat(pass.getRunCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,189 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+
+public class SourceRendererTest {
+    @TempDir Path tempDir;
+
+    @Test
+    public void renderClass() throws Exception {
+        DecompiledClass decompiledClass =
+                new DecompiledClass(
+                        "test/Test",
+                        Collections.singletonList(
+                                new DecompiledMethod(
+                                        Opcodes.ACC_PUBLIC,
+                                        "test",
+                                        "(I)I",
+                                        Arrays.asList(
+                                                new ExpressionInstruction(
+                                                        new AssignmentExpression(
+                                                                new VariableExpression(2),
+                                                                new NewExpression(
+                                                                        "java/lang/String",
+                                                                        ConstantExpression.of(
+                                                                                "foobar")))),
+                                                new ReturnInstruction(
+                                                        new BinaryExpression(
+                                                                new VariableExpression(1),
+                                                                ConstantExpression.of(2),
+                                                                BinaryOperator.MULTIPLICATION))))));
+        StringWriter out = new StringWriter();
+        new SourceRenderer(out).render(decompiledClass);
+        assertThat(out.toString())
+                .isEqualTo(
+                        "class test.Test {\n"
+                                + "    public int test(int $1) {\n"
+                                + "        $2 = new java.lang.String(\"foobar\");\n"
+                                + "        return $1 * 2;\n"
+                                + "    }\n"
+                                + "}\n");
+    }
+
+    @Test
+    public void renderLabels() throws Exception {
+        Label loop = new Label();
+        Label exit = new Label();
+        Label alias = new Label();
+        Map<Label, Integer> labelPositions = new HashMap<>();
+        labelPositions.put(loop, 0);
+        labelPositions.put(exit, 3);
+        labelPositions.put(alias, 3);
+        DecompiledMethod method =
+                new DecompiledMethod(
+                        Opcodes.ACC_STATIC,
+                        "test",
+                        "(I)V",
+                        Arrays.asList(
+                                new ConditionalJumpInstruction(
+                                        new BinaryExpression(
+                                                new VariableExpression(0),
+                                                ConstantExpression.of(0),
+                                                BinaryOperator.EQUALS),
+                                        exit),
+                                new SwitchInstruction(
+                                        new VariableExpression(0),
+                                        new int[] {1},
+                                        new Label[] {alias},
+                                        loop),
+                                new GotoInstruction(loop),
+                                new ReturnInstruction(null)),
+                        Collections.emptyList(),
+                        labelPositions);
+        StringWriter out = new StringWriter();
+        new SourceRenderer(out).render(method);
+        assertThat(out.toString())
+                .isEqualTo(
+                        "static void test(int $0) {\n"
+                                + "L0:\n"
+                                + "    while ($0 != 0) {\n"
+                                + "        switch ($0) { case 1: goto L1; default: goto L0; }\n"
+                                + "    }\n"
+                                + "L1:\n"
+                                + "    return;\n"
+                                + "}\n");
+    }
+
+    @Test
+    public void stringLiteral() throws Exception {
+        StringWriter out = new StringWriter();
+        new SourceRenderer(out).render(ConstantExpression.of("a\"b\\c\n\u0001\ud800\ud83d\ude00"));
+        assertThat(out.toString()).isEqualTo("\"a\\\"b\\\\c\\n\\u0001\\ud800\ud83d\ude00\"");
+    }
+
+    @Test
+    public void rejectsClassNameOutsideOfDirectory() throws Exception {
+        Path directory = tempDir.resolve("out");
+        DecompiledClass decompiledClass = new DecompiledClass("../Test", Collections.emptyList());
+        assertThatThrownBy(() -> SourceRenderer.write(decompiledClass, directory))
+                .isInstanceOf(IOException.class);
+        assertThat(tempDir.resolve("Test.java")).doesNotExist();
+    }
+
+    private static String render(String methodName) throws Exception {
+        byte[] classFile =
+                Files.readAllBytes(
+                        Paths.get(SourceRendererTest.class.getResource("TestClass.class").toURI()));
+        for (DecompiledMethod method : new Decompiler().decompile(classFile).getMethods()) {
+            if (method.getName().equals(methodName)) {
+                StringWriter out = new StringWriter();
+                new SourceRenderer(out).render(method);
+                return out.toString();
+            }
+        }
+        throw new IllegalArgumentException(methodName);
+    }
+
+    @Test
+    public void renderIfElseInLoop() throws Exception {
+        assertThat(render("loop"))
+                .isEqualTo(
+                        "public int loop() {\n"
+                                + "    $1 = 0;\n"
+                                + "    $2 = 0;\n"
+                                + "    while ($2 != 10) {\n"
+                                + "        if ($2 == 5) {\n"
+                                + "            $1 = $1 + 2 * $2;\n"
+                                + "        } else {\n"
+                                + "            $1 = $1 + $2;\n"
+                                + "        }\n"
+                                + "        ++$2;\n"
+                                + "    }\n"
+                                + "    return $1;\n"
+                                + "}\n");
+    }
+
+    @Test
+    public void renderLoopWithBreak() throws Exception {
+        // The "then" branch jumps out of the loop; it can't be the first branch of an if/else,
+        // because the end of the loop body leads back to the header.
+        assertThat(render("loopWithBreak"))
+                .isEqualTo(
+                        "public int loopWithBreak(int[] $1) {\n"
+                                + "    $2 = 0;\n"
+                                + "    while ($2 < $1.length) {\n"
+                                + "        if ($1[$2] < 0) {\n"
+                                + "            goto L0;\n"
+                                + "        }\n"
+                                + "        ++$2;\n"
+                                + "    }\n"
+                                + "L0:\n"
+                                + "    return $2;\n"
+                                + "}\n");
+    }
+}
@@ -0,0 +1,185 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+public class StreamingDecompilerTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    private static byte[] createClass(String name, int methodCount) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+        for (int i = 0; i < methodCount; i++) {
+            MethodVisitor mv =
+                    cw.visitMethod(
+                            Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "m" + i, "()I", null, null);
+            mv.visitCode();
+            mv.visitLdcInsn(i);
+            mv.visitInsn(Opcodes.IRETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /** Creates a class with a method that computes {@code x + x + ... + x}. */
+    private static byte[] createDeepClass(String name, int depth) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+        MethodVisitor mv =
+                cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "m", "(I)I", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ILOAD, 0);
+        for (int i = 0; i < depth; i++) {
+            mv.visitVarInsn(Opcodes.ILOAD, 0);
+            mv.visitInsn(Opcodes.IADD);
+        }
+        mv.visitInsn(Opcodes.IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static MappedArchive createArchive(List<String> names, List<byte[]> classFiles)
+            throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(baos)) {
+            for (int i = 0; i < names.size(); i++) {
+                out.putNextEntry(new ZipEntry(names.get(i) + ".class"));
+                out.write(classFiles.get(i));
+                out.closeEntry();
+            }
+        }
+        return MappedArchive.wrap(ByteBuffer.wrap(baos.toByteArray()));
+    }
+
+    private static List<String> decompile(
+            StreamingDecompiler decompiler, List<String> names, List<byte[]> classFiles) {
+        return assertTimeoutPreemptively(
+                TIMEOUT,
+                () -> {
+                    List<String> result = new ArrayList<>();
+                    decompiler.decompile(
+                            Collections.singletonList(createArchive(names, classFiles)),
+                            c -> result.add(c.getName()));
+                    return result;
+                });
+    }
+
+    @Test
+    public void preservesOrderWithSingleThread() {
+        List<String> names = new ArrayList<>();
+        List<byte[]> classFiles = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            names.add("test/C" + i);
+            classFiles.add(createClass("test/C" + i, i % 5 == 0 ? 100 : 3));
+        }
+        try (StreamingDecompiler decompiler =
+                new StreamingDecompiler(new Decompiler(), 1, 64 * 1024)) {
+            assertThat(decompile(decompiler, names, classFiles)).isEqualTo(names);
+        }
+    }
+
+    @Test
+    public void decompilesAllClasses() {
+        List<String> names = new ArrayList<>();
+        List<byte[]> classFiles = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            names.add("test/C" + i);
+            classFiles.add(createClass("test/C" + i, i % 5 == 0 ? 100 : 3));
+        }
+        try (StreamingDecompiler decompiler =
+                new StreamingDecompiler(new Decompiler(), 4, 64 * 1024)) {
+            // Classes are delivered in completion order.
+            assertThat(decompile(decompiler, names, classFiles))
+                    .containsExactlyInAnyOrderElementsOf(names);
+        }
+    }
+
+    @Test
+    public void budgetSmallerThanClass() {
+        List<String> names = new ArrayList<>();
+        List<byte[]> classFiles = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            names.add("test/C" + i);
+            classFiles.add(createClass("test/C" + i, 500));
+        }
+        assertThat(classFiles.get(0).length * 5).isGreaterThan(1024);
+        try (StreamingDecompiler decompiler = new StreamingDecompiler(new Decompiler(), 4, 1)) {
+            assertThat(decompile(decompiler, names, classFiles))
+                    .containsExactlyInAnyOrderElementsOf(names);
+        }
+    }
+
+    @Test
+    public void failingClass() {
+        List<String> names = new ArrayList<>();
+        List<byte[]> classFiles = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            names.add("test/C" + i);
+            classFiles.add(
+                    i == 10
+                            ? "not a class file".getBytes(StandardCharsets.UTF_8)
+                            : createClass("test/C" + i, 3));
+        }
+        try (StreamingDecompiler decompiler =
+                new StreamingDecompiler(new Decompiler(), 4, 64 * 1024)) {
+            assertThatThrownBy(() -> decompile(decompiler, names, classFiles))
+                    .isInstanceOf(RuntimeException.class);
+        }
+    }
+
+    @Test
+    public void stackOverflow() {
+        List<String> names = new ArrayList<>();
+        List<byte[]> classFiles = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            names.add("test/C" + i);
+            classFiles.add(
+                    i == 10 ? createDeepClass("test/C" + i, 30000) : createClass("test/C" + i, 3));
+        }
+        try (StreamingDecompiler decompiler =
+                new StreamingDecompiler(new Decompiler(), 4, 64 * 1024)) {
+            assertThatThrownBy(() -> decompile(decompiler, names, classFiles))
+                    .isInstanceOf(StackOverflowError.class);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SymbolIndexTest {
+    @TempDir Path tempDir;
+
+    @Test
+    public void updatesIncrementally() throws Exception {
+        byte[] classFile =
+                Files.readAllBytes(
+                        Paths.get(SymbolIndexTest.class.getResource("TestClass.class").toURI()));
+        DecompiledClass decompiledClass = new Decompiler().decompile(classFile);
+        String className = decompiledClass.getName();
+
+        SymbolIndex index = new SymbolIndex(tempDir);
+        index.update(Collections.singletonList(decompiledClass), Collections.emptyList());
+        assertThat(index.findReferences(ReferenceKind.INSTANTIATION, "java/lang/String"))
+                .containsExactlyInAnyOrder(
+                        new MethodReference(className, "newOperator", "()V"),
+                        new MethodReference(className, "newOperatorDiscardingResult", "()V"));
+        assertThat(index.findReferences(ReferenceKind.FIELD_READ, "java/lang/System.out"))
+                .containsExactly(new MethodReference(className, "boolMethod", "(Z)V"));
+        assertThat(index.findReferences(ReferenceKind.CALL, "boolMethod"))
+                .containsExactly(new MethodReference(className, "expressionAsBoolArg", "()V"));
+        assertThat(index.findReferences(ReferenceKind.CALL, "unknown")).isEmpty();
+
+        // Replacing the class must not produce duplicates.
+        index.update(Collections.singletonList(decompiledClass), Collections.emptyList());
+        index = new SymbolIndex(tempDir);
+        assertThat(index.getSegmentCount()).isEqualTo(2);
+        assertThat(index.findReferences(ReferenceKind.CALL, "boolMethod")).hasSize(1);
+
+        index.compact();
+        assertThat(index.getSegmentCount()).isEqualTo(1);
+        assertThat(index.findReferences(ReferenceKind.INSTANTIATION, "java/lang/String"))
+                .hasSize(2);
+
+        index.update(Collections.emptyList(), Collections.singletonList(className));
+        assertThat(index.findReferences(ReferenceKind.CALL, "boolMethod")).isEmpty();
+        index.compact();
+        assertThat(new SymbolIndex(tempDir).findReferences(ReferenceKind.CALL, "boolMethod"))
+                .isEmpty();
+    }
+}
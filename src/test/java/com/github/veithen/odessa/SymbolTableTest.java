@@ -0,0 +1,104 @@
+/*-
+ * #%L
+ * Odessa
+ * %%
+ * Copyright (C) 2022 Andreas Veithen
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.github.veithen.odessa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+
+public class SymbolTableTest {
+    private static final int THREADS = 8;
+    private static final int SYMBOLS = 5000;
+
+    @Test
+    public void canonicalizesAcrossThreads() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<String[]>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t * SYMBOLS / THREADS;
+                futures.add(
+                        executor.submit(
+                                () -> {
+                                    start.await();
+                                    // Each thread uses its own copies and starts at a different
+                                    // symbol, so that the threads race to register them.
+                                    String[] result = new String[SYMBOLS];
+                                    for (int i = 0; i < SYMBOLS; i++) {
+                                        int symbol = (i + offset) % SYMBOLS;
+                                        result[symbol] =
+                                                SymbolTable.canonicalize(
+                                                        new String("test/Symbol" + symbol));
+                                    }
+                                    return result;
+                                }));
+            }
+            start.countDown();
+            List<String[]> results = new ArrayList<>();
+            for (Future<String[]> future : futures) {
+                results.add(future.get());
+            }
+            for (int i = 0; i < SYMBOLS; i++) {
+                String expected = results.get(0)[i];
+                assertThat(expected).isEqualTo("test/Symbol" + i);
+                for (String[] result : results) {
+                    assertThat(result[i]).isSameAs(expected);
+                }
+                // Lookups on this thread go through the shared table, not the cache of a worker.
+                assertThat(SymbolTable.canonicalize(new String("test/Symbol" + i)))
+                        .isSameAs(expected);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void canonicalizesFrameTypes() {
+        String type = SymbolTable.canonicalize(new String("test/FrameType"));
+        Object[] types = {Opcodes.INTEGER, new String("test/FrameType"), null};
+        SymbolTable.canonicalize(types);
+        assertThat(types[0]).isSameAs(Opcodes.INTEGER);
+        assertThat(types[1]).isSameAs(type);
+        assertThat(types[2]).isNull();
+        assertThat(SymbolTable.canonicalize((String) null)).isNull();
+    }
+
+    @Test
+    public void nodesCompareCanonicalSymbols() {
+        ExpressionInterner interner = new ExpressionInterner();
+        Expression expression1 =
+                new FieldExpression(
+                        new String("test/Test"), interner.variable(0), new String("field"));
+        Expression expression2 =
+                new FieldExpression(
+                        new String("test/Test"), interner.variable(0), new String("field"));
+        assertThat(expression2).isEqualTo(expression1);
+    }
+}
@@ -20,6 +20,9 @@
 package com.github.veithen.odessa;
 
 public class TestClass {
+    private int intField;
+    private long longField;
+
     private void boolMethod(boolean arg) {
         System.out.println(arg);
     }
@@ -36,4 +39,98 @@ public class TestClass {
         int i = 42;
         boolMethod(i == 42);
     }
+
+    public int[] arrayInitializer() {
+        return new int[] {1, 2};
+    }
+
+    public int loop() {
+        int sum = 0;
+        int i = 0;
+        while (i != 10) {
+            if (i == 5) {
+                sum = sum + 2 * i;
+            } else {
+                sum = sum + i;
+            }
+            i++;
+        }
+        return sum;
+    }
+
+    private int intMethod() {
+        return intField;
+    }
+
+    public int assignFieldAsValue(int value) {
+        return intField = value;
+    }
+
+    public int assignFieldAsValueFromCall() {
+        return intField = intMethod();
+    }
+
+    public long assignLongFieldAsValue(long value) {
+        return longField = value;
+    }
+
+    public int assignArrayElementAsValue(int[] array, int index, int value) {
+        return array[index] = value;
+    }
+
+    public long assignLongArrayElementAsValue(long[] array, int index, long value) {
+        return array[index] = value;
+    }
+
+    public int tryCatch(String s) {
+        int result;
+        try {
+            result = Integer.parseInt(s);
+        } catch (NumberFormatException ex) {
+            result = -1;
+        }
+        return result;
+    }
+
+    private void referencedByHandle() {}
+
+    public Runnable methodReference() {
+        return this::referencedByHandle;
+    }
+
+    public int conditional(int a) {
+        return a > 0 ? 1 : 2;
+    }
+
+    public int nestedConditional(int a, int b) {
+        return a > 0 ? (b > 0 ? 1 : 2) : 3;
+    }
+
+    public int chainedConditional(int a, int b) {
+        return a > 0 ? 1 : b > 0 ? 2 : 3;
+    }
+
+    public boolean shortCircuit(int a, int b, int c) {
+        return a > 0 && (b > 0 || c > 0);
+    }
+
+    public int loopAfterCondition(int a, Object b) {
+        if (b != null) {
+            while (a < 10) {
+                a++;
+            }
+        }
+        return a;
+    }
+
+    public int loopWithBreak(int[] values) {
+        int i = 0;
+        while (i < values.length) {
+            if (values[i] < 0) {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
 }